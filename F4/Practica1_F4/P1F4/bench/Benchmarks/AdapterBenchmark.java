@@ -0,0 +1,82 @@
+package Benchmarks;
+
+import Business.Entities.Shop;
+import Persistance.PersistanceGson;
+import Persistance.ShopPersistance.ShopJSON;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Benchmark de la serialización de las tiendas: los TypeAdapter registrados en PersistanceGson frente a la
+ * serialización por reflexión de un Gson sin adaptadores (la que se usaba antes).
+ * Solo se compara la escritura: la lectura por reflexión no puede construir los modelos de negocio, que son abstractos,
+ * y la lectura ya se hacía antes con un decodificador escrito a mano. Además, con el catálogo actual la reflexión
+ * ya no produce el formato de los ficheros (recorre los campos internos del catálogo), así que la comparación
+ * solo da el orden de magnitud.
+ * Uso: AdapterBenchmark [tiendas] [repeticiones]. Por defecto, 2000 tiendas (40.000 productos) y 10 repeticiones
+ * después del calentamiento. La primera escritura de cada Gson se muestra aparte (incluye crear los adaptadores).
+ * @author alberto.marquillas i marc.viñas
+ */
+public class AdapterBenchmark {
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args Número de tiendas y de repeticiones.
+     * @throws Exception si no se pueden generar o leer los datos.
+     */
+    public static void main(String[] args) throws Exception {
+        BenchSupport.workspace();
+        int shops = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Path file = BenchSupport.FILES.resolve("shops.json");
+        BenchSupport.generateShops(file, shops);
+        ArrayList<Shop> data = new ShopJSON().readAll();
+
+        Gson reflective = new GsonBuilder().setPrettyPrinting().create();
+        Gson adapters = PersistanceGson.prettyGson();
+
+        System.out.printf("primera escritura: reflexión %.1f ms, adaptadores %.1f ms%n",
+                BenchSupport.ms(write(reflective, data)), BenchSupport.ms(write(adapters, data)));
+        for (int i = 0; i < runs; i++) {
+            write(reflective, data);
+            write(adapters, data);
+        }
+
+        long reflectiveTime = 0;
+        long adapterTime = 0;
+        for (int i = 0; i < runs; i++) {
+            reflectiveTime += write(reflective, data);
+            adapterTime += write(adapters, data);
+        }
+
+        long readTime = 0;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            new ShopJSON().readAll();
+            readTime += System.nanoTime() - start;
+        }
+
+        System.out.printf("%d tiendas, media de %d escrituras: reflexión %.1f ms, adaptadores %.1f ms%n",
+                data.size(), runs, BenchSupport.ms(reflectiveTime / runs), BenchSupport.ms(adapterTime / runs));
+        System.out.printf("lectura con adaptadores: %.1f ms%n", BenchSupport.ms(readTime / runs));
+    }
+
+    /**
+     * Serializa las tiendas con un Gson hacia un destino que descarta los caracteres.
+     *
+     * @param gson Gson con el que se serializa.
+     * @param data Tiendas.
+     * @return Tiempo en nanosegundos.
+     */
+    private static long write(Gson gson, ArrayList<Shop> data) {
+        long start = System.nanoTime();
+        gson.toJson(data, PersistanceGson.SHOP_LIST, Writer.nullWriter());
+        return System.nanoTime() - start;
+    }
+}
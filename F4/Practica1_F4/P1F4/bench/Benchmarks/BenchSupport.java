@@ -0,0 +1,184 @@
+package Benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Clase con las utilidades comunes de los benchmarks: el directorio de trabajo, la generación de datos sintéticos
+ * y la medida del tiempo y de la memoria.
+ * Los DAO leen y escriben en "files/" respecto al directorio actual, así que los benchmarks se tienen que ejecutar
+ * desde un directorio vacío (nunca desde el del proyecto, porque sobrescribirían los datos).
+ * Compilación y ejecución, desde la carpeta del proyecto:
+ * <pre>
+ *   javac -encoding UTF-8 -cp "lib/*" -d /tmp/bench-out $(find src bench -name "*.java")
+ *   mkdir /tmp/bench-run &amp;&amp; cd /tmp/bench-run
+ *   java -cp "/tmp/bench-out:PROYECTO/lib/*" Benchmarks.ParseBenchmark 10
+ * </pre>
+ * @author alberto.marquillas i marc.viñas
+ */
+public class BenchSupport {
+
+    static final Path FILES = Paths.get("files");
+    private static final Path MARKER = FILES.resolve(".bench");
+
+    /**
+     * Constructor privado: la clase solo ofrece métodos estáticos.
+     */
+    private BenchSupport() {}
+
+    /**
+     * Prepara la carpeta "files" del directorio actual para un benchmark.
+     * Si ya existe y no la ha creado un benchmark, se para, para no sobrescribir datos reales.
+     *
+     * @throws IOException si no se puede crear la carpeta.
+     */
+    static void workspace() throws IOException {
+        if (Files.exists(FILES) && !Files.exists(MARKER)) {
+            throw new IllegalStateException("El directorio actual ya tiene una carpeta \"files\": ejecuta los benchmarks desde un directorio vacío.");
+        }
+        Files.createDirectories(FILES);
+        if (Files.notExists(MARKER)) {
+            Files.createFile(MARKER);
+        }
+    }
+
+    /**
+     * Genera un fichero de tiendas con los catálogos copiados enteros (el formato original de "shops.json"),
+     * con 20 productos por tienda, hasta llegar al tamaño indicado.
+     *
+     * @param file Fichero que se escribe.
+     * @param bytes Tamaño aproximado del fichero.
+     * @throws IOException si no se puede escribir.
+     */
+    static void generateShops(Path file, long bytes) throws IOException {
+        generateShops(file, bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Genera un fichero de tiendas con el número de tiendas indicado, con 20 productos cada una.
+     *
+     * @param file Fichero que se escribe.
+     * @param shops Número de tiendas.
+     * @throws IOException si no se puede escribir.
+     */
+    static void generateShops(Path file, int shops) throws IOException {
+        generateShops(file, Long.MAX_VALUE, shops);
+    }
+
+    /**
+     * Genera un fichero de tiendas hasta llegar al tamaño o al número de tiendas indicados, lo que llegue antes.
+     * Los productos se toman de un conjunto de 2000 nombres, así que se repiten entre tiendas.
+     *
+     * @param file Fichero que se escribe.
+     * @param bytes Tamaño máximo aproximado del fichero.
+     * @param shops Número máximo de tiendas.
+     * @throws IOException si no se puede escribir.
+     */
+    private static void generateShops(Path file, long bytes, int shops) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("[\n");
+            long written = 0;
+            for (int i = 0; i < shops && written < bytes; i++) {
+                StringBuilder shop = new StringBuilder();
+                if (i > 0) {
+                    shop.append(",\n");
+                }
+                shop.append("{\"name\":\"Shop ").append(i).append("\",\"description\":\"Description of shop ").append(i)
+                        .append("\",\"since\":2000,\"earnings\":123.5,\"businessModelObject\":{\"loyaltyThreshold\":10.0},")
+                        .append("\"productCatalog\":{\"products\":[");
+                for (int p = 0; p < 20; p++) {
+                    if (p > 0) {
+                        shop.append(',');
+                    }
+                    shop.append("{\"name\":\"Product ").append((i * 7 + p) % 2000).append("\",\"brand\":\"Brand ").append(p % 50)
+                            .append("\",\"category\":\"GENERAL\",\"maxPrice\":20.0,\"rating\":[\"5* Great\",\"3* Fine\"],\"price\":12.5}");
+                }
+                shop.append("]}}");
+                out.write(shop.toString());
+                written += shop.length();
+            }
+            out.write("\n]");
+        }
+    }
+
+    /**
+     * Hace varias recolecciones de basura y pone a cero el pico de uso de la memoria del heap.
+     */
+    static void resetPeakHeap() {
+        gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Obtiene la suma de los picos de uso de todas las zonas del heap desde el último resetPeakHeap().
+     *
+     * @return Pico de uso en bytes.
+     */
+    static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Obtiene la memoria del heap ocupada por objetos vivos, después de recolectar la basura.
+     *
+     * @return Memoria ocupada en bytes.
+     */
+    static long usedHeapAfterGc() {
+        gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Pasa el recolector de basura varias veces, para que la medida de memoria no dependa de la basura pendiente.
+     */
+    private static void gc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Convierte bytes a megabytes.
+     *
+     * @param bytes Número de bytes.
+     * @return Megabytes.
+     */
+    static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    /**
+     * Convierte nanosegundos a milisegundos.
+     *
+     * @param nanos Nanosegundos.
+     * @return Milisegundos.
+     */
+    static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,94 @@
+package Benchmarks;
+
+import Business.Entities.HerenciasProduct.General;
+import Business.Entities.Product;
+import Business.Entities.ProductCatalog;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Benchmark de la búsqueda de un producto por nombre en un catálogo: el índice por nombre de ProductCatalog
+ * frente al recorrido lineal con equalsIgnoreCase que se hacía antes, con catálogos de 10 a 100.000 productos.
+ * Cada tamaño se calienta con varias rondas y se mide la última; las consultas son 1024 nombres al azar escritos
+ * con otras mayúsculas. JMH no está disponible en este proyecto (no tiene fichero de construcción), así que el bucle
+ * de medida es manual y el resultado se acumula en una variable para que el JIT no elimine las búsquedas.
+ * Uso: CatalogLookupBenchmark [tamaños...]. Por defecto, 10 100 1000 10000 100000.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class CatalogLookupBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args Tamaños de catálogo.
+     */
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[] {10, 100, 1000, 10000, 100000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        float sink = 0;
+        for (int size : sizes) {
+            ArrayList<Product> products = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                products.add(new General("Product number " + i, "Brand", 50f, new ArrayList<>(), i));
+            }
+
+            long start = System.nanoTime();
+            ProductCatalog catalog = new ProductCatalog();
+            for (Product product : products) {
+                catalog.addProduct(product);
+            }
+            long build = System.nanoTime() - start;
+
+            String[] queries = new String[1024];
+            Random random = new Random(size);
+            for (int i = 0; i < queries.length; i++) {
+                queries[i] = "PRODUCT NUMBER " + random.nextInt(size);
+            }
+
+            int iterations = Math.max(2000, 20_000_000 / size);
+            long linear = 0;
+            long indexed = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += linear(products, queries[i & 1023]);
+                }
+                linear = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    sink += catalog.searchForProductPrice(queries[i & 1023], catalog);
+                }
+                indexed = System.nanoTime() - start;
+            }
+
+            System.out.printf("%7d productos: lineal %10.1f ns/búsqueda   índice %7.1f ns/búsqueda   creación %.2f ms%n", size,
+                    (double) linear / iterations, (double) indexed / iterations, BenchSupport.ms(build));
+        }
+        if (sink == Float.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+
+    /**
+     * Busca el precio de un producto recorriendo la lista, como se hacía antes del índice.
+     *
+     * @param products Productos del catálogo.
+     * @param name Nombre del producto.
+     * @return Precio del producto, o 0 si no está.
+     */
+    private static float linear(ArrayList<Product> products, String name) {
+        for (Product product : products) {
+            if (product.getName().equalsIgnoreCase(name)) {
+                return product.getPrice();
+            }
+        }
+        return 0;
+    }
+}
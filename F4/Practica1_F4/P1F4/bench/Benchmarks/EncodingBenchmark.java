@@ -0,0 +1,72 @@
+package Benchmarks;
+
+import Business.Entities.Shop;
+import Persistance.JsonStorage;
+import Persistance.PersistanceGson;
+import Persistance.StorageEncoding;
+import Persistance.ShopPersistance.ShopJSON;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Benchmark de las codificaciones de los ficheros (StorageEncoding): tamaño en disco y tiempo de escritura
+ * (con el fichero temporal y el renombrado de JsonStorage) y de lectura de "shops.json" en PRETTY, COMPACT y GZIP.
+ * El rendimiento en MB/s se calcula sobre el tamaño del JSON compacto, que es el mismo contenido en los tres casos.
+ * Uso: EncodingBenchmark [tiendas] [repeticiones]. Por defecto, 5000 tiendas de 20 productos y el mejor de 10 intentos.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class EncodingBenchmark {
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args Número de tiendas y de repeticiones.
+     * @throws Exception si no se pueden generar, escribir o leer los ficheros.
+     */
+    public static void main(String[] args) throws Exception {
+        BenchSupport.workspace();
+        int shops = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Path file = BenchSupport.FILES.resolve("shops.json");
+        BenchSupport.generateShops(file, shops);
+        ArrayList<Shop> data = new ShopJSON().readAll();
+
+        long compactSize = -1;
+        for (StorageEncoding encoding : new StorageEncoding[] {StorageEncoding.COMPACT, StorageEncoding.PRETTY, StorageEncoding.GZIP}) {
+            long bestWrite = Long.MAX_VALUE;
+            long bestRead = Long.MAX_VALUE;
+            for (int i = 0; i < runs; i++) {
+                long start = System.nanoTime();
+                JsonStorage.write(file, data, PersistanceGson.SHOP_LIST, encoding);
+                bestWrite = Math.min(bestWrite, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                new ShopJSON().readAll();
+                bestRead = Math.min(bestRead, System.nanoTime() - start);
+            }
+
+            Path written = encoding == StorageEncoding.GZIP ? JsonStorage.gzipPath(file) : file;
+            long size = Files.size(written);
+            if (compactSize < 0) {
+                compactSize = size;
+            }
+            System.out.printf("%-8s %7.1f MB   escritura %6.0f ms (%5.1f MB/s)   lectura %6.0f ms (%5.1f MB/s)%n", encoding,
+                    BenchSupport.mb(size), BenchSupport.ms(bestWrite), throughput(compactSize, bestWrite),
+                    BenchSupport.ms(bestRead), throughput(compactSize, bestRead));
+        }
+    }
+
+    /**
+     * Calcula el rendimiento de una operación.
+     *
+     * @param bytes Bytes de JSON procesados.
+     * @param nanos Tiempo en nanosegundos.
+     * @return Megabytes por segundo.
+     */
+    private static double throughput(long bytes, long nanos) {
+        return BenchSupport.mb(bytes) / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,126 @@
+package Benchmarks;
+
+import Business.Entities.HerenciasProduct.General;
+import Business.Entities.Offer;
+import Business.Entities.Product;
+import Business.Entities.Shop;
+import Persistance.ProductPersistance.ProductJSON;
+import Persistance.ShopPersistance.ShopJSON;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark de la memoria que ocupan los catálogos de todas las tiendas en el heap, con los productos compartidos
+ * entre tiendas (ProductRegistry) frente a una copia del producto por tienda, que es lo que había antes.
+ * Lee las tiendas con ShopJSON.readAll, mide la memoria ocupada después de recolectar la basura y muestra las filas
+ * del histograma de clases del heap (jcmd GC.class_histogram) de las clases del programa; después hace una copia
+ * de cada producto de cada catálogo y vuelve a medir.
+ * Uso: HeapBenchmark [tiendas] [productos por tienda] [productos del catálogo general]. Por defecto, 10.000 tiendas
+ * de 20 productos, tomados de un catálogo general de 2000 productos con 5 reseñas cada uno.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class HeapBenchmark {
+
+    private static Object retained;
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args Número de tiendas, de productos por tienda y de productos del catálogo general.
+     * @throws Exception si no se pueden generar o leer los ficheros.
+     */
+    public static void main(String[] args) throws Exception {
+        BenchSupport.workspace();
+        int shopCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int perShop = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int catalogSize = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        generate(shopCount, perShop, catalogSize);
+
+        long empty = BenchSupport.usedHeapAfterGc();
+        ArrayList<Shop> shops = new ShopJSON(new ProductJSON(false)).readAll();
+        retained = shops;
+        long shared = BenchSupport.usedHeapAfterGc() - empty;
+        System.out.printf("productos compartidos: %d tiendas, %.1f MB%n", shops.size(), BenchSupport.mb(shared));
+        printHistogram();
+
+        ArrayList<Product> copies = new ArrayList<>();
+        for (Shop shop : shops) {
+            for (Offer offer : shop.getProductCatalog().listOffers()) {
+                Product copy = offer.getProduct().copy();
+                copy.setPrice(offer.getPrice());
+                copies.add(copy);
+            }
+        }
+        retained = List.of(shops, copies);
+        long copied = BenchSupport.usedHeapAfterGc() - empty;
+        System.out.printf("con una copia por tienda: %d copias, %.1f MB más%n", copies.size(), BenchSupport.mb(copied - shared));
+        printHistogram();
+    }
+
+    /**
+     * Genera el catálogo general y las tiendas, con los catálogos normalizados.
+     *
+     * @param shopCount Número de tiendas.
+     * @param perShop Productos por tienda.
+     * @param catalogSize Productos del catálogo general.
+     * @throws IOException si no se pueden escribir los ficheros.
+     */
+    private static void generate(int shopCount, int perShop, int catalogSize) throws IOException {
+        Files.writeString(BenchSupport.FILES.resolve("products.json"), "[]");
+        Files.writeString(BenchSupport.FILES.resolve("shops.json"), "[]");
+        Files.deleteIfExists(BenchSupport.FILES.resolve("shops.json.idx"));
+
+        Random random = new Random(1);
+        ProductJSON productJSON = new ProductJSON(false);
+        ArrayList<Product> products = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            ArrayList<String> reviews = new ArrayList<>();
+            for (int r = 0; r < 5; r++) {
+                reviews.add((1 + random.nextInt(5)) + "* Review " + r);
+            }
+            products.add(new General("Product " + i, "Brand " + (i % 50), 50f, reviews));
+        }
+        productJSON.delete(products);
+
+        ArrayList<Shop> shops = new ArrayList<>();
+        for (int i = 0; i < shopCount; i++) {
+            Shop shop = new Shop("Shop " + i, "Description", 2000, "MAX_PROFIT", 0, null);
+            for (int p = 0; p < perShop; p++) {
+                shop.getProductCatalog().addProduct(products.get(random.nextInt(catalogSize)), 10f + p);
+            }
+            shops.add(shop);
+        }
+        new ShopJSON(productJSON).addAll(shops);
+    }
+
+    /**
+     * Muestra las filas del histograma de clases del heap de las clases del programa, con jcmd.
+     * Si el JDK no tiene jcmd (por ejemplo, en un JRE), solo se avisa.
+     *
+     * @throws IOException si no se puede ejecutar jcmd.
+     * @throws InterruptedException si se interrumpe la espera.
+     */
+    private static void printHistogram() throws IOException, InterruptedException {
+        Path jcmd = Paths.get(System.getProperty("java.home"), "bin", "jcmd");
+        if (!Files.isExecutable(jcmd)) {
+            System.out.println("  (no hay jcmd en " + jcmd.getParent() + ": no se muestra el histograma)");
+            return;
+        }
+
+        Process process = new ProcessBuilder(jcmd.toString(), String.valueOf(ProcessHandle.current().pid()), "GC.class_histogram")
+                .redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        process.waitFor();
+        for (String line : output.lines().toList()) {
+            if (line.contains(" Business.") || line.startsWith("Total")) {
+                System.out.println("  " + line.trim());
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package Benchmarks;
+
+import Business.Entities.Shop;
+import Persistance.PersistanceGson;
+import Persistance.ShopPersistance.ShopJSON;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Benchmark de la lectura de "shops.json": tiempo y pico de memoria del heap de la lectura en streaming de ShopJSON
+ * frente a la lectura anterior, que construía primero el árbol JSON entero (JsonParser) y después las tiendas.
+ * Uso: ParseBenchmark [MB...] [tree|stream]. Por defecto, 10 MB y los dos modos. Para los ficheros grandes
+ * (por ejemplo 500 MB) conviene medir cada modo en una JVM distinta y con -Xmx suficiente.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ParseBenchmark {
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args Tamaños de fichero en MB y, opcionalmente, el modo ("tree" o "stream").
+     * @throws Exception si no se pueden generar o leer los ficheros.
+     */
+    public static void main(String[] args) throws Exception {
+        BenchSupport.workspace();
+        ArrayList<Long> sizes = new ArrayList<>();
+        String mode = null;
+        for (String arg : args) {
+            if (arg.equals("tree") || arg.equals("stream")) {
+                mode = arg;
+            } else {
+                sizes.add(Long.parseLong(arg));
+            }
+        }
+        if (sizes.isEmpty()) {
+            sizes.add(10L);
+        }
+
+        Path file = BenchSupport.FILES.resolve("shops.json");
+        for (long size : sizes) {
+            BenchSupport.generateShops(file, size << 20);
+            if (mode == null || mode.equals("tree")) {
+                run(size, "tree", file);
+            }
+            if (mode == null || mode.equals("stream")) {
+                run(size, "stream", file);
+            }
+        }
+    }
+
+    /**
+     * Lee el fichero en un modo y muestra el tiempo y el pico de memoria.
+     *
+     * @param size Tamaño del fichero en MB.
+     * @param mode "tree" o "stream".
+     * @param file Fichero de tiendas.
+     * @throws Exception si no se puede leer.
+     */
+    private static void run(long size, String mode, Path file) throws Exception {
+        BenchSupport.resetPeakHeap();
+        long base = BenchSupport.peakHeap();
+        long start = System.nanoTime();
+        ArrayList<Shop> shops = mode.equals("tree") ? readTree(file) : new ShopJSON().readAll();
+        long time = System.nanoTime() - start;
+        System.out.printf("%4d MB %-6s %6d tiendas  %8.0f ms  pico %6.0f MB%n", size, mode, shops.size(),
+                BenchSupport.ms(time), BenchSupport.mb(BenchSupport.peakHeap() - base));
+    }
+
+    /**
+     * Lee las tiendas como antes: primero el árbol JSON de todo el fichero y después las entidades.
+     *
+     * @param file Fichero de tiendas.
+     * @throws Exception si no se puede leer.
+     * @return Las tiendas.
+     */
+    private static ArrayList<Shop> readTree(Path file) throws Exception {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonElement tree = JsonParser.parseReader(reader);
+            return PersistanceGson.gson().fromJson(tree, PersistanceGson.SHOP_LIST);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package Benchmarks;
+
+import Business.Entities.HerenciasProduct.General;
+import Business.Entities.Product;
+import Business.Entities.Shop;
+import Persistance.ProductPersistance.ProductJSON;
+import Persistance.ShopPersistance.ShopJSON;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark de la lectura de una sola tienda (ShopJSON.readShop, con el índice "shops.json.idx" y los productos
+ * resueltos uno a uno) frente a la lectura de todas las tiendas (readAll), con los catálogos normalizados.
+ * Uso: PointReadBenchmark [tiendas] [productos por tienda] [productos del catálogo general]. Por defecto, 10.000 tiendas
+ * de 10 productos, tomados de un catálogo general de 200. Con un catálogo general grande se ve que readShop no lo lee entero.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class PointReadBenchmark {
+
+    /**
+     * Ejecuta el benchmark.
+     *
+     * @param args Número de tiendas, de productos por tienda y de productos del catálogo general.
+     * @throws Exception si no se pueden generar o leer los ficheros.
+     */
+    public static void main(String[] args) throws Exception {
+        BenchSupport.workspace();
+        int shopCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int perShop = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int catalogSize = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        Files.writeString(BenchSupport.FILES.resolve("products.json"), "[]");
+        Files.writeString(BenchSupport.FILES.resolve("shops.json"), "[]");
+        Files.deleteIfExists(BenchSupport.FILES.resolve("shops.json.idx"));
+
+        ProductJSON productJSON = new ProductJSON(false);
+        ArrayList<Product> products = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            products.add(new General("Product " + i, "Brand", 50f, new ArrayList<>(List.of("4* Good", "3* Fine"))));
+        }
+        productJSON.delete(products);
+
+        ShopJSON shopJSON = new ShopJSON(productJSON);
+        Random random = new Random(1);
+        ArrayList<Shop> shops = new ArrayList<>();
+        for (int i = 0; i < shopCount; i++) {
+            Shop shop = new Shop("Shop " + i, "Description", 2000, "MAX_PROFIT", 0, null);
+            for (int p = 0; p < perShop; p++) {
+                shop.getProductCatalog().addProduct(products.get(random.nextInt(products.size())), 10f);
+            }
+            shops.add(shop);
+        }
+        shopJSON.addAll(shops);
+
+        Path file = BenchSupport.FILES.resolve("shops.json");
+        long start = System.nanoTime();
+        int resolved = shopJSON.readShop("shop 1").getProductCatalog().listProducts().size();
+        System.out.printf("primera lectura (crea el índice): %.1f ms, %d productos resueltos, shops.json %d KB%n",
+                BenchSupport.ms(System.nanoTime() - start), resolved, Files.size(file) / 1024);
+
+        for (int round = 0; round < 3; round++) {
+            start = System.nanoTime();
+            for (int i = 0; i < 1000; i++) {
+                if (shopJSON.readShop("shop " + random.nextInt(shopCount)) == null) {
+                    throw new IllegalStateException("No se ha encontrado la tienda");
+                }
+            }
+            long point = (System.nanoTime() - start) / 1000;
+
+            start = System.nanoTime();
+            for (int i = 0; i < 5; i++) {
+                shopJSON.readAll();
+            }
+            long all = (System.nanoTime() - start) / 5;
+            System.out.printf("readShop %.3f ms   readAll %.1f ms%n", BenchSupport.ms(point), BenchSupport.ms(all));
+        }
+    }
+}
@@ -27,6 +27,20 @@ public abstract class BusinessModel {
      */
     public abstract float descompte(float price, int iva);
 
+    /**
+     * Calcula el precio final de muchos productos de una vez, con las mismas reglas que se aplican al añadir un producto
+     * al carrito (CartManager.addToCart): cada modelo decide, a partir de la marca de cada producto y del nivel de
+     * fidelidad del cliente, a qué productos aplica su descuento; a los demás les deja el precio original.
+     * Cada subclase lo implementa con un bucle sobre los arrays, sin llamadas por producto. El array de salida puede ser
+     * el mismo que el de precios.
+     *
+     * @param prices         Precios originales de los productos.
+     * @param ivas           Impuesto (IVA) de cada producto.
+     * @param sponsoredBrand Indica, para cada producto, si es de la marca patrocinadora de la tienda.
+     * @param loyalty        Nivel de fidelidad del cliente (lo que ha gastado), que se compara con el umbral de la tienda.
+     * @param out            Array donde se escriben los precios finales (como mínimo de la longitud de prices).
+     */
+    public abstract void descompte(float[] prices, int[] ivas, boolean[] sponsoredBrand, float loyalty, float[] out);
 
 }
 
@@ -1,32 +1,124 @@
 package Business.Entities;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 /**
  * Clase que representa el carrito de compras de un usuario.
+ * Cada línea del carrito es un producto de una tienda: los elementos se guardan por (tienda, producto), sin distinguir
+ * mayúsculas y minúsculas, en el orden en que se han añadido. Así, buscar, añadir o quitar una línea no recorre
+ * el carrito, y el mismo producto comprado en dos tiendas son dos líneas distintas.
  * @author alberto.marquillas i marc.viñas
  */
 public class Cart {
 
-    private ArrayList<CartItem> cartItems;
+    private final LinkedHashMap<Key, CartItem> cartItems;
     private float thresholdLoyalty;
 
+    /**
+     * Clase que representa la clave de una línea del carrito: el nombre de la tienda y el del producto, en minúsculas.
+     */
+    private static final class Key {
+        private final String shop;
+        private final String product;
+
+        /**
+         * Constructor de la clase Key.
+         *
+         * @param shop Nombre de la tienda.
+         * @param product Nombre del producto.
+         */
+        private Key(String shop, String product) {
+            this.shop = shop.toLowerCase();
+            this.product = product.toLowerCase();
+        }
+
+        /**
+         * Compara dos claves por tienda y producto.
+         *
+         * @param o Objeto con el que se compara.
+         * @return true si es una clave con la misma tienda y el mismo producto.
+         */
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && shop.equals(key.shop) && product.equals(key.product);
+        }
+
+        /**
+         * Calcula el hash de la clave a partir de la tienda y el producto.
+         *
+         * @return Hash de la clave.
+         */
+        @Override
+        public int hashCode() {
+            return 31 * shop.hashCode() + product.hashCode();
+        }
+    }
+
     /**
      * Constructor de la clase Cart. Inicializa un carrito vacío sin umbral de lealtad.
      */
     public Cart() {
-        cartItems = new ArrayList<>();
+        cartItems = new LinkedHashMap<>();
         this.thresholdLoyalty = 0;
     }
 
     /**
      * Agrega un producto al carrito con el elemento del carrito proporcionado.
+     * Si ya había una línea con el mismo producto de la misma tienda, se sustituye (manteniendo su posición).
      *
-     * @param cartItem Elemento del carrito que se agregará.
+     * @param cartItem Elemento del carrito que se agregará (con su producto y su tienda).
      */
     public void addProduct(CartItem cartItem) {
 
-        cartItems.add(cartItem);
+        cartItems.put(key(cartItem), cartItem);
+    }
+
+    /**
+     * Busca la línea de un producto de una tienda.
+     *
+     * @param shopName Nombre de la tienda.
+     * @param productName Nombre del producto.
+     * @return El elemento del carrito, o null si el producto de esa tienda no está en el carrito.
+     */
+    public CartItem findProduct(String shopName, String productName) {
+        return cartItems.get(new Key(shopName, productName));
+    }
+
+    /**
+     * Elimina del carrito la línea de un producto de una tienda.
+     *
+     * @param shopName Nombre de la tienda.
+     * @param productName Nombre del producto.
+     * @return true si la línea estaba en el carrito, false en caso contrario.
+     */
+    public boolean removeProduct(String shopName, String productName) {
+        return cartItems.remove(new Key(shopName, productName)) != null;
+    }
+
+    /**
+     * Cambia la cantidad de la línea de un producto de una tienda. Si la cantidad es 0 o menos, se quita la línea.
+     * El precio de la línea es el de todas sus unidades, así que se ajusta a la nueva cantidad.
+     *
+     * @param shopName Nombre de la tienda.
+     * @param productName Nombre del producto.
+     * @param cantidad Nueva cantidad de unidades.
+     * @return true si la línea estaba en el carrito, false en caso contrario.
+     */
+    public boolean setCantidad(String shopName, String productName, int cantidad) {
+        Key key = new Key(shopName, productName);
+        CartItem cartItem = cartItems.get(key);
+        if (cartItem == null) {
+            return false;
+        }
+        if (cantidad <= 0) {
+            cartItems.remove(key);
+        } else {
+            Product product = cartItem.getProduct();
+            product.setPrice(product.getPrice() / cartItem.getCantidad() * cantidad);
+            cartItem.setCantidad(cantidad);
+        }
+        return true;
     }
 
     /**
@@ -37,12 +129,21 @@ public class Cart {
     }
 
     /**
-     * Obtiene la lista de elementos del carrito.
+     * Obtiene la lista de elementos del carrito, en el orden en que se añadieron.
      *
-     * @return ArrayList de elementos del carrito.
+     * @return ArrayList nuevo con los elementos del carrito.
      */
     public ArrayList<CartItem> getCartItems() {
-        return cartItems;
+        return new ArrayList<>(cartItems.values());
+    }
+
+    /**
+     * Obtiene el número de líneas del carrito.
+     *
+     * @return Número de líneas (productos distintos de cada tienda).
+     */
+    public int size() {
+        return cartItems.size();
     }
 
     /**
@@ -62,4 +163,14 @@ public class Cart {
     public void setThresholdLoyalty(float thresholdLoyalty) {
         this.thresholdLoyalty = thresholdLoyalty;
     }
+
+    /**
+     * Obtiene la clave de un elemento del carrito.
+     *
+     * @param cartItem Elemento del carrito.
+     * @return La clave (tienda, producto) del elemento.
+     */
+    private static Key key(CartItem cartItem) {
+        return new Key(cartItem.getShop().getName(), cartItem.getProduct().getName());
+    }
 }
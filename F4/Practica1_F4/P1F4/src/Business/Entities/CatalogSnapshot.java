@@ -0,0 +1,583 @@
+package Business.Entities;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Clase que representa una versión inmutable de un catálogo de productos: sus ofertas, en orden, con las columnas
+ * de precios, precios máximos y categorías, y el índice por nombre.
+ * Una versión no cambia nunca, así que se puede recorrer desde varios hilos sin bloqueos mientras otro hilo publica
+ * una versión nueva en el ProductCatalog.
+ * Las ofertas se guardan en un árbol de 32 ramas cuyas hojas tienen 32 ofertas con sus columnas, más una hoja final
+ * ("tail") donde se añaden las ofertas nuevas. Añadir o sustituir una oferta copia solo la hoja y el camino hasta ella
+ * (y, al añadir, el camino del índice por nombre, que guarda posiciones); el resto se comparte con la versión anterior.
+ * Eliminar una oferta desplaza todas las siguientes, así que construye la versión de nuevo.
+ * @author alberto.marquillas i marc.viñas
+ */
+public final class CatalogSnapshot {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, BITS, new Object[WIDTH], Leaf.EMPTY, NameIndex.EMPTY);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Leaf tail;
+    private final NameIndex index;
+
+    /**
+     * Clase que representa una hoja del árbol: hasta 32 ofertas consecutivas con sus columnas de tipos primitivos.
+     * Las hojas son inmutables; para cambiar una se crea una copia.
+     */
+    private static final class Leaf {
+        private static final Leaf EMPTY = new Leaf(new Offer[0], new float[0], new float[0], new byte[0]);
+
+        private final Offer[] offers;
+        private final float[] prices;
+        private final float[] maxPrices;
+        private final byte[] categories;
+
+        /**
+         * Constructor de la clase Leaf.
+         *
+         * @param offers Ofertas.
+         * @param prices Precio de cada oferta.
+         * @param maxPrices Precio máximo del producto de cada oferta.
+         * @param categories Ordinal de la categoría del producto de cada oferta.
+         */
+        private Leaf(Offer[] offers, float[] prices, float[] maxPrices, byte[] categories) {
+            this.offers = offers;
+            this.prices = prices;
+            this.maxPrices = maxPrices;
+            this.categories = categories;
+        }
+
+        /**
+         * Crea una copia de la hoja con una oferta más al final.
+         *
+         * @param offer Oferta nueva.
+         * @return La hoja nueva.
+         */
+        private Leaf append(Offer offer) {
+            int n = offers.length;
+            Leaf leaf = new Leaf(Arrays.copyOf(offers, n + 1), Arrays.copyOf(prices, n + 1),
+                    Arrays.copyOf(maxPrices, n + 1), Arrays.copyOf(categories, n + 1));
+            leaf.store(n, offer);
+            return leaf;
+        }
+
+        /**
+         * Crea una copia de la hoja con una oferta sustituida.
+         *
+         * @param i Posición dentro de la hoja.
+         * @param offer Oferta nueva.
+         * @return La hoja nueva.
+         */
+        private Leaf replace(int i, Offer offer) {
+            Leaf leaf = new Leaf(offers.clone(), prices.clone(), maxPrices.clone(), categories.clone());
+            leaf.store(i, offer);
+            return leaf;
+        }
+
+        /**
+         * Escribe una oferta y sus columnas en una posición de una hoja que todavía no se ha publicado.
+         *
+         * @param i Posición dentro de la hoja.
+         * @param offer Oferta.
+         */
+        private void store(int i, Offer offer) {
+            offers[i] = offer;
+            prices[i] = offer.getPrice();
+            maxPrices[i] = offer.getProduct().getMaxPrice();
+            categories[i] = (byte) offer.getProduct().getProductCategory().ordinal();
+        }
+
+        /**
+         * Crea una copia de la hoja con los precios multiplicados por un factor, sin bajar de 0 ni pasar del precio
+         * máximo de cada producto. Las columnas de precios máximos y categorías no cambian, así que se comparten.
+         *
+         * @param factor Factor por el que se multiplica cada precio.
+         * @return La hoja nueva.
+         */
+        private Leaf multiplyPrices(float factor) {
+            int n = offers.length;
+            Offer[] newOffers = new Offer[n];
+            float[] newPrices = new float[n];
+            for (int i = 0; i < n; i++) {
+                newPrices[i] = Math.min(maxPrices[i], Math.max(0, prices[i] * factor));
+                newOffers[i] = new Offer(offers[i].getProduct(), newPrices[i]);
+            }
+            return new Leaf(newOffers, newPrices, maxPrices, categories);
+        }
+    }
+
+    /**
+     * Constructor de la clase CatalogSnapshot.
+     *
+     * @param size Número de ofertas.
+     * @param shift Desplazamiento del nivel de la raíz.
+     * @param root Raíz del árbol (sin la hoja final).
+     * @param tail Hoja final.
+     * @param index Índice por nombre (posición de la primera oferta con cada nombre).
+     */
+    private CatalogSnapshot(int size, int shift, Object[] root, Leaf tail, NameIndex index) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+        this.index = index;
+    }
+
+    /**
+     * Obtiene el número de ofertas de la versión.
+     *
+     * @return Número de ofertas.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Obtiene la oferta de una posición.
+     *
+     * @param i Posición de la oferta.
+     * @throws IndexOutOfBoundsException si la posición no existe.
+     * @return La oferta.
+     */
+    public Offer getOffer(int i) {
+        return leafFor(i).offers[i & MASK];
+    }
+
+    /**
+     * Lista las ofertas de la versión, en orden.
+     *
+     * @return Lista no modificable de las ofertas (como la versión no cambia, tampoco cambia la lista).
+     */
+    public List<Offer> listOffers() {
+        return new OfferList();
+    }
+
+    /**
+     * Busca la oferta de un producto por su nombre (sin distinguir mayúsculas y minúsculas).
+     * Si hay varios productos con el mismo nombre, devuelve el primero.
+     *
+     * @param name Nombre del producto.
+     * @return La oferta, o null si el producto no está en la versión.
+     */
+    public Offer findOffer(String name) {
+        int i = indexOf(name);
+        return i < 0 ? null : getOffer(i);
+    }
+
+    /**
+     * Busca la posición de un producto por su nombre (sin distinguir mayúsculas y minúsculas).
+     * Si hay varios productos con el mismo nombre, devuelve la del primero.
+     *
+     * @param name Nombre del producto.
+     * @return La posición, o -1 si el producto no está en la versión.
+     */
+    public int indexOf(String name) {
+        return name == null ? -1 : index.get(key(name));
+    }
+
+    /**
+     * Indica si hay productos con el mismo nombre (sin distinguir mayúsculas y minúsculas).
+     *
+     * @return true si algún nombre está repetido.
+     */
+    public boolean hasDuplicatedNames() {
+        return index.size() < size;
+    }
+
+    /**
+     * Obtiene los precios de todas las ofertas, en orden.
+     *
+     * @return Array nuevo con el precio de cada oferta.
+     */
+    public float[] getPrices() {
+        float[] prices = new float[size];
+        for (int start = 0; start < size; start += WIDTH) {
+            Leaf leaf = leafFor(start);
+            System.arraycopy(leaf.prices, 0, prices, start, Math.min(WIDTH, size - start));
+        }
+        return prices;
+    }
+
+    /**
+     * Obtiene el IVA del producto de cada oferta, en orden, a partir de la columna de categorías.
+     *
+     * @return Array nuevo con el IVA de cada oferta.
+     */
+    public int[] getIvas() {
+        ProductCategory[] values = ProductCategory.values();
+        int[] ivas = new int[size];
+        for (int start = 0; start < size; start += WIDTH) {
+            Leaf leaf = leafFor(start);
+            int n = Math.min(WIDTH, size - start);
+            for (int i = 0; i < n; i++) {
+                ivas[start + i] = values[leaf.categories[i]].getIva();
+            }
+        }
+        return ivas;
+    }
+
+    /**
+     * Indica, para cada oferta, si el producto es de una marca (sin distinguir mayúsculas y minúsculas).
+     *
+     * @param brand Marca, o null si no se busca ninguna.
+     * @return Array nuevo con true en las ofertas de esa marca (todo false si la marca es null).
+     */
+    public boolean[] matchesBrand(String brand) {
+        boolean[] matches = new boolean[size];
+        if (brand == null) {
+            return matches;
+        }
+        for (int start = 0; start < size; start += WIDTH) {
+            Offer[] offers = leafFor(start).offers;
+            int n = Math.min(WIDTH, size - start);
+            for (int i = 0; i < n; i++) {
+                matches[start + i] = brand.equalsIgnoreCase(offers[i].getProduct().getBrand());
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Obtiene el precio más bajo de la versión.
+     *
+     * @return El precio más bajo, o 0 si no hay ofertas.
+     */
+    public float minPrice() {
+        if (size == 0) {
+            return 0;
+        }
+        float min = Float.POSITIVE_INFINITY;
+        for (int start = 0; start < size; start += WIDTH) {
+            float[] prices = leafFor(start).prices;
+            int n = Math.min(WIDTH, size - start);
+            for (int i = 0; i < n; i++) {
+                min = Math.min(min, prices[i]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Obtiene el precio más alto de la versión.
+     *
+     * @return El precio más alto, o 0 si no hay ofertas.
+     */
+    public float maxPrice() {
+        if (size == 0) {
+            return 0;
+        }
+        float max = Float.NEGATIVE_INFINITY;
+        for (int start = 0; start < size; start += WIDTH) {
+            float[] prices = leafFor(start).prices;
+            int n = Math.min(WIDTH, size - start);
+            for (int i = 0; i < n; i++) {
+                max = Math.max(max, prices[i]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Suma los precios de todas las ofertas.
+     *
+     * @return Suma de los precios (0 si no hay ofertas).
+     */
+    public float sumPrices() {
+        double sum = 0;
+        for (int start = 0; start < size; start += WIDTH) {
+            float[] prices = leafFor(start).prices;
+            int n = Math.min(WIDTH, size - start);
+            for (int i = 0; i < n; i++) {
+                sum += prices[i];
+            }
+        }
+        return (float) sum;
+    }
+
+    /**
+     * Busca las posiciones de las ofertas con un precio dentro de un rango (ambos extremos incluidos).
+     *
+     * @param min Precio mínimo.
+     * @param max Precio máximo.
+     * @return Posiciones (en orden) de las ofertas con el precio en el rango.
+     */
+    public int[] findByPriceRange(float min, float max) {
+        int[] found = new int[size];
+        int count = 0;
+        for (int start = 0; start < size; start += WIDTH) {
+            float[] prices = leafFor(start).prices;
+            int n = Math.min(WIDTH, size - start);
+            for (int i = 0; i < n; i++) {
+                float price = prices[i];
+                if (price >= min && price <= max) {
+                    found[count++] = start + i;
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Busca las posiciones de las ofertas de una categoría.
+     *
+     * @param category Categoría de producto.
+     * @return Posiciones (en orden) de las ofertas de esa categoría.
+     */
+    public int[] findByCategory(ProductCategory category) {
+        byte code = (byte) category.ordinal();
+        int[] found = new int[size];
+        int count = 0;
+        for (int start = 0; start < size; start += WIDTH) {
+            byte[] categories = leafFor(start).categories;
+            int n = Math.min(WIDTH, size - start);
+            for (int i = 0; i < n; i++) {
+                if (categories[i] == code) {
+                    found[count++] = start + i;
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Crea una versión con una oferta más al final.
+     *
+     * @param offer Oferta nueva.
+     * @return La versión nueva; esta no cambia.
+     */
+    CatalogSnapshot append(Offer offer) {
+        String key = key(offer.getName());
+        NameIndex newIndex = index.get(key) < 0 ? index.put(key, size) : index;
+
+        if (size - tailOffset() < WIDTH) {
+            return new CatalogSnapshot(size + 1, shift, root, tail.append(offer), newIndex);
+        }
+
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new CatalogSnapshot(size + 1, newShift, newRoot, Leaf.EMPTY.append(offer), newIndex);
+    }
+
+    /**
+     * Crea una versión con la oferta de una posición sustituida por otra del mismo producto (mismo nombre).
+     *
+     * @param i Posición de la oferta.
+     * @param offer Oferta nueva.
+     * @throws IndexOutOfBoundsException si la posición no existe.
+     * @return La versión nueva; esta no cambia.
+     */
+    CatalogSnapshot replace(int i, Offer offer) {
+        if (!getOffer(i).getName().equalsIgnoreCase(offer.getName())) {
+            return rebuild(i, offer);
+        }
+        if (i >= tailOffset()) {
+            return new CatalogSnapshot(size, shift, root, tail.replace(i & MASK, offer), index);
+        }
+        return new CatalogSnapshot(size, shift, replace(shift, root, i, offer), tail, index);
+    }
+
+    /**
+     * Crea una versión sin la oferta de una posición. Como las ofertas siguientes cambian de posición,
+     * la versión se construye de nuevo.
+     *
+     * @param i Posición de la oferta.
+     * @throws IndexOutOfBoundsException si la posición no existe.
+     * @return La versión nueva; esta no cambia.
+     */
+    CatalogSnapshot remove(int i) {
+        return rebuild(i, null);
+    }
+
+    /**
+     * Crea una versión con todos los precios multiplicados por un factor, sin bajar de 0 ni pasar del precio máximo
+     * de cada producto. Cambian todas las hojas, pero no la forma del árbol ni las posiciones, así que el índice
+     * por nombre se comparte.
+     *
+     * @param factor Factor por el que se multiplica cada precio.
+     * @return La versión nueva; esta no cambia.
+     */
+    CatalogSnapshot multiplyPrices(float factor) {
+        return new CatalogSnapshot(size, shift, (Object[]) multiplyPrices(root, factor), tail.multiplyPrices(factor), index);
+    }
+
+    /**
+     * Construye de nuevo la versión sustituyendo o quitando una oferta.
+     *
+     * @param removed Posición de la oferta que se sustituye o se quita.
+     * @param replacement Oferta que la sustituye, o null para quitarla.
+     * @return La versión nueva.
+     */
+    private CatalogSnapshot rebuild(int removed, Offer replacement) {
+        Objects.checkIndex(removed, size);
+        CatalogSnapshot snapshot = EMPTY;
+        for (int i = 0; i < size; i++) {
+            if (i != removed) {
+                snapshot = snapshot.append(getOffer(i));
+            } else if (replacement != null) {
+                snapshot = snapshot.append(replacement);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Obtiene la hoja que contiene una posición.
+     *
+     * @param i Posición de la oferta.
+     * @throws IndexOutOfBoundsException si la posición no existe.
+     * @return La hoja.
+     */
+    private Leaf leafFor(int i) {
+        Objects.checkIndex(i, size);
+        if (i >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > BITS; level -= BITS) {
+            node = (Object[]) node[(i >>> level) & MASK];
+        }
+        return (Leaf) node[(i >>> BITS) & MASK];
+    }
+
+    /**
+     * Obtiene la posición de la primera oferta de la hoja final.
+     *
+     * @return Posición de la primera oferta de la hoja final.
+     */
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * Copia el camino hasta la última hoja y le cuelga la hoja final llena.
+     *
+     * @param level Desplazamiento del nivel del nodo.
+     * @param parent Nodo.
+     * @param leaf Hoja final llena.
+     * @return El nodo nuevo.
+     */
+    private Object[] pushTail(int level, Object[] parent, Leaf leaf) {
+        int i = ((size - 1) >>> level) & MASK;
+        Object[] node = parent.clone();
+        if (level == BITS) {
+            node[i] = leaf;
+        } else {
+            Object[] child = (Object[]) parent[i];
+            node[i] = child != null ? pushTail(level - BITS, child, leaf) : newPath(level - BITS, leaf);
+        }
+        return node;
+    }
+
+    /**
+     * Crea una rama nueva de nodos con una sola hoja al final.
+     *
+     * @param level Desplazamiento del nivel del primer nodo.
+     * @param leaf Hoja.
+     * @return El primer nodo de la rama, o la hoja si el nivel es el de las hojas.
+     */
+    private static Object newPath(int level, Leaf leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    /**
+     * Copia el camino hasta la hoja de una posición, con la oferta sustituida.
+     *
+     * @param level Desplazamiento del nivel del nodo.
+     * @param node Nodo.
+     * @param i Posición de la oferta.
+     * @param offer Oferta nueva.
+     * @return El nodo nuevo.
+     */
+    private static Object[] replace(int level, Object[] node, int i, Offer offer) {
+        Object[] copy = node.clone();
+        int child = (i >>> level) & MASK;
+        if (level == BITS) {
+            copy[child] = ((Leaf) node[child]).replace(i & MASK, offer);
+        } else {
+            copy[child] = replace(level - BITS, (Object[]) node[child], i, offer);
+        }
+        return copy;
+    }
+
+    /**
+     * Copia un nodo (o una hoja) con todos los precios multiplicados por un factor.
+     *
+     * @param node Nodo u hoja.
+     * @param factor Factor por el que se multiplica cada precio.
+     * @return El nodo o la hoja nueva (null si el nodo es null).
+     */
+    private static Object multiplyPrices(Object node, float factor) {
+        if (node instanceof Leaf leaf) {
+            return leaf.multiplyPrices(factor);
+        }
+        if (node == null) {
+            return null;
+        }
+        Object[] copy = ((Object[]) node).clone();
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = multiplyPrices(copy[i], factor);
+        }
+        return copy;
+    }
+
+    /**
+     * Normaliza el nombre de un producto para usarlo como clave del índice.
+     *
+     * @param name Nombre del producto.
+     * @return El nombre en minúsculas.
+     */
+    private static String key(String name) {
+        return name.toLowerCase();
+    }
+
+    /**
+     * Clase que muestra las ofertas de la versión como una lista no modificable.
+     */
+    private final class OfferList extends AbstractList<Offer> implements RandomAccess {
+
+        /**
+         * Obtiene la oferta de una posición.
+         *
+         * @param i Posición de la oferta.
+         * @return La oferta.
+         */
+        @Override
+        public Offer get(int i) {
+            return getOffer(i);
+        }
+
+        /**
+         * Obtiene el número de ofertas.
+         *
+         * @return Número de ofertas.
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package Business.Entities.HerenciasProduct;
 
 import Business.Entities.Product;
+import Business.Entities.ProductCategory;
 
 import java.util.ArrayList;
 
@@ -15,12 +16,11 @@ public class General extends Product {
      *
      * @param name     Nombre del producto.
      * @param brand    Marca del producto.
-     * @param category Categoría del producto.
      * @param maxPrice Precio máximo del producto.
      * @param rating   Lista de calificaciones del producto.
      */
-    public General(String name, String brand, String category, float maxPrice, ArrayList<String> rating) {
-        super(name, brand, category, maxPrice, rating);
+    public General(String name, String brand, float maxPrice, ArrayList<String> rating) {
+        super(name, brand, ProductCategory.GENERAL, maxPrice, rating);
     }
 
     /**
@@ -28,21 +28,21 @@ public class General extends Product {
      *
      * @param name     Nombre del producto.
      * @param brand    Marca del producto.
-     * @param category Categoría del producto.
      * @param maxPrice Precio máximo del producto.
      * @param rating   Lista de calificaciones del producto.
      * @param price    Precio del producto.
      */
-    public General(String name, String brand, String category, float maxPrice, ArrayList<String> rating, float price) {
-        super(name, brand, category, maxPrice, rating, price);
+    public General(String name, String brand, float maxPrice, ArrayList<String> rating, float price) {
+        super(name, brand, ProductCategory.GENERAL, maxPrice, rating, price);
     }
     /**
-     * Obtiene el valor del IVA para productos Generales.
+     * Crea una copia independiente del producto General.
      *
-     * @return Valor del IVA para productos Generales (en este caso, 21).
+     * @return Copia del producto.
      */
-    public int getIva() {
-        return 21;
+    @Override
+    public Product copy() {
+        return new General(getName(), getBrand(), getMaxPrice(), getRating(), getPrice());
     }
 
     /**
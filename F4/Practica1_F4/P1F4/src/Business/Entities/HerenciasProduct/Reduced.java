@@ -1,6 +1,7 @@
 package Business.Entities.HerenciasProduct;
 
 import Business.Entities.Product;
+import Business.Entities.ProductCategory;
 
 import java.util.ArrayList;
 
@@ -15,12 +16,11 @@ public class Reduced extends Product {
      *
      * @param name     Nombre del producto.
      * @param brand    Marca del producto.
-     * @param category Categoría del producto.
      * @param maxPrice Precio máximo del producto.
      * @param rating   Lista de calificaciones del producto.
      */
-    public Reduced(String name, String brand, String category, float maxPrice, ArrayList<String> rating) {
-        super(name, brand, category, maxPrice, rating);
+    public Reduced(String name, String brand, float maxPrice, ArrayList<String> rating) {
+        super(name, brand, ProductCategory.REDUCED, maxPrice, rating);
     }
 
     /**
@@ -28,22 +28,22 @@ public class Reduced extends Product {
      *
      * @param name     Nombre del producto.
      * @param brand    Marca del producto.
-     * @param category Categoría del producto.
      * @param maxPrice Precio máximo del producto.
      * @param rating   Lista de calificaciones del producto.
      * @param price    Precio del producto.
      */
-    public Reduced(String name, String brand, String category, float maxPrice, ArrayList<String> rating, float price) {
-        super(name, brand, category, maxPrice, rating, price);
+    public Reduced(String name, String brand, float maxPrice, ArrayList<String> rating, float price) {
+        super(name, brand, ProductCategory.REDUCED, maxPrice, rating, price);
     }
 
     /**
-     * Obtiene el valor del IVA para productos.
+     * Crea una copia independiente del producto Reduced.
      *
-     * @return Valor del IVA para productos Reduced (en este caso, 10).
+     * @return Copia del producto.
      */
-    public int getIva() {
-        return 10;
+    @Override
+    public Product copy() {
+        return new Reduced(getName(), getBrand(), getMaxPrice(), getRating(), getPrice());
     }
 
     /**
@@ -69,7 +69,7 @@ public class Reduced extends Product {
      * @return Valor del IVA para productos Reduced (en este caso, 5).
      */
     public int getReducedIva() {
-        return 5;
+        return ProductCategory.REDUCED.getReducedIva();
     }
 
 
@@ -1,6 +1,7 @@
 package Business.Entities.HerenciasProduct;
 
 import Business.Entities.Product;
+import Business.Entities.ProductCategory;
 
 import java.util.ArrayList;
 
@@ -15,12 +16,11 @@ public class SuperReduced extends Product {
      *
      * @param name     Nombre del producto.
      * @param brand    Marca del producto.
-     * @param category Categoría del producto.
      * @param maxPrice Precio máximo del producto.
      * @param rating   Lista de calificaciones del producto.
      */
-    public SuperReduced(String name, String brand, String category, float maxPrice, ArrayList<String> rating) {
-        super(name, brand, category, maxPrice, rating);
+    public SuperReduced(String name, String brand, float maxPrice, ArrayList<String> rating) {
+        super(name, brand, ProductCategory.SUPER_REDUCED, maxPrice, rating);
     }
 
     /**
@@ -28,22 +28,22 @@ public class SuperReduced extends Product {
      *
      * @param name     Nombre del producto.
      * @param brand    Marca del producto.
-     * @param category Categoría del producto.
      * @param maxPrice Precio máximo del producto.
      * @param rating   Lista de calificaciones del producto.
      * @param price    Precio del producto.
      */
-    public SuperReduced(String name, String brand, String category, float maxPrice, ArrayList<String> rating, float price) {
-        super(name, brand, category, maxPrice, rating, price);
+    public SuperReduced(String name, String brand, float maxPrice, ArrayList<String> rating, float price) {
+        super(name, brand, ProductCategory.SUPER_REDUCED, maxPrice, rating, price);
     }
 
     /**
-     * Obtiene el valor del IVA para productos.
+     * Crea una copia independiente del producto SuperReduced.
      *
-     * @return Valor del IVA para productos SuperReduced (en este caso, 4).
+     * @return Copia del producto.
      */
-    public int getIva() {
-        return 4;
+    @Override
+    public Product copy() {
+        return new SuperReduced(getName(), getBrand(), getMaxPrice(), getRating(), getPrice());
     }
 
     /**
@@ -68,7 +68,7 @@ public class SuperReduced extends Product {
      * @return Valor del IVA para productos SuperReduced (en este caso, 0).
      */
     public int getSuperReducedIva() {
-        return 0;
+        return ProductCategory.SUPER_REDUCED.getReducedIva();
     }
 
 }
@@ -50,4 +50,25 @@ public class Loyalty extends BusinessModel {
 
         return (float) ((price/(1.0 + (iva/100.0))));
     }
+
+    /**
+     * Calcula el precio final de muchos productos de una vez. Si el cliente supera el umbral de lealtad,
+     * a cada producto se le descuenta su IVA, como en descompte(float, int); si no, se quedan con el precio original.
+     *
+     * @param prices         Precios originales de los productos.
+     * @param ivas           Impuesto (IVA) de cada producto.
+     * @param sponsoredBrand Indica si cada producto es de la marca patrocinadora (no se utiliza).
+     * @param loyalty        Nivel de fidelidad del cliente.
+     * @param out            Array donde se escriben los precios finales.
+     */
+    @Override
+    public void descompte(float[] prices, int[] ivas, boolean[] sponsoredBrand, float loyalty, float[] out) {
+        if (loyalty <= loyaltyThreshold) {
+            System.arraycopy(prices, 0, out, 0, prices.length);
+            return;
+        }
+        for (int i = 0; i < prices.length; i++) {
+            out[i] = (float) ((prices[i]/(1.0 + (ivas[i]/100.0))));
+        }
+    }
 }
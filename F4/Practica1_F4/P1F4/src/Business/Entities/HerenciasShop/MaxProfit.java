@@ -36,4 +36,19 @@ public class MaxProfit extends BusinessModel {
     public float descompte(float price, int iva) {
         return 0;
     }
+
+    /**
+     * Calcula el precio final de muchos productos de una vez. Este modelo no hace descuentos,
+     * así que todos los productos se quedan con el precio original.
+     *
+     * @param prices         Precios originales de los productos.
+     * @param ivas           Impuesto (IVA) de cada producto (no se utiliza).
+     * @param sponsoredBrand Indica si cada producto es de la marca patrocinadora (no se utiliza).
+     * @param loyalty        Nivel de fidelidad del cliente (no se utiliza).
+     * @param out            Array donde se escriben los precios finales.
+     */
+    @Override
+    public void descompte(float[] prices, int[] ivas, boolean[] sponsoredBrand, float loyalty, float[] out) {
+        System.arraycopy(prices, 0, out, 0, prices.length);
+    }
 }
@@ -50,4 +50,22 @@ public class Sponsored extends BusinessModel {
     public float descompte(float price, int iva) {
         return (float)(price - price * (1.0/10.0));
     }
+
+    /**
+     * Calcula el precio final de muchos productos de una vez. A los productos de la marca patrocinadora se les aplica
+     * el mismo descuento que en descompte(float, int); los demás se quedan con el precio original.
+     *
+     * @param prices         Precios originales de los productos.
+     * @param ivas           Impuesto (IVA) de cada producto (no se utiliza).
+     * @param sponsoredBrand Indica, para cada producto, si es de la marca patrocinadora.
+     * @param loyalty        Nivel de fidelidad del cliente (no se utiliza).
+     * @param out            Array donde se escriben los precios finales.
+     */
+    @Override
+    public void descompte(float[] prices, int[] ivas, boolean[] sponsoredBrand, float loyalty, float[] out) {
+        for (int i = 0; i < prices.length; i++) {
+            float price = prices[i];
+            out[i] = sponsoredBrand[i] ? (float)(price - price * (1.0/10.0)) : price;
+        }
+    }
 }
@@ -0,0 +1,240 @@
+package Business.Entities;
+
+/**
+ * Clase que representa un índice inmutable de la posición de las ofertas por nombre (en minúsculas), para las versiones del catálogo.
+ * Es un árbol de hash de 32 ramas con mapa de bits por nodo: añadir un nombre crea un índice nuevo copiando
+ * solo los nodos del camino hasta ese nombre (como mucho 7 nodos), y el resto se comparte con el índice anterior.
+ * Así, cada versión del catálogo tiene su propio índice sin copiar todo el mapa en cada cambio.
+ * @author alberto.marquillas i marc.viñas
+ */
+final class NameIndex {
+
+    static final NameIndex EMPTY = new NameIndex(null, 0);
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private final Node root;
+    private final int size;
+
+    /**
+     * Clase que guarda un nombre y la posición de su oferta.
+     */
+    private static final class Entry {
+        private final String key;
+        private final int hash;
+        private final int position;
+
+        /**
+         * Constructor de la clase Entry.
+         *
+         * @param key Nombre en minúsculas.
+         * @param hash Hash del nombre.
+         * @param position Posición de la oferta.
+         */
+        private Entry(String key, int hash, int position) {
+            this.key = key;
+            this.hash = hash;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Clase que representa un nodo del árbol: un mapa de bits con las ramas ocupadas y un array compacto con ellas.
+     * Cada rama es una entrada, otro nodo o un grupo de entradas con el mismo hash.
+     */
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] children;
+
+        /**
+         * Constructor de la clase Node.
+         *
+         * @param bitmap Ramas ocupadas.
+         * @param children Contenido de las ramas ocupadas, en orden.
+         */
+        private Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Clase que agrupa las entradas cuyos nombres tienen exactamente el mismo hash.
+     */
+    private static final class Collision {
+        private final int hash;
+        private final Entry[] entries;
+
+        /**
+         * Constructor de la clase Collision.
+         *
+         * @param hash Hash común de las entradas.
+         * @param entries Entradas.
+         */
+        private Collision(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Constructor de la clase NameIndex.
+     *
+     * @param root Raíz del árbol (null si está vacío).
+     * @param size Número de nombres.
+     */
+    private NameIndex(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Obtiene el número de nombres del índice.
+     *
+     * @return Número de nombres.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Busca la posición de la oferta de un nombre.
+     *
+     * @param key Nombre en minúsculas.
+     * @return La posición, o -1 si el nombre no está.
+     */
+    int get(String key) {
+        int hash = key.hashCode();
+        Object node = root;
+        int shift = 0;
+        while (node != null) {
+            if (node instanceof Node branch) {
+                int bit = bit(hash, shift);
+                if ((branch.bitmap & bit) == 0) {
+                    return -1;
+                }
+                node = branch.children[index(branch.bitmap, bit)];
+                shift += BITS;
+            } else if (node instanceof Entry entry) {
+                return entry.hash == hash && entry.key.equals(key) ? entry.position : -1;
+            } else {
+                Collision collision = (Collision) node;
+                for (Entry entry : collision.entries) {
+                    if (entry.key.equals(key)) {
+                        return entry.position;
+                    }
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Crea un índice con un nombre asociado a una posición (sustituyendo la que tuviera).
+     *
+     * @param key Nombre en minúsculas.
+     * @param position Posición de la oferta.
+     * @return El índice nuevo; este no cambia.
+     */
+    NameIndex put(String key, int position) {
+        Entry entry = new Entry(key, key.hashCode(), position);
+        boolean added = get(key) < 0;
+        Node node = root == null ? new Node(0, new Object[0]) : root;
+        return new NameIndex((Node) put(node, 0, entry), added ? size + 1 : size);
+    }
+
+    /**
+     * Añade o sustituye una entrada bajo un nodo.
+     *
+     * @param node Nodo, entrada o grupo donde va la entrada.
+     * @param shift Desplazamiento de los bits del hash en este nivel.
+     * @param entry Entrada nueva.
+     * @return El nodo nuevo.
+     */
+    private static Object put(Object node, int shift, Entry entry) {
+        if (node instanceof Node branch) {
+            int bit = bit(entry.hash, shift);
+            int i = index(branch.bitmap, bit);
+            if ((branch.bitmap & bit) == 0) {
+                Object[] children = new Object[branch.children.length + 1];
+                System.arraycopy(branch.children, 0, children, 0, i);
+                children[i] = entry;
+                System.arraycopy(branch.children, i, children, i + 1, branch.children.length - i);
+                return new Node(branch.bitmap | bit, children);
+            }
+            Object[] children = branch.children.clone();
+            children[i] = put(children[i], shift + BITS, entry);
+            return new Node(branch.bitmap, children);
+        }
+        if (node instanceof Entry existing) {
+            if (existing.key.equals(entry.key)) {
+                return entry;
+            }
+            return merge(existing, existing.hash, entry, shift);
+        }
+
+        Collision collision = (Collision) node;
+        if (collision.hash != entry.hash) {
+            return merge(collision, collision.hash, entry, shift);
+        }
+        for (int i = 0; i < collision.entries.length; i++) {
+            if (collision.entries[i].key.equals(entry.key)) {
+                Entry[] entries = collision.entries.clone();
+                entries[i] = entry;
+                return new Collision(collision.hash, entries);
+            }
+        }
+        Entry[] entries = new Entry[collision.entries.length + 1];
+        System.arraycopy(collision.entries, 0, entries, 0, collision.entries.length);
+        entries[collision.entries.length] = entry;
+        return new Collision(collision.hash, entries);
+    }
+
+    /**
+     * Junta en un nodo nuevo una rama existente (entrada o grupo) y una entrada nueva que caen en la misma posición.
+     *
+     * @param existing Entrada o grupo que ya estaba.
+     * @param existingHash Hash de lo que ya estaba.
+     * @param entry Entrada nueva.
+     * @param shift Desplazamiento de los bits del hash en el nivel del nodo nuevo.
+     * @return El nodo nuevo, o un grupo si los dos hashes son iguales.
+     */
+    private static Object merge(Object existing, int existingHash, Entry entry, int shift) {
+        if (existingHash == entry.hash) {
+            return new Collision(entry.hash, new Entry[] {(Entry) existing, entry});
+        }
+        int existingBit = bit(existingHash, shift);
+        int bit = bit(entry.hash, shift);
+        if (existingBit == bit) {
+            return new Node(bit, new Object[] {merge(existing, existingHash, entry, shift + BITS)});
+        }
+        Object[] children = Integer.compareUnsigned(existingBit, bit) < 0
+                ? new Object[] {existing, entry}
+                : new Object[] {entry, existing};
+        return new Node(existingBit | bit, children);
+    }
+
+    /**
+     * Obtiene el bit de la rama de un hash en un nivel.
+     *
+     * @param hash Hash del nombre.
+     * @param shift Desplazamiento de los bits del hash en este nivel.
+     * @return Bit de la rama.
+     */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Obtiene la posición de una rama en el array compacto de un nodo.
+     *
+     * @param bitmap Ramas ocupadas del nodo.
+     * @param bit Bit de la rama.
+     * @return Posición en el array.
+     */
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+}
@@ -0,0 +1,51 @@
+package Business.Entities;
+
+/**
+ * Clase que representa la oferta de un producto en el catálogo de una tienda: una referencia al producto,
+ * compartido por todas las tiendas que lo venden (ProductRegistry), y el precio que tiene en esa tienda.
+ * Es inmutable; para cambiar el producto o el precio se sustituye la oferta.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class Offer {
+
+    private final Product product;
+    private final float price;
+
+    /**
+     * Constructor de la clase Offer.
+     *
+     * @param product Producto compartido del registro.
+     * @param price Precio del producto en la tienda.
+     */
+    public Offer(Product product, float price) {
+        this.product = product;
+        this.price = price;
+    }
+
+    /**
+     * Obtiene el producto de la oferta. Es compartido con los catálogos de otras tiendas, así que no se debe modificar.
+     *
+     * @return Producto de la oferta.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Obtiene el precio del producto en la tienda.
+     *
+     * @return Precio en la tienda.
+     */
+    public float getPrice() {
+        return price;
+    }
+
+    /**
+     * Obtiene el nombre del producto de la oferta.
+     *
+     * @return Nombre del producto.
+     */
+    public String getName() {
+        return product.getName();
+    }
+}
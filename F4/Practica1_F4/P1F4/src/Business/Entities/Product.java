@@ -11,9 +11,10 @@ public abstract class Product {
     // Atributos
     private String name;
     private String brand;
-    private String category;
+    private final ProductCategory category;
     private float maxPrice;
     private ArrayList<String> rating;
+    private RatingAggregate ratingAggregate;
     private float price;
 
     /**
@@ -25,7 +26,7 @@ public abstract class Product {
      * @param maxPrice Precio máximo del producto.
      * @param rating   Lista de calificaciones del producto.
      */
-    public Product(String name, String brand, String category, float maxPrice, ArrayList<String> rating) {
+    public Product(String name, String brand, ProductCategory category, float maxPrice, ArrayList<String> rating) {
         this.name = name;
         this.brand = brand;
         this.category = category;
@@ -43,7 +44,7 @@ public abstract class Product {
      * @param rating   Lista de calificaciones del producto.
      * @param price    Precio del producto.
      */
-    public Product(String name, String brand, String category, float maxPrice, ArrayList<String> rating, float price) {
+    public Product(String name, String brand, ProductCategory category, float maxPrice, ArrayList<String> rating, float price) {
         this.name = name;
         this.brand = brand;
         this.category = category;
@@ -81,6 +82,38 @@ public abstract class Product {
         return rating;
     }
 
+    /**
+     * Obtiene el resumen de las calificaciones del producto (número, suma de estrellas y cuántas hay de cada valor).
+     * Si todavía no se ha calculado ni asignado, se calcula una sola vez a partir de las reseñas.
+     *
+     * @return Resumen de las calificaciones.
+     */
+    public RatingAggregate getRatingAggregate() {
+        if (ratingAggregate == null) {
+            ratingAggregate = RatingAggregate.of(rating);
+        }
+        return ratingAggregate;
+    }
+
+    /**
+     * Sustituye el resumen de las calificaciones por uno ya calculado (por ejemplo, el guardado en el fichero),
+     * para no tener que recorrer las reseñas.
+     *
+     * @param ratingAggregate Resumen de las calificaciones del producto.
+     */
+    public void setRatingAggregate(RatingAggregate ratingAggregate) {
+        this.ratingAggregate = ratingAggregate;
+    }
+
+    /**
+     * Obtiene la media de las calificaciones del producto, sin recorrer las reseñas.
+     *
+     * @return Media de estrellas, o 0 si no tiene ninguna calificación.
+     */
+    public float getAverageRating() {
+        return getRatingAggregate().getAverage();
+    }
+
     /**
      * Obtiene el precio actual del producto.
      *
@@ -118,7 +151,7 @@ public abstract class Product {
     }
 
     /**
-     * Establece todas las calificaciones de un producto.
+     * Establece todas las calificaciones de un producto y recalcula su resumen.
      *
      * @param rating Lista de calificaciones del producto.
      */
@@ -130,32 +163,52 @@ public abstract class Product {
 
         this.rating.clear();
         this.rating.addAll(rating);
+        this.ratingAggregate = RatingAggregate.of(this.rating);
     }
 
     /**
-     * Establece una calificación adicional de un producto.
+     * Establece una calificación adicional de un producto y la suma a su resumen.
      *
      * @param rating Calificación adicional del producto.
      */
     public void setRating(String rating) {
+        getRatingAggregate().add(rating);
         this.rating.add(rating);
     }
 
+    /**
+     * Obtiene el nombre de la categoría del producto.
+     *
+     * @return Categoría del producto ("GENERAL", "REDUCED" o "SUPER_REDUCED").
+     */
+    public String getCategory() {
+        return category.name();
+    }
+
     /**
      * Obtiene la categoría del producto.
      *
      * @return Categoría del producto.
      */
-    public String getCategory() {
+    public ProductCategory getProductCategory() {
         return category;
     }
 
     /**
-     * Obtiene el valor del IVA para el producto.
+     * Obtiene el valor del IVA para el producto, según su categoría.
      *
      * @return Valor del IVA del producto.
      */
-    public abstract int getIva();
+    public int getIva() {
+        return category.getIva();
+    }
+
+    /**
+     * Crea una copia independiente del producto (con su propia lista de calificaciones).
+     *
+     * @return Copia del producto.
+     */
+    public abstract Product copy();
 
     /**
      * Calcula el precio original del producto considerando una calificación promedio.
@@ -1,40 +1,61 @@
 package Business.Entities;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Clase que representa un catálogo de productos.
+ * Cada entrada es una oferta (Offer): una referencia al producto compartido del registro (ProductRegistry) y el precio
+ * que tiene en la tienda, de modo que un producto que venden muchas tiendas solo ocupa memoria una vez.
+ * El contenido del catálogo es una versión inmutable (CatalogSnapshot) con las ofertas, las columnas de precios,
+ * precios máximos y categorías, y el índice por nombre. Cada cambio crea una versión nueva, que comparte con la anterior
+ * todo lo que no cambia, y la publica de una vez; así, los lectores pueden recorrer el catálogo sin bloqueos mientras
+ * otro hilo lo modifica. Para hacer varias lecturas sobre el mismo estado, hay que usar una sola versión (snapshot()).
  * @author alberto.marquillas i marc.viñas
  */
 public class ProductCatalog {
 
-    private ArrayList<Product> products;
+    private volatile CatalogSnapshot snapshot;
+    private final ArrayList<Map.Entry<String, Float>> unresolvedReferences = new ArrayList<>();
 
     /**
      * Constructor de la clase ProductCatalog que inicializa un catálogo con una lista de productos vacia.
      *
      */
     public ProductCatalog() {
-        // Inicializar la lista de productos en el catálogo.
-        this.products = new ArrayList<>();
+        // Inicializar el catálogo con la versión vacía.
+        this.snapshot = CatalogSnapshot.EMPTY;
     }
+
     /**
-     * Constructor de la clase ProductCatalog que inicializa un catálogo con una lista de productos dada.
-     * @param products ArrayList de productos para inicializar el catálogo.
+     * Obtiene la versión actual del catálogo. No cambia aunque después se modifique el catálogo.
+     *
+     * @return Versión actual del catálogo.
      */
-    public ProductCatalog(ArrayList<Product> products) {
-        // Inicializar la lista de productos en el catálogo.
-        this.products = products;
+    public CatalogSnapshot snapshot() {
+        return snapshot;
     }
 
     /**
-     * Agrega un producto al catálogo.
+     * Agrega un producto al catálogo con el precio que tiene el propio producto.
      *
      * @param product Producto que se agregará al catálogo.
      */
     public void addProduct(Product product) {
-        // Agregar el producto a la lista del catálogo.
-        this.products.add(product);
+        addProduct(product, product.getPrice());
+    }
+
+    /**
+     * Agrega un producto al catálogo con el precio de la tienda. El catálogo guarda la instancia compartida del registro,
+     * no el producto recibido, así que este se puede seguir usando y modificando.
+     *
+     * @param product Producto que se agregará al catálogo.
+     * @param price Precio del producto en la tienda.
+     */
+    public synchronized void addProduct(Product product, float price) {
+        Offer offer = new Offer(ProductRegistry.shared().intern(product), price);
+        snapshot = snapshot.append(offer);
     }
 
     /**
@@ -43,21 +64,77 @@ public class ProductCatalog {
      * @param product Producto que se eliminará del catálogo.
      * @param i posición del producto en la lista.
      *
-     * @return true si el producto se eliminó correctamente, false en caso contrario.
+     * @return true si el producto sigue en el catálogo (la misma instancia), false en caso contrario.
      */
-    public boolean removeProduct(Product product, int i) {
+    public synchronized boolean removeProduct(Product product, int i) {
 
-        this.products.remove(i);
-        return this.products.contains(product);
+        CatalogSnapshot removed = snapshot.remove(i);
+        snapshot = removed;
+
+        for (Offer offer : removed.listOffers()) {
+            if (offer.getProduct() == product) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Lista los productos actualmente en el catálogo.
+     * Lista los productos actualmente en el catálogo, en una lista nueva.
+     * Los productos son las instancias compartidas del registro: tienen precio 0 y no se deben modificar;
+     * el precio de la tienda está en las ofertas (listOffers()).
      *
      * @return ArrayList que contiene los productos en el catálogo.
      */
     public ArrayList<Product> listProducts() {
-        return this.products;
+        List<Offer> offers = snapshot.listOffers();
+        ArrayList<Product> products = new ArrayList<>(offers.size());
+        for (Offer offer : offers) {
+            products.add(offer.getProduct());
+        }
+        return products;
+    }
+
+    /**
+     * Lista las ofertas del catálogo (producto y precio en la tienda), en orden.
+     *
+     * @return Lista no modificable con las ofertas de la versión actual del catálogo.
+     */
+    public List<Offer> listOffers() {
+        return snapshot.listOffers();
+    }
+
+    /**
+     * Busca la oferta de un producto por su nombre (sin distinguir mayúsculas y minúsculas) sin recorrer la lista.
+     * Si hay varios productos con el mismo nombre, devuelve el primero.
+     *
+     * @param name Nombre del producto.
+     * @return La oferta, o null si el producto no está en el catálogo.
+     */
+    public Offer findOffer(String name) {
+        return snapshot.findOffer(name);
+    }
+
+    /**
+     * Busca un producto del catálogo por su nombre (sin distinguir mayúsculas y minúsculas) sin recorrer la lista.
+     * Si hay varios productos con el mismo nombre, devuelve el primero.
+     *
+     * @param name Nombre del producto.
+     * @return El producto (la instancia compartida del registro), o null si no está en el catálogo.
+     */
+    public Product findProduct(String name) {
+        Offer offer = findOffer(name);
+        return offer == null ? null : offer.getProduct();
+    }
+
+    /**
+     * Comprueba si un producto está en el catálogo, por su nombre (sin distinguir mayúsculas y minúsculas).
+     *
+     * @param name Nombre del producto.
+     * @return true si el producto está en el catálogo, false en caso contrario.
+     */
+    public boolean containsProduct(String name) {
+        return snapshot.indexOf(name) >= 0;
     }
 
     /**
@@ -67,8 +144,8 @@ public class ProductCatalog {
      */
     public ArrayList<String> toArrayString() {
         ArrayList<String> prods = new ArrayList<>();
-        for (Product prod: products) {
-            prods.add(prod.getName());
+        for (Offer offer: snapshot.listOffers()) {
+            prods.add(offer.getName());
         }
         return prods;
     }
@@ -80,8 +157,8 @@ public class ProductCatalog {
      */
     public ArrayList<String> toArrayStringBrand() {
         ArrayList<String> brands = new ArrayList<>();
-        for (Product prod: products) {
-            brands.add(prod.getBrand());
+        for (Offer offer: snapshot.listOffers()) {
+            brands.add(offer.getProduct().getBrand());
         }
         return brands;
     }
@@ -96,32 +173,96 @@ public class ProductCatalog {
      */
     public float searchForProductPrice(String prod, ProductCatalog productCatalog) {
 
-        ArrayList<Product> products = productCatalog.listProducts();
+        Offer offer = productCatalog.findOffer(prod);
+        return offer == null ? 0 : offer.getPrice();
+    }
 
-        for (Product product: products) {
-            if(product.getName().equalsIgnoreCase(prod)) {
-                return product.getPrice();
-            }
-        }
-        return 0;
+    /**
+     * Obtiene los precios de todos los productos del catálogo, en orden.
+     *
+     * @return Array nuevo con el precio de cada producto en la tienda.
+     */
+    public float[] getPrices() {
+        return snapshot.getPrices();
     }
 
     /**
-     * Obtiene un ArrayList de Strings que representa los precios de los productos en un catálogo.
+     * Obtiene el precio más bajo del catálogo.
      *
-     * @param productCatalog El catálogo de productos del cual se extraen los precios.
-     * @return Un ArrayList de Strings que contiene los precios de todos los productos en el catálogo.
-     *         Si el catálogo está vacío, el ArrayList resultante también estará vacío.
+     * @return El precio más bajo, o 0 si el catálogo está vacío.
      */
-    public ArrayList<String> searchForProductPriceArray(ProductCatalog productCatalog) {
+    public float minPrice() {
+        return snapshot.minPrice();
+    }
 
-        ArrayList<Product> products = productCatalog.listProducts();
-        ArrayList<String> prices = new ArrayList<>();
+    /**
+     * Obtiene el precio más alto del catálogo.
+     *
+     * @return El precio más alto, o 0 si el catálogo está vacío.
+     */
+    public float maxPrice() {
+        return snapshot.maxPrice();
+    }
 
-        for (Product product: products) {
-            prices.add(String.valueOf(product.getPrice()));
-        }
-        return prices;
+    /**
+     * Suma los precios de todos los productos del catálogo.
+     *
+     * @return Suma de los precios (0 si el catálogo está vacío).
+     */
+    public float sumPrices() {
+        return snapshot.sumPrices();
+    }
+
+    /**
+     * Busca las posiciones de los productos con un precio dentro de un rango (ambos extremos incluidos).
+     *
+     * @param min Precio mínimo.
+     * @param max Precio máximo.
+     * @return Posiciones (en orden) de los productos con el precio en el rango.
+     */
+    public int[] findByPriceRange(float min, float max) {
+        return snapshot.findByPriceRange(min, max);
+    }
+
+    /**
+     * Busca las posiciones de los productos de una categoría.
+     *
+     * @param category Categoría de producto.
+     * @return Posiciones (en orden) de los productos de esa categoría.
+     */
+    public int[] findByCategory(ProductCategory category) {
+        return snapshot.findByCategory(category);
+    }
+
+    /**
+     * Aplica un descuento a todos los productos del catálogo: cada precio pasa a ser price * (1 - percentage / 100),
+     * sin bajar de 0 ni pasar del precio máximo del producto.
+     *
+     * @param percentage Porcentaje de descuento (por ejemplo, 15 para un 15%).
+     */
+    public synchronized void applyDiscount(float percentage) {
+        snapshot = snapshot.multiplyPrices(1 - percentage / 100);
+    }
+
+    /**
+     * Guarda una referencia (nombre y precio) a un producto que no está en el catálogo general, por ejemplo porque
+     * se ha borrado desde fuera del programa. No forma parte del catálogo que se muestra, pero se conserva para volver
+     * a guardarla tal cual: si el producto vuelve a existir, la tienda lo recupera con su precio.
+     *
+     * @param name Nombre del producto.
+     * @param price Precio del producto en la tienda.
+     */
+    public synchronized void addUnresolvedReference(String name, float price) {
+        unresolvedReferences.add(Map.entry(name, price));
+    }
+
+    /**
+     * Obtiene las referencias a productos que no se han podido resolver al leer el catálogo.
+     *
+     * @return Lista nueva con el nombre y el precio de cada referencia, en el orden en que se leyeron.
+     */
+    public synchronized List<Map.Entry<String, Float>> getUnresolvedReferences() {
+        return new ArrayList<>(unresolvedReferences);
     }
 
     /**
@@ -131,30 +272,34 @@ public class ProductCatalog {
      * @return Un ArrayList de Strings que representa el rating del producto o una lista vacía si no se encuentra.
      */
     public ArrayList<String> getProductRating(String prodName) {
-        ArrayList<Product> products = listProducts();
-        ArrayList<String> ratings = new ArrayList<>();
-
-        for (Product product: products)  {
-            if (product.getName().equalsIgnoreCase(prodName)) {
-                return product.getRating();
-            }
-        }
-        return ratings;
+        Product product = findProduct(prodName);
+        return product == null ? new ArrayList<>() : product.getRating();
     }
 
     /**
      * Establece el rating de un producto por su nombre.
+     * Como el producto es compartido, no se modifica: se sustituye la oferta por una con la versión calificada del producto,
+     * que el registro también comparte con las demás tiendas que la pidan.
      *
      * @param prod El nombre del producto al que se le establecerá el rating.
      * @param finalRating El rating que se establecerá.
      */
-    public void setProductRating(String prod, String finalRating) {
-        ArrayList<Product> products = listProducts();
+    public synchronized void setProductRating(String prod, String finalRating) {
+        CatalogSnapshot current = snapshot;
+        int first = current.indexOf(prod);
+        if (first < 0) {
+            return;
+        }
 
-        for (Product product: products)  {
-            if (product.getName().equalsIgnoreCase(prod)) {
-                product.setRating(finalRating);
+        int last = current.hasDuplicatedNames() ? current.size() - 1 : first;
+        for (int i = first; i <= last; i++) {
+            Offer offer = current.getOffer(i);
+            if (offer.getName().equalsIgnoreCase(prod)) {
+                Product rated = offer.getProduct().copy();
+                rated.setRating(finalRating);
+                current = current.replace(i, new Offer(ProductRegistry.shared().intern(rated), offer.getPrice()));
             }
         }
+        snapshot = current;
     }
 }
@@ -0,0 +1,107 @@
+package Business.Entities;
+
+import Business.Entities.HerenciasProduct.General;
+import Business.Entities.HerenciasProduct.Reduced;
+import Business.Entities.HerenciasProduct.SuperReduced;
+
+import java.util.ArrayList;
+
+/**
+ * Enumeración con las categorías de producto y sus tipos de IVA.
+ * Cada producto guarda su categoría como una constante de esta enumeración, así que comprobarla o elegir la subclase
+ * es una comparación de referencias o un salto por ordinal, sin comparar ni calcular el hash del nombre.
+ * El nombre ("GENERAL", "REDUCED", "SUPER_REDUCED") solo se usa al leer y escribir ficheros y al mostrar el producto.
+ * @author alberto.marquillas i marc.viñas
+ */
+public enum ProductCategory {
+
+    GENERAL(21, 21),
+    REDUCED(10, 5),
+    SUPER_REDUCED(4, 0);
+
+    private final int iva;
+    private final int reducedIva;
+
+    /**
+     * Constructor de la enumeración ProductCategory.
+     *
+     * @param iva Tipo de IVA de la categoría.
+     * @param reducedIva Tipo de IVA rebajado de la categoría (el mismo que iva si no tiene).
+     */
+    ProductCategory(int iva, int reducedIva) {
+        this.iva = iva;
+        this.reducedIva = reducedIva;
+    }
+
+    /**
+     * Obtiene la categoría a partir de su nombre.
+     *
+     * @param name Nombre de la categoría ("GENERAL", "REDUCED" o "SUPER_REDUCED").
+     * @return La categoría, o null si el nombre no es el de ninguna categoría.
+     */
+    public static ProductCategory fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name) {
+            case "GENERAL" -> GENERAL;
+            case "REDUCED" -> REDUCED;
+            case "SUPER_REDUCED" -> SUPER_REDUCED;
+            default -> null;
+        };
+    }
+
+    /**
+     * Obtiene el tipo de IVA de la categoría.
+     *
+     * @return Tipo de IVA (21, 10 o 4).
+     */
+    public int getIva() {
+        return iva;
+    }
+
+    /**
+     * Obtiene el tipo de IVA rebajado de la categoría: el de los productos reducidos bien valorados
+     * y el de los superreducidos de más de 100.
+     *
+     * @return Tipo de IVA rebajado (el mismo que getIva() para los productos generales).
+     */
+    public int getReducedIva() {
+        return reducedIva;
+    }
+
+    /**
+     * Crea un producto de la categoría, sin precio.
+     *
+     * @param name Nombre del producto.
+     * @param brand Marca del producto.
+     * @param maxPrice Precio máximo del producto.
+     * @param rating Lista de calificaciones del producto.
+     * @return Producto de la subclase que corresponde a la categoría.
+     */
+    public Product create(String name, String brand, float maxPrice, ArrayList<String> rating) {
+        return switch (this) {
+            case GENERAL -> new General(name, brand, maxPrice, rating);
+            case REDUCED -> new Reduced(name, brand, maxPrice, rating);
+            case SUPER_REDUCED -> new SuperReduced(name, brand, maxPrice, rating);
+        };
+    }
+
+    /**
+     * Crea un producto de la categoría con un precio.
+     *
+     * @param name Nombre del producto.
+     * @param brand Marca del producto.
+     * @param maxPrice Precio máximo del producto.
+     * @param rating Lista de calificaciones del producto.
+     * @param price Precio del producto.
+     * @return Producto de la subclase que corresponde a la categoría.
+     */
+    public Product create(String name, String brand, float maxPrice, ArrayList<String> rating, float price) {
+        return switch (this) {
+            case GENERAL -> new General(name, brand, maxPrice, rating, price);
+            case REDUCED -> new Reduced(name, brand, maxPrice, rating, price);
+            case SUPER_REDUCED -> new SuperReduced(name, brand, maxPrice, rating, price);
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package Business.Entities;
+
+import java.util.HashMap;
+
+/**
+ * Clase que guarda una sola instancia de cada producto para compartirla entre los catálogos de todas las tiendas
+ * (patrón flyweight): nombre, marca, categoría, precio máximo y calificaciones se guardan una vez, y cada catálogo
+ * solo añade el precio de la tienda (Offer).
+ * Las instancias del registro son copias propias con precio 0, de modo que nadie de fuera las modifica.
+ * Los productos se identifican por el nombre sin distinguir mayúsculas y minúsculas, igual que en los catálogos y los DAO.
+ * <p>
+ * Si llega un producto con el mismo nombre pero datos distintos (por ejemplo, con una calificación nueva),
+ * pasa a ser la instancia vigente, pero las ofertas que ya apuntaban a la anterior no cambian: las ofertas son
+ * inmutables y el registro no sabe qué catálogos las tienen. Así, una tienda que ya estaba en memoria (por ejemplo, en
+ * la caché de ShopManager) sigue mostrando la versión antigua del producto hasta que su catálogo se vuelve a leer o
+ * se sustituye la oferta (como hace ProductCatalog.setProductRating en la tienda donde se califica). Con los catálogos
+ * normalizados no se pierde nada al guardar esa tienda, porque solo se escribe el nombre y el precio de cada producto;
+ * con los catálogos copiados enteros, cada tienda guarda la versión que tiene, igual que antes de compartir los productos.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ProductRegistry {
+
+    private static final ProductRegistry SHARED = new ProductRegistry();
+
+    private final HashMap<String, Product> products;
+
+    /**
+     * Constructor de la clase ProductRegistry.
+     */
+    public ProductRegistry() {
+        this.products = new HashMap<>();
+    }
+
+    /**
+     * Obtiene el registro compartido por todos los catálogos.
+     *
+     * @return Registro global de productos.
+     */
+    public static ProductRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * Obtiene la instancia compartida de un producto: la que ya hay en el registro si tiene los mismos datos,
+     * o una copia nueva (que pasa a ser la vigente) si no.
+     *
+     * @param product Producto (no se modifica ni se guarda).
+     * @return Instancia compartida con los mismos datos que el producto y precio 0.
+     */
+    public synchronized Product intern(Product product) {
+        String key = product.getName().toLowerCase();
+        Product shared = products.get(key);
+        if (shared != null && sameData(shared, product)) {
+            return shared;
+        }
+
+        shared = product.copy();
+        shared.setPrice(0);
+        products.put(key, shared);
+        return shared;
+    }
+
+    /**
+     * Obtiene el número de productos distintos del registro.
+     *
+     * @return Número de productos.
+     */
+    public synchronized int size() {
+        return products.size();
+    }
+
+    /**
+     * Comprueba si dos productos tienen los mismos datos, sin tener en cuenta el precio.
+     * Las calificaciones no se comparan una a una: basta con el número de reseñas y el resumen de estrellas
+     * (RatingAggregate), que cada producto ya tiene calculado. Como las reseñas solo se añaden, dos versiones
+     * de un producto con el mismo número de reseñas y el mismo resumen tienen las mismas reseñas.
+     *
+     * @param a Producto del registro.
+     * @param b Producto que se compara.
+     * @return true si coinciden el nombre, la marca, la categoría, el precio máximo y las calificaciones.
+     */
+    private boolean sameData(Product a, Product b) {
+        return a.getName().equals(b.getName())
+                && equals(a.getBrand(), b.getBrand())
+                && a.getProductCategory() == b.getProductCategory()
+                && a.getMaxPrice() == b.getMaxPrice()
+                && reviewCount(a) == reviewCount(b)
+                && sameAggregate(a.getRatingAggregate(), b.getRatingAggregate());
+    }
+
+    /**
+     * Obtiene el número de reseñas de un producto.
+     *
+     * @param product Producto.
+     * @return Número de reseñas (0 si no tiene lista de reseñas).
+     */
+    private int reviewCount(Product product) {
+        return product.getRating() == null ? 0 : product.getRating().size();
+    }
+
+    /**
+     * Comprueba si dos resúmenes de calificaciones tienen el mismo número de calificaciones, la misma suma
+     * y el mismo número de calificaciones de cada número de estrellas.
+     *
+     * @param a Primer resumen.
+     * @param b Segundo resumen.
+     * @return true si los dos resúmenes coinciden.
+     */
+    private boolean sameAggregate(RatingAggregate a, RatingAggregate b) {
+        if (a.getCount() != b.getCount() || a.getSum() != b.getSum()) {
+            return false;
+        }
+        for (int stars = 1; stars <= RatingAggregate.MAX_STARS; stars++) {
+            if (a.getCount(stars) != b.getCount(stars)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compara dos objetos que pueden ser null.
+     *
+     * @param a Primer objeto.
+     * @param b Segundo objeto.
+     * @return true si son iguales o los dos son null.
+     */
+    private boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,136 @@
+package Business.Entities;
+
+import java.util.List;
+
+/**
+ * Clase que resume las calificaciones de un producto: cuántas hay, la suma de estrellas y cuántas hay de cada valor (1 a 5).
+ * Se actualiza con cada calificación nueva, así que la media se obtiene sin recorrer ni parsear las reseñas.
+ * Las estrellas de una reseña son el dígito con el que empieza ("4* comentario"); las reseñas sin dígito no cuentan.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class RatingAggregate {
+
+    public static final int MAX_STARS = 5;
+
+    private int count;
+    private int sum;
+    private final int[] histogram;
+
+    /**
+     * Constructor de la clase RatingAggregate, sin ninguna calificación.
+     */
+    public RatingAggregate() {
+        this.histogram = new int[MAX_STARS];
+    }
+
+    /**
+     * Constructor de la clase RatingAggregate con unos valores ya calculados (por ejemplo, leídos de un fichero).
+     *
+     * @param count Número de calificaciones.
+     * @param sum Suma de las estrellas de todas las calificaciones.
+     * @param histogram Número de calificaciones de 1 a 5 estrellas (posiciones 0 a 4).
+     */
+    public RatingAggregate(int count, int sum, int[] histogram) {
+        this.count = count;
+        this.sum = sum;
+        this.histogram = new int[MAX_STARS];
+        System.arraycopy(histogram, 0, this.histogram, 0, Math.min(histogram.length, MAX_STARS));
+    }
+
+    /**
+     * Calcula el resumen de una lista de reseñas.
+     *
+     * @param reviews Reseñas (puede ser null).
+     * @return Resumen de las reseñas.
+     */
+    public static RatingAggregate of(List<String> reviews) {
+        RatingAggregate aggregate = new RatingAggregate();
+        if (reviews != null) {
+            for (String review : reviews) {
+                aggregate.add(review);
+            }
+        }
+        return aggregate;
+    }
+
+    /**
+     * Obtiene las estrellas de una reseña: el dígito con el que empieza.
+     *
+     * @param review Reseña.
+     * @return Número de estrellas, o -1 si la reseña no empieza con un dígito.
+     */
+    public static int stars(String review) {
+        if (review == null || review.isEmpty()) {
+            return -1;
+        }
+        return Character.digit(review.charAt(0), 10);
+    }
+
+    /**
+     * Suma una reseña al resumen.
+     *
+     * @param review Reseña nueva.
+     */
+    public void add(String review) {
+        int stars = stars(review);
+        if (stars < 0) {
+            return;
+        }
+        count++;
+        sum += stars;
+        if (stars >= 1 && stars <= MAX_STARS) {
+            histogram[stars - 1]++;
+        }
+    }
+
+    /**
+     * Vacía el resumen.
+     */
+    public void clear() {
+        count = 0;
+        sum = 0;
+        for (int i = 0; i < MAX_STARS; i++) {
+            histogram[i] = 0;
+        }
+    }
+
+    /**
+     * Obtiene el número de calificaciones.
+     *
+     * @return Número de calificaciones.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Obtiene la suma de las estrellas de todas las calificaciones.
+     *
+     * @return Suma de estrellas.
+     */
+    public int getSum() {
+        return sum;
+    }
+
+    /**
+     * Obtiene el número de calificaciones con un número de estrellas.
+     *
+     * @param stars Número de estrellas (de 1 a 5).
+     * @return Número de calificaciones con esas estrellas, o 0 si el valor no está entre 1 y 5.
+     */
+    public int getCount(int stars) {
+        if (stars < 1 || stars > MAX_STARS) {
+            return 0;
+        }
+        return histogram[stars - 1];
+    }
+
+    /**
+     * Obtiene la media de las calificaciones.
+     *
+     * @return Media de estrellas, o 0 si no hay ninguna calificación.
+     */
+    public float getAverage() {
+        return count == 0 ? 0 : (float) sum / count;
+    }
+}
@@ -191,4 +191,36 @@ public class Shop {
     public float applyModel(float price) {
         return businessModelObject.descompte(price, 0);
     }
+
+    /**
+     * Aplica el modelo de negocio de la tienda a los precios de muchos productos de una vez.
+     *
+     * @param prices         Precios originales de los productos.
+     * @param ivas           Valor del IVA de cada producto.
+     * @param sponsoredBrand Indica, para cada producto, si es de la marca patrocinadora de la tienda.
+     * @param loyalty        Nivel de fidelidad del cliente.
+     * @param out            Array donde se escriben los precios finales (puede ser el mismo que prices).
+     */
+    public void descompte(float[] prices, int[] ivas, boolean[] sponsoredBrand, float loyalty, float[] out) {
+        businessModelObject.descompte(prices, ivas, sponsoredBrand, loyalty, out);
+    }
+
+    /**
+     * Calcula el precio final de todos los productos del catálogo para un cliente, con las mismas reglas que al añadirlos
+     * al carrito: el IVA de cada producto, si es de la marca patrocinadora y el nivel de fidelidad del cliente.
+     *
+     * @param loyalty Nivel de fidelidad del cliente (lo que ha gastado).
+     * @return Array con el precio final de cada producto, en el orden del catálogo (vacío si la tienda se ha leído sin catálogo).
+     */
+    public float[] quoteCatalog(float loyalty) {
+        if (productCatalog == null) {
+            return new float[0];
+        }
+        CatalogSnapshot snapshot = productCatalog.snapshot();
+        String sponsor = businessModelObject instanceof Sponsored sponsored ? sponsored.getSponsoringBrand() : null;
+
+        float[] prices = snapshot.getPrices();
+        businessModelObject.descompte(prices, snapshot.getIvas(), snapshot.matchesBrand(sponsor), loyalty, prices);
+        return prices;
+    }
 }
@@ -2,12 +2,10 @@ package Business.Managers;
 
 import Business.Entities.Cart;
 import Business.Entities.CartItem;
-import Business.Entities.HerenciasProduct.General;
-import Business.Entities.HerenciasProduct.Reduced;
-import Business.Entities.HerenciasProduct.SuperReduced;
 import Business.Entities.HerenciasShop.Loyalty;
 import Business.Entities.HerenciasShop.Sponsored;
 import Business.Entities.Product;
+import Business.Entities.ProductCategory;
 import Business.Entities.Shop;
 
 
@@ -85,25 +83,15 @@ public class CartManager {
     public void addToCart(String productName, String brand, String shopName, Float price, String category, int fundationYear, String descr, float earnings, String businessModel, float loyaltyThres, String sponsor, ArrayList<String> reviews, float thresholdLoyalty) {
 
 
-        boolean added = false;
-
-        ArrayList <CartItem> cartItems = cart.getCartItems();
-
-        added = updateProduct(cartItems, productName, price);
+        boolean added = updateProduct(shopName, productName, price);
 
         if (!added) {
 
             Shop shop = null;
-            Product product = null;
             CartItem cartItem = new CartItem();
 
-            switch (category) {
-                case "GENERAL" -> product = new General(productName, brand, category, 0, reviews, price);
-
-                case "REDUCED" -> product = new Reduced(productName, brand, category, 0, reviews, price);
-
-                case "SUPER_REDUCED" -> product = new SuperReduced(productName, brand, category, 0, reviews, price);
-            }
+            ProductCategory productCategory = ProductCategory.fromName(category);
+            Product product = productCategory == null ? null : productCategory.create(productName, brand, 0, reviews, price);
             cartItem.setProduct(product);
             switch (businessModel) {
                 case "MAX_PROFIT" -> shop = new Shop(shopName,descr, fundationYear, businessModel, 0, null);
@@ -137,26 +125,48 @@ public class CartManager {
 
     }
     /**
-     * Actualiza la cantidad y el precio de un producto específico en una lista de elementos del carrito.
-     * Este método busca un producto por su nombre en la lista de elementos del carrito. Si lo encuentra,
+     * Actualiza la cantidad y el precio de un producto específico de una tienda en el carrito.
+     * Este método busca la línea del producto de esa tienda en el carrito (sin recorrerlo). Si la encuentra,
      * incrementa la cantidad del producto en uno y actualiza su precio sumando el precio adicional proporcionado.
      * Si el producto se actualiza con éxito, el método devuelve true.
      *
-     * @param cartItems   La lista de elementos del carrito donde se buscará y actualizará el producto.
+     * @param shopName    El nombre de la tienda del producto.
      * @param productName El nombre del producto a buscar y actualizar.
      * @param price       El precio adicional a sumar al precio actual del producto.
      * @return            true si el producto se encuentra y se actualiza con éxito, false en caso contrario.
      */
-    private boolean updateProduct(ArrayList<CartItem> cartItems, String productName, float price) {
-        for (CartItem cartItem: cartItems) {
-            if (cartItem.getProduct().getName().equalsIgnoreCase(productName)){
-
-                cartItem.setCantidad(cartItem.getCantidad()+1);
-                cartItem.getProduct().setPrice(cartItem.getProduct().getPrice() + price);
-                return true;
-            }
+    private boolean updateProduct(String shopName, String productName, float price) {
+        CartItem cartItem = cart.findProduct(shopName, productName);
+        if (cartItem == null) {
+            return false;
         }
-        return false;
+
+        cartItem.setCantidad(cartItem.getCantidad()+1);
+        cartItem.getProduct().setPrice(cartItem.getProduct().getPrice() + price);
+        return true;
+    }
+
+    /**
+     * Elimina del carrito un producto de una tienda.
+     *
+     * @param shopName    El nombre de la tienda del producto.
+     * @param productName El nombre del producto.
+     * @return            true si el producto estaba en el carrito, false en caso contrario.
+     */
+    public boolean removeFromCart(String shopName, String productName) {
+        return cart.removeProduct(shopName, productName);
+    }
+
+    /**
+     * Cambia la cantidad de un producto de una tienda en el carrito. Si la cantidad es 0 o menos, se quita del carrito.
+     *
+     * @param shopName    El nombre de la tienda del producto.
+     * @param productName El nombre del producto.
+     * @param cantidad    La nueva cantidad de unidades.
+     * @return            true si el producto estaba en el carrito, false en caso contrario.
+     */
+    public boolean updateCantidad(String shopName, String productName, int cantidad) {
+        return cart.setCantidad(shopName, productName, cantidad);
     }
 
     /**
@@ -194,15 +204,15 @@ public class CartManager {
     /**
      * Obtiene los precios de los productos en el carrito.
      *
-     * @return Un ArrayList de floats con los precios de los productos en el carrito.
+     * @return Un array con los precios de los productos en el carrito.
      */
-    public ArrayList<Float> getCartPrice() {
+    public float[] getCartPrice() {
 
-        ArrayList <Float> prices = new ArrayList<>();
         ArrayList <CartItem> cartItems = cart.getCartItems();
+        float[] prices = new float[cartItems.size()];
 
-        for (CartItem cartItem: cartItems){
-            prices.add(cartItem.getProduct().getPrice());
+        for (int i = 0; i < prices.length; i++){
+            prices[i] = cartItems.get(i).getProduct().getPrice();
         }
         return prices;
     }
@@ -233,17 +243,17 @@ public class CartManager {
     /**
      * Calcula los impuestos para un producto en una tienda específica.
      *
-     * @param shop Nombre de la tienda.
-     * @param i    Índice del producto en el carrito.
-     * @return El precio del producto con impuestos calculados.
+     * @param shop    Nombre de la tienda.
+     * @param product Nombre del producto.
+     * @return El precio del producto con impuestos calculados, o 0 si el producto de esa tienda no está en el carrito.
      */
-    public float calculateTaxes(String shop, int i) {
+    public float calculateTaxes(String shop, String product) {
 
         float prodPrice = 0;
 
-        CartItem cartItem = cart.getCartItems().get(i);
+        CartItem cartItem = cart.findProduct(shop, product);
 
-        if(cartItem.getShop().getName().equalsIgnoreCase(shop)) {
+        if(cartItem != null) {
             float price1 = cartItem.getProduct().getPrice();
             prodPrice = originalPrice(price1, cartItem);
         }
@@ -261,32 +271,10 @@ public class CartManager {
      */
     private float originalPrice(float price, CartItem cartItem) {
         float totalRating = 0.0F;
-        if (cartItem.getProduct().getCategory().equalsIgnoreCase("REDUCED")){
-
-            ArrayList<String> reviews = cartItem.getProduct().getRating();
-
-            float cantidad = 0.0F;
-
-            if (reviews != null) {
-                if (reviews.size() > 0) {
-                    for (String rating: reviews) {
-                        totalRating = totalRating + Float.parseFloat(String.valueOf(rating.charAt(0)));
-                        cantidad++;
-
-                    }
-                    if (cantidad > 0){
-                        totalRating = totalRating/cantidad;
-                    } else {
-                        totalRating = 0;
-                    }
-                }
-            }
-
-
+        if (cartItem.getProduct().getProductCategory() == ProductCategory.REDUCED){
+            totalRating = cartItem.getProduct().getAverageRating();
         }
         return cartItem.getProduct().originalPrice(price, totalRating);
-
-
     }
 
     /**
@@ -340,16 +328,8 @@ public class CartManager {
      * @return El precio del producto en la tienda especificada en el carrito.
      */
     public float getPriceProd(String shop, String product) {
-        ArrayList<CartItem> cartItems = cart.getCartItems();
-
-        for (CartItem cartItem : cartItems) {
-            if (cartItem.getShop().getName().equalsIgnoreCase(shop)){
-                if (cartItem.getProduct().getName().equalsIgnoreCase(product)){
-                    return cartItem.getProduct().getPrice();
-                }
-            }
-        }
-        return 0;
+        CartItem cartItem = cart.findProduct(shop, product);
+        return cartItem == null ? 0 : cartItem.getProduct().getPrice();
     }
 
     /**
@@ -5,6 +5,7 @@ import Business.Entities.Product;
 import Business.Entities.ProductCatalog;
 
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Clase que gestiona las operaciones relacionadas con el catálogo de productos y tiendas.
@@ -17,12 +18,14 @@ public class ProductCatalogManager {
 
     /**
      * Constructor de la clase ProductCatalogManager.
+     * Recibe los gestores ya creados para compartir con el controlador la misma caché de tiendas.
      *
-     * @param optionData la opcion para seleccionar la persistencia de los datos
+     * @param shopManager gestor de tiendas que se utilizará.
+     * @param productManager gestor de productos que se utilizará.
      */
-    public ProductCatalogManager(int optionData) {
-        this.shopManager = new ShopManager(optionData);
-        this.productManager = new ProductManager(optionData);
+    public ProductCatalogManager(ShopManager shopManager, ProductManager productManager) {
+        this.shopManager = shopManager;
+        this.productManager = productManager;
     }
 
     /**
@@ -35,13 +38,14 @@ public class ProductCatalogManager {
      */
     public boolean addProduct(String product, String shop, float productPrice) {
 
-        ProductCatalog productCatalog = shopManager.getProductCatalog(shop);
+        // El catálogo de la tienda y el producto se leen a la vez, en el ejecutor de los DAO.
+        CompletableFuture<ProductCatalog> catalogFuture = shopManager.getProductCatalogAsync(shop);
+        CompletableFuture<Product> productFuture = productManager.productFromStringAsync(product);
+        ProductCatalog productCatalog = catalogFuture.join();
 
-        Product prod = productManager.productFromString(product);
-
-        prod.setPrice(productPrice);
-
-        productCatalog.addProduct(prod);
+        // El catálogo guarda la instancia compartida del registro y el precio aparte, así que el producto
+        // que el ProductDAO mantiene en caché no se modifica.
+        productCatalog.addProduct(productFuture.join(), productPrice);
 
         return shopManager.addProductToCatalogue(shop, productCatalog);
     }
@@ -73,9 +77,11 @@ public class ProductCatalogManager {
      * @return true si el producto se elimina correctamente, false en caso contrario.
      */
     public boolean deleteProduct(String product, String shopName) {
-            ProductCatalog productCatalog = shopManager.getProductCatalog(shopName);
+            CompletableFuture<ProductCatalog> catalogFuture = shopManager.getProductCatalogAsync(shopName);
+            CompletableFuture<Product> productFuture = productManager.productFromStringAsync(product);
+            ProductCatalog productCatalog = catalogFuture.join();
 
-            Product prod = productManager.productFromString(product);
+            Product prod = productFuture.join();
 
             int pos = positionFromName(product, shopName);
 
@@ -1,9 +1,7 @@
 package Business.Managers;
 
-import Business.Entities.HerenciasProduct.General;
-import Business.Entities.HerenciasProduct.Reduced;
-import Business.Entities.HerenciasProduct.SuperReduced;
 import Business.Entities.Product;
+import Business.Entities.ProductCategory;
 
 import Persistance.ProductPersistance.*;
 import edu.salle.url.api.exception.ApiException;
@@ -12,6 +10,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Clase que gestiona las operaciones relacionadas con los productos.
@@ -20,11 +19,13 @@ import java.util.ArrayList;
 public class ProductManager {
 
     private ProductDAO productDAO;
+    private AsyncProductDAO asyncProducts;
 
     /**
      * Constructor de ProductManager que permite seleccionar la fuente de datos para los productos.
      *
-     * @param optionData La opción que determina si se utilizará almacenamiento en la nube (0) o almacenamiento local (1).
+     * @param optionData La opción que determina si se utilizará almacenamiento en la nube (0), almacenamiento local en JSON (1)
+     *                   o el almacén clave-valor local (2).
      */
     public ProductManager(int optionData) {
         switch (optionData) {
@@ -34,7 +35,7 @@ public class ProductManager {
                 } catch (ApiException e) {
 
                     try {
-                        this.productDAO = new ProductJSON();
+                        this.productDAO = new ProductJSON(true);
                     } catch (FileNotFoundException ex) {
                         throw new RuntimeException(ex);
                     }
@@ -42,12 +43,20 @@ public class ProductManager {
             }
             case 1 -> {
                 try {
-                    this.productDAO = new ProductJSON();
+                    this.productDAO = new ProductJSON(true);
                 } catch (FileNotFoundException e) {
                     throw new RuntimeException(e);
                 }
             }
+            case 2 -> {
+                try {
+                    this.productDAO = new ProductKV();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
         }
+        this.asyncProducts = new ExecutorProductDAO(productDAO);
     }
 
     /**
@@ -71,17 +80,8 @@ public class ProductManager {
     public boolean createProduct(String name, String brand, String category, float maxPrice) {
         ArrayList<String> string = new ArrayList<>();
 
-        Product product = null;
-
-
-        switch (category) {
-            case "GENERAL" -> product = new General(name, brand, category, maxPrice, string);
-
-            case "REDUCED" -> product = new Reduced(name, brand, category, maxPrice, string);
-
-            case "SUPER_REDUCED" -> product = new SuperReduced(name, brand, category, maxPrice, string);
-
-        }
+        ProductCategory productCategory = ProductCategory.fromName(category);
+        Product product = productCategory == null ? null : productCategory.create(name, brand, maxPrice, string);
 
         try {
             if (productDAO.add(product)) {
@@ -103,14 +103,14 @@ public class ProductManager {
 
         try {
             ArrayList<Product> prods = productDAO.readAll();
-            ArrayList<Product> prodNoDelete = new ArrayList<>();
+            ArrayList<String> deletedNames = new ArrayList<>();
 
             for (Product prod : prods) {
-                if (!prod.getName().equalsIgnoreCase(prodName)) {
-                    prodNoDelete.add(prod);
+                if (prod.getName().equalsIgnoreCase(prodName)) {
+                    deletedNames.add(prod.getName());
                 }
             }
-            return productDAO.delete(prodNoDelete);
+            return productDAO.deleteByNames(deletedNames);
         } catch (IOException e) {
             return false;
         }
@@ -369,6 +369,32 @@ public class ProductManager {
         }
     }
 
+    /**
+     * Lee todos los productos sin bloquear el hilo que llama: la lectura se hace en el ejecutor de los DAO.
+     *
+     * @return Futuro con un ArrayList de productos que representa todos los productos almacenados.
+     */
+    public CompletableFuture<ArrayList<Product>> readAllAsync() {
+        return asyncProducts.readAll();
+    }
+
+    /**
+     * Busca un producto por su nombre sin bloquear el hilo que llama.
+     *
+     * @param product el nombre del producto (no se distinguen mayúsculas y minúsculas).
+     * @return Futuro con el producto si existe, o con null si no existe.
+     */
+    public CompletableFuture<Product> productFromStringAsync(String product) {
+        return readAllAsync().thenApply(products -> {
+            for (Product prod : products) {
+                if (prod.getName().equalsIgnoreCase(product)) {
+                    return prod;
+                }
+            }
+            return null;
+        });
+    }
+
     /**
      * Cuenta cuantas posiciones tiene el string proporcionado.
      *
@@ -398,25 +424,21 @@ public class ProductManager {
     }
 
     /**
-     * Obtiene la media de las calificaciones de las reseñas de un producto.
+     * Obtiene la media de las calificaciones de las reseñas de un producto, a partir del resumen de calificaciones
+     * que mantiene el propio producto (sin recorrer ni parsear las reseñas).
      *
-     * @param reviews ArrayList con las reseñas de un producto.
+     * @param product el nombre del producto.
      *
-     * @return un float que representa la media de calificaciones de un producto.
+     * @return un float que representa la media de calificaciones de un producto, o 0 si no se encuentra o no tiene reseñas.
      */
-    public float getAverageReviews(ArrayList<String> reviews) {
-
-        float finalGrade = 0;
-
-        for (String str: reviews) {
-            float value = Float.parseFloat(String.valueOf(str.charAt(0)));
-            finalGrade = finalGrade + value;
+    public float getAverageReviews(String product) {
+        ArrayList<Product> products = readAll();
+        for (Product prods: products) {
+            if (prods.getName().equalsIgnoreCase(product)) {
+                return prods.getAverageRating();
+            }
         }
-
-        finalGrade = finalGrade / reviews.size();
-
-        return finalGrade;
-
+        return 0;
     }
 
     /**
@@ -425,6 +447,6 @@ public class ProductManager {
      * @return true si el sistema utiliza almacenamiento local para los datos de productos, false en caso contrario.
      */
     public boolean isUsingLocal() {
-        return this.productDAO instanceof ProductJSON;
+        return this.productDAO instanceof ProductJSON || this.productDAO instanceof ProductKV;
     }
 }
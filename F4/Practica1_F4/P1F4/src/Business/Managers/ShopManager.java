@@ -1,18 +1,28 @@
 package Business.Managers;
 
+import Business.Entities.CatalogSnapshot;
 import Business.Entities.HerenciasShop.Loyalty;
 import Business.Entities.HerenciasShop.Sponsored;
 import Business.Entities.Product;
 import Business.Entities.ProductCatalog;
 import Business.Entities.Shop;
 
+import Persistance.ProductPersistance.ProductJSON;
+import Persistance.ProductPersistance.ProductKV;
+import Persistance.ShopPersistance.AsyncShopDAO;
+import Persistance.ShopPersistance.ExecutorShopDAO;
+import Persistance.ShopPersistance.ShopCache;
 import Persistance.ShopPersistance.ShopCloud;
-import Persistance.ShopPersistance.ShopDAO;
 import Persistance.ShopPersistance.ShopJSON;
+import Persistance.ShopPersistance.ShopKV;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Clase que gestiona las operaciones relacionadas con las tiendas.
@@ -20,22 +30,31 @@ import java.util.ArrayList;
  */
 public class ShopManager {
 
-    private ShopDAO shopDAO;
+    private ShopCache shopCache;
+    private AsyncShopDAO asyncShops;
+    private LinkedHashMap<String, Shop> batch;
 
     /**
      * Constructor de la clase ShopManager que permite seleccionar la fuente de datos para las tiendas.
      *
-     * @param optionData La opción que determina si se utilizará almacenamiento en la nube (0) o almacenamiento local (1).
+     * Sea cual sea la fuente, las tiendas se leen a través de una caché en memoria (ShopCache),
+     * que también usan las lecturas asíncronas (en el ejecutor de los DAO).
+     * En local, los catálogos de las tiendas guardan referencias a los productos de "products.json".
+     *
+     * @param optionData La opción que determina si se utilizará almacenamiento en la nube (0), almacenamiento local en JSON (1)
+     *                   o el almacén clave-valor local (2).
      */
     public ShopManager(int optionData) {
         try {
             switch (optionData) {
-                case 0 -> this.shopDAO = new ShopCloud();
-                case 1 -> this.shopDAO = new ShopJSON();
+                case 0 -> this.shopCache = new ShopCache(new ShopCloud());
+                case 1 -> this.shopCache = new ShopCache(new ShopJSON(new ProductJSON(true)));
+                case 2 -> this.shopCache = new ShopCache(new ShopKV(new ProductKV()));
             }
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        this.asyncShops = new ExecutorShopDAO(shopCache);
     }
 
     /**
@@ -53,7 +72,7 @@ public class ShopManager {
         Shop shop = new Shop(name, description, foundingYear, businessModel, loyaltyThreshold, sponsoringBrand);
 
         try {
-            if(shopDAO.add(shop)){
+            if(shopCache.add(shop)){
                 return true;
             }
         } catch (IOException e) {
@@ -71,12 +90,7 @@ public class ShopManager {
      */
     public boolean shopUniqueName(String name) {
 
-        ArrayList<Shop> shops;
-        try {
-            shops = shopDAO.readAll();
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
+        ArrayList<Shop> shops = readHeaders();
 
         boolean isUnique = true;
 
@@ -104,11 +118,12 @@ public class ShopManager {
 
     /**
      * Lista los nombres de todas las tiendas registradas en el sistema.
+     * Solo se leen las cabeceras de las tiendas: los catálogos no se construyen hasta que se abre una tienda.
      *
      * @return ArrayList que contiene los nombres de todas las tiendas registradas.
      */
     public ArrayList<String> listShops() {
-        ArrayList<Shop> shops = readAll();
+        ArrayList<Shop> shops = readHeaders();
         ArrayList<String> shopsString = new ArrayList<>();
 
         for (Shop shop: shops) {
@@ -118,6 +133,40 @@ public class ShopManager {
         return shopsString;
     }
 
+    /**
+     * Busca una tienda por su nombre sin bloquear el hilo que llama: la lectura se hace en el ejecutor de los DAO
+     * (AsyncShopDAO) a través de la caché.
+     *
+     * @param shopName Nombre de la tienda (no se distinguen mayúsculas y minúsculas).
+     * @return Futuro con la tienda encontrada, o con null si no existe.
+     */
+    public CompletableFuture<Shop> findShopAsync(String shopName) {
+        return asyncShops.readShop(shopName);
+    }
+
+    /**
+     * Abre una tienda: lee a la vez, en paralelo en el ejecutor de los DAO, sus datos con el modelo de negocio
+     * (las cabeceras de las tiendas) y su catálogo (la tienda entera), y espera a las dos lecturas.
+     * Después, las consultas sobre la tienda (getYearFromName, getBusinessModel, getProdFromCat...) se sirven de la caché.
+     *
+     * @param shopName Nombre de la tienda (no se distinguen mayúsculas y minúsculas).
+     */
+    public void openShop(String shopName) {
+        CompletableFuture<ArrayList<Shop>> headers = asyncShops.readHeaders();
+        CompletableFuture<Shop> shop = findShopAsync(shopName);
+        CompletableFuture.allOf(headers, shop).join();
+    }
+
+    /**
+     * Obtiene el catálogo de productos de una tienda sin bloquear el hilo que llama.
+     *
+     * @param name El nombre de la tienda de la que se desea obtener el catálogo de productos.
+     * @return Futuro con el catálogo de productos de la tienda correspondiente.
+     */
+    public CompletableFuture<ProductCatalog> getProductCatalogAsync(String name) {
+        return findShopAsync(name).thenApply(Shop::getProductCatalog);
+    }
+
     /**
      * Obtiene el catálogo de productos de una tienda según su nombre.
      *
@@ -126,14 +175,7 @@ public class ShopManager {
      * @return El catálogo de productos de la tienda correspondiente.
      */
     public ProductCatalog getProductCatalog(String name) {
-
-        int pos = findPosFromName(name);
-
-        try {
-            return shopDAO.readAll().get(pos).getProductCatalog();
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        }
+        return findShop(name).getProductCatalog();
     }
 
     /**
@@ -144,19 +186,13 @@ public class ShopManager {
      * @return La posición de la tienda en la lista.
      */
     public int findPosFromName(String name) {
-        ArrayList<Shop> shops;
+        ArrayList<Shop> shops = readHeaders();
         int i = 0;
-        try {
-            shops = shopDAO.readAll();
-            for (Shop shop: shops) {
-                if (shop.getName().equalsIgnoreCase(name)){
-                    return i;
-                }
-                i++;
+        for (Shop shop: shops) {
+            if (shop.getName().equalsIgnoreCase(name)){
+                return i;
             }
-
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+            i++;
         }
         return i;
     }
@@ -169,12 +205,7 @@ public class ShopManager {
      * @return La tienda que coincide con la cadena proporcionada encontrada en la lista de tiendas, null si no coincide.
      */
     public Shop shopFromString(String shopName) {
-        ArrayList<Shop> shopArrayList = readAll();
-        for (Shop shop: shopArrayList)
-            if(shop.getName().equalsIgnoreCase(shopName)){
-                return shop;
-            }
-        return null;
+        return findShop(shopName);
     }
 
     /**
@@ -191,7 +222,7 @@ public class ShopManager {
 
         try {
             finalShop.setProductCatalog(productCatalog);
-            return shopDAO.update(finalShop);
+            return shopCache.update(finalShop);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -209,7 +240,7 @@ public class ShopManager {
         Shop finalShop = shopFromString(shopName);
         try {
             finalShop.setProductCatalog(productCatalog);
-            return shopDAO.update(finalShop);
+            return shopCache.update(finalShop);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -222,7 +253,52 @@ public class ShopManager {
      */
     public ArrayList<Shop> readAll () {
         try {
-            return shopDAO.readAll();
+            return shopCache.readAll();
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Lee la cabecera de todas las tiendas (sin catálogo), para las operaciones que solo necesitan sus datos.
+     * Las tiendas devueltas no se deben volver a guardar.
+     *
+     * @return ArrayList con la cabecera de todas las tiendas. Si no hay, esta lista estará vacía.
+     */
+    private ArrayList<Shop> readHeaders() {
+        try {
+            ArrayList<Shop> shops = shopCache.readHeaders();
+            return shops == null ? new ArrayList<>() : shops;
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Busca la cabecera de una tienda (sus datos y su modelo de negocio, sin el catálogo) por su nombre.
+     * Las tiendas devueltas no se deben volver a guardar.
+     *
+     * @param shopName Nombre de la tienda (no se distinguen mayúsculas y minúsculas).
+     * @return La cabecera de la tienda, o null si no existe.
+     */
+    private Shop findHeader(String shopName) {
+        for (Shop shop : readHeaders()) {
+            if (shop.getName().equalsIgnoreCase(shopName)) {
+                return shop;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Busca una tienda por su nombre en la caché de tiendas, sin recorrer la lista entera.
+     *
+     * @param shopName Nombre de la tienda (no se distinguen mayúsculas y minúsculas).
+     * @return La tienda encontrada, o null si no existe.
+     */
+    private Shop findShop(String shopName) {
+        try {
+            return shopCache.findByName(shopName);
         } catch (FileNotFoundException e) {
             throw new RuntimeException(e);
         }
@@ -239,14 +315,7 @@ public class ShopManager {
     public boolean prodInShop(String product, String shopName) {
 
         Shop shop = shopFromString(shopName);
-        ArrayList<String> prodsCat = shop.getProductCatalog().toArrayString();
-
-        for(String prodCat: prodsCat) {
-            if (prodCat.equalsIgnoreCase(product)) {
-                return true;
-            }
-        }
-        return false;
+        return shop.getProductCatalog().containsProduct(product);
     }
 
     /**
@@ -273,11 +342,9 @@ public class ShopManager {
      * @return los beneficios de la tienda proporcionada.
      */
     public float getEarnings(String shop) {
-        ArrayList<Shop> shops = readAll();
-        for (Shop shopShop: shops) {
-            if (shopShop.getName().equalsIgnoreCase(shop)) {
-                return shopShop.getEarnings();
-            }
+        Shop shopShop = findShop(shop);
+        if (shopShop != null) {
+            return shopShop.getEarnings();
         }
         return 0;
     }
@@ -290,11 +357,9 @@ public class ShopManager {
      * @return el año de fundación de la tienda proporcionada, null si no se encuentra la tienda.
      */
     public int getYearFromName(String shopName) {
-        ArrayList<Shop> shops = readAll();
-        for(Shop shop: shops) {
-            if (shop.getName().equalsIgnoreCase(shopName)) {
-                return shop.getFoundationYear();
-            }
+        Shop shop = findHeader(shopName);
+        if (shop != null) {
+            return shop.getFoundationYear();
         }
         return 0;
     }
@@ -307,11 +372,9 @@ public class ShopManager {
      * @return la descripción de la tienda proporcionada, null si no se encuentra la tienda.
      */
     public String getDescrFromName(String shopName) {
-        ArrayList<Shop> shops = readAll();
-        for(Shop shop: shops){
-            if(shop.getName().equalsIgnoreCase(shopName)){
-                return shop.getDescription();
-            }
+        Shop shop = findHeader(shopName);
+        if (shop != null) {
+            return shop.getDescription();
         }
         return null;
     }
@@ -324,16 +387,10 @@ public class ShopManager {
      * @return un ArrayList de strings con los nombres de los productos del catálogo de una tienda, si no se encuentra este ArrayList estará vacío.
      */
     public ArrayList<String> getProdFromCat(String shopName) {
-        ArrayList<Shop> shops = readAll();
-
-        for(Shop shop: shops){
-            if(shop.getName().equalsIgnoreCase(shopName)){
-                ProductCatalog productCatalog = getProductCatalog(shopName);
-
-                return productCatalog.toArrayString();
-            }
+        Shop shop = findShop(shopName);
+        if (shop != null) {
+            return shop.getProductCatalog().toArrayString();
         }
-
         return null;
     }
 
@@ -345,17 +402,10 @@ public class ShopManager {
      * @return un ArrayList de strings  con las marcas de los productos del catálogo de una tienda, si no se encuentra este ArrayList estará vacío.
      */
     public ArrayList<String> getBrandFromCat(String shopName) {
-        ArrayList<Shop> shops = readAll();
-
-        for(Shop shop: shops){
-            if(shop.getName().equalsIgnoreCase(shopName)){
-
-                ProductCatalog productCatalog = getProductCatalog(shopName);
-
-                return productCatalog.toArrayStringBrand();
-            }
+        Shop shop = findShop(shopName);
+        if (shop != null) {
+            return shop.getProductCatalog().toArrayStringBrand();
         }
-
         return null;
     }
 
@@ -364,21 +414,99 @@ public class ShopManager {
      *
      * @param shopName el nombre de la tienda de la que se obtienen los precios de los productos de su catálogo.
      *
-     * @return un ArrayList de strings con los precios de los productos del catálogo de una tienda, si no se encuentra este ArrayList estará vacío.
+     * @return un array con los precios de los productos del catálogo de una tienda, o null si no se encuentra la tienda.
      */
-    public ArrayList<String> getPriceFromCat(String shopName) {
-        ArrayList<Shop> shops = readAll();
+    public float[] getPriceFromCat(String shopName) {
+        Shop shop = findShop(shopName);
+        if (shop != null) {
+            return shop.getProductCatalog().getPrices();
+        }
+        return null;
+    }
 
-        for(Shop shop: shops){
-            if(shop.getName().equalsIgnoreCase(shopName)){
-                ProductCatalog productCatalog = getProductCatalog(shopName);
+    /**
+     * Obtiene el precio final de todos los productos del catálogo de una tienda para un cliente, aplicando el modelo
+     * de negocio de la tienda a todo el catálogo de una vez (Shop.quoteCatalog).
+     *
+     * @param shopName el nombre de la tienda.
+     * @param loyalty el nivel de fidelidad del cliente (lo que ha gastado).
+     * @return array con el precio final de cada producto, en el orden del catálogo, o null si la tienda no existe.
+     */
+    public float[] getQuoteFromCat(String shopName, float loyalty) {
+        Shop shop = findShop(shopName);
+        if (shop != null) {
+            return shop.quoteCatalog(loyalty);
+        }
+        return null;
+    }
 
+    /**
+     * Obtiene el precio más bajo del catálogo de una tienda, a partir de la columna de precios.
+     *
+     * @param shopName el nombre de la tienda.
+     * @return el precio más bajo, o 0 si la tienda no existe o no tiene productos.
+     */
+    public float getMinPriceFromCat(String shopName) {
+        Shop shop = findShop(shopName);
+        return shop == null ? 0 : shop.getProductCatalog().minPrice();
+    }
 
-                return productCatalog.searchForProductPriceArray(productCatalog);
-            }
+    /**
+     * Obtiene el precio más alto del catálogo de una tienda, a partir de la columna de precios.
+     *
+     * @param shopName el nombre de la tienda.
+     * @return el precio más alto, o 0 si la tienda no existe o no tiene productos.
+     */
+    public float getMaxPriceFromCat(String shopName) {
+        Shop shop = findShop(shopName);
+        return shop == null ? 0 : shop.getProductCatalog().maxPrice();
+    }
+
+    /**
+     * Obtiene el precio medio del catálogo de una tienda, a partir de la columna de precios.
+     *
+     * @param shopName el nombre de la tienda.
+     * @return el precio medio, o 0 si la tienda no existe o no tiene productos.
+     */
+    public float getAveragePriceFromCat(String shopName) {
+        Shop shop = findShop(shopName);
+        if (shop == null) {
+            return 0;
         }
+        CatalogSnapshot snapshot = shop.getProductCatalog().snapshot();
+        return snapshot.size() == 0 ? 0 : snapshot.sumPrices() / snapshot.size();
+    }
 
-        return null;
+    /**
+     * Aplica un descuento a todos los productos del catálogo de una tienda y guarda la tienda.
+     * Ningún precio baja de 0 ni pasa del precio máximo del producto.
+     *
+     * @param shopName el nombre de la tienda.
+     * @param percentage el porcentaje de descuento (por ejemplo, 15 para un 15%).
+     *
+     * @return true si se ha aplicado el descuento, false si la tienda no existe.
+     */
+    public boolean discountCatalog(String shopName, float percentage) {
+        Shop shop = findShop(shopName);
+        if (shop == null) {
+            return false;
+        }
+        shop.getProductCatalog().applyDiscount(percentage);
+
+        ArrayList<Shop> changedShops = new ArrayList<>();
+        changedShops.add(shop);
+        save(changedShops);
+        return true;
+    }
+
+    /**
+     * Comprueba si un porcentaje de descuento es válido (entre 0 y 100, ambos incluidos).
+     *
+     * @param percentage el porcentaje de descuento.
+     * @return true si el porcentaje es válido, false si no.
+     */
+    public boolean checkDiscount(float percentage) {
+        return percentage >= 0 && percentage <= 100;
     }
 
     /**
@@ -388,17 +516,78 @@ public class ShopManager {
      * @param shop la tienda de la que se actualizan sus beneficios.
      */
     public void updateEarnings(float earnings, String shop) {
-        ArrayList<Shop> shops = readAll();
+        Shop sh = findShop(shop);
 
-        for(Shop sh: shops) {
-            if (sh.getName().equalsIgnoreCase(shop)) {
-                sh.setEarnings(earnings);
+        if (sh != null) {
+            sh.setEarnings(earnings);
 
-                try {
-                    shopDAO.update(sh);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
+            ArrayList<Shop> changedShops = new ArrayList<>();
+            changedShops.add(sh);
+            save(changedShops);
+        }
+    }
+
+    /**
+     * Actualiza los beneficios de varias tiendas y los guarda todos juntos con una sola escritura
+     * (o los deja en el lote abierto con beginBatch()).
+     *
+     * @param earningsByShop Nuevos beneficios de cada tienda, por nombre de tienda.
+     */
+    public void updateEarnings(Map<String, Float> earningsByShop) {
+        ArrayList<Shop> changedShops = new ArrayList<>();
+
+        for (Map.Entry<String, Float> entry : earningsByShop.entrySet()) {
+            Shop sh = findShop(entry.getKey());
+            if (sh != null) {
+                sh.setEarnings(entry.getValue());
+                changedShops.add(sh);
+            }
+        }
+
+        save(changedShops);
+    }
+
+    /**
+     * Empieza un lote de escrituras de tiendas: los beneficios que se actualicen a partir de ahora no se guardan
+     * hasta llamar a flushBatch(), que los guarda todos con una sola llamada a updateAll.
+     */
+    public void beginBatch() {
+        if (batch == null) {
+            batch = new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Guarda de una sola vez las tiendas actualizadas desde beginBatch() y cierra el lote.
+     * Si no hay ningún lote abierto no hace nada.
+     */
+    public void flushBatch() {
+        if (batch == null) {
+            return;
+        }
+        ArrayList<Shop> changedShops = new ArrayList<>(batch.values());
+        batch = null;
+        save(changedShops);
+    }
+
+    /**
+     * Guarda las tiendas modificadas con una sola escritura o, si hay un lote abierto, las añade al lote
+     * (una tienda que ya estaba en el lote se sustituye por su última versión).
+     *
+     * @param changedShops Tiendas modificadas.
+     */
+    private void save(Collection<Shop> changedShops) {
+        if (batch != null) {
+            for (Shop shop : changedShops) {
+                batch.put(shop.getName().toLowerCase(), shop);
+            }
+            return;
+        }
+        if (!changedShops.isEmpty()) {
+            try {
+                shopCache.updateAll(changedShops);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
         }
     }
@@ -410,18 +599,12 @@ public class ShopManager {
      * @return ArrayList de cadenas que contiene las categorías de productos de la tienda.
      */
     public ArrayList<String> getCatFromCat(String shopName) {
-        ArrayList<Shop> shops = readAll();
+        Shop shop = findShop(shopName);
         ArrayList<String> categories = new ArrayList<>();
 
-        for(Shop shop: shops){
-            if(shop.getName().equalsIgnoreCase(shopName)){
-
-                ProductCatalog productCatalog = getProductCatalog(shopName);
-
-                for (Product product: productCatalog.listProducts()) {
-                    categories.add(product.getCategory());
-
-                }
+        if (shop != null) {
+            for (Product product: shop.getProductCatalog().listProducts()) {
+                categories.add(product.getCategory());
             }
         }
 
@@ -435,16 +618,10 @@ public class ShopManager {
      * @return Cadena que representa el modelo de negocio de la tienda.
      */
     public String getBusinessModel(String shopName) {
-        ArrayList<Shop> shops = readAll();
-
-        for(Shop shop: shops){
-            if(shop.getName().equalsIgnoreCase(shopName)){
-
-                 return shop.getBusinessModel().getModel();
-
-            }
+        Shop shop = findHeader(shopName);
+        if (shop != null) {
+            return shop.getBusinessModel().getModel();
         }
-
         return null;
     }
 
@@ -455,13 +632,7 @@ public class ShopManager {
      * @return Objeto Shop correspondiente a la tienda encontrada, o null si no se encuentra.
      */
     public Shop getShopFromString(String shop) {
-        ArrayList<Shop> shops = readAll();
-        for (Shop shop1: shops){
-            if (shop1.getName().equalsIgnoreCase(shop)){
-                return shop1;
-            }
-        }
-        return null;
+        return findShop(shop);
     }
 
     /**
@@ -471,7 +642,7 @@ public class ShopManager {
      * @return Umbral de lealtad de la tienda en forma de valor flotante.
      */
     public float getLoyalty(String shopName) {
-        Shop shop = getShopFromString(shopName);
+        Shop shop = findHeader(shopName);
         return ((Loyalty)shop.getBusinessModel()).getLoyaltyThreshold();
     }
 
@@ -482,7 +653,7 @@ public class ShopManager {
      * @return Cadena que representa la marca patrocinadora de la tienda.
      */
     public String getSponsor(String shopName) {
-        Shop shop = getShopFromString(shopName);
+        Shop shop = findHeader(shopName);
         return ((Sponsored)shop.getBusinessModel()).getSponsoringBrand();
     }
 
@@ -494,49 +665,45 @@ public class ShopManager {
      * @return ArrayList de cadenas que contiene las calificaciones del producto en la tienda.
      */
     public ArrayList<String> getRatingFromCat(String shopName, String prodName) {
-        ArrayList<String> ratings = new ArrayList<>();
-        ArrayList<Shop> shops = readAll();
-
-        for (Shop shop: shops) {
-            if (shop.getName().equalsIgnoreCase(shopName)) {
-                for(String prod: shop.getProductCatalog().toArrayString()) {
-                    if (prod.equalsIgnoreCase(prodName)) {
-                        return shop.getProductCatalog().getProductRating(prodName);
-                    }
-                }
-            }
+        Shop shop = findShop(shopName);
+        if (shop != null) {
+            return shop.getProductCatalog().getProductRating(prodName);
         }
-
-        return ratings;
+        return new ArrayList<>();
     }
 
     /**
      * Agrega una calificación a un producto específico en el catálogo de una tienda.
+     * Si los catálogos guardan referencias, la calificación ya está guardada en el producto y no hay que reescribir
+     * ninguna tienda: basta con descartar la caché para que los catálogos se vuelvan a resolver con el producto actualizado.
+     * Si guardan copias, todas las tiendas que tienen el producto se guardan juntas con una sola escritura.
      *
      * @param prod Nombre del producto al que se agregará la calificación.
      * @param finalRating Calificación final a agregar en formato de cadena.
      */
     public void addProductToCatalogueRaiting(String prod,String finalRating) {
-        ArrayList<Shop> shops = readAll();
-
+        if (shopCache.referencesProducts()) {
+            shopCache.invalidate();
+            return;
+        }
 
+        ArrayList<Shop> shops = readAll();
+        ArrayList<Shop> changedShops = new ArrayList<>();
 
         for (Shop shop: shops) {
-            ArrayList<String> prods = shop.getProductCatalog().toArrayString();
-            for (String product : prods) {
-
-                if (prod.equalsIgnoreCase(product)) {
-                    try {
-                        shop.getProductCatalog().setProductRating(product, finalRating);
-                        shopDAO.update(shop);
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-
+            if (shop.getProductCatalog().containsProduct(prod)) {
+                shop.getProductCatalog().setProductRating(prod, finalRating);
+                changedShops.add(shop);
             }
         }
 
+        if (!changedShops.isEmpty()) {
+            try {
+                shopCache.updateAll(changedShops);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 }
 
@@ -0,0 +1,73 @@
+package Persistance.CloudPersistance;
+
+import edu.salle.url.api.ApiHelper;
+import edu.salle.url.api.exception.ApiException;
+
+/**
+ * Clase que implementa la interfaz CloudClient con el ApiHelper proporcionado, para hablar con la API de balandrau.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ApiHelperClient implements CloudClient {
+
+    private final ApiHelper api;
+
+    /**
+     * Constructor de la clase ApiHelperClient. El ApiHelper comprueba que el servidor de balandrau responde.
+     *
+     * @throws ApiException si el servidor no está disponible.
+     */
+    public ApiHelperClient() throws ApiException {
+        this.api = new ApiHelper();
+    }
+
+    /**
+     * Hace una petición GET con el ApiHelper.
+     *
+     * @param url URL completa del recurso.
+     * @throws ApiException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String getFromUrl(String url) throws ApiException {
+        return api.getFromUrl(url);
+    }
+
+    /**
+     * El ApiHelper no permite enviar cabeceras, así que la petición condicional es un GET normal
+     * y quien llama tiene que comparar el contenido.
+     *
+     * @param url URL completa del recurso.
+     * @param etag Validador de la última respuesta conocida (no se envía).
+     * @throws ApiException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String getIfNoneMatch(String url, String etag) throws ApiException {
+        return api.getFromUrl(url);
+    }
+
+    /**
+     * Hace una petición POST con el ApiHelper.
+     *
+     * @param url URL completa de la colección.
+     * @param content Cuerpo JSON de la petición.
+     * @throws ApiException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String postToUrl(String url, String content) throws ApiException {
+        return api.postToUrl(url, content);
+    }
+
+    /**
+     * Hace una petición DELETE con el ApiHelper.
+     *
+     * @param url URL completa del recurso o de la colección.
+     * @throws ApiException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String deleteFromUrl(String url) throws ApiException {
+        return api.deleteFromUrl(url);
+    }
+}
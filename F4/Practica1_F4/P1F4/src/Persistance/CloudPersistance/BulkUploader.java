@@ -0,0 +1,111 @@
+package Persistance.CloudPersistance;
+
+import Persistance.PersistanceGson;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Clase que publica (o borra) muchos registros en una colección de la API a la vez, cada uno en su propio hilo virtual,
+ * con un máximo de peticiones en curso para no saturar el servidor.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class BulkUploader {
+
+    private final CloudClient api;
+    private final int maxInFlight;
+
+    /**
+     * Constructor de la clase BulkUploader.
+     *
+     * @param api Cliente con el que se harán las peticiones (debe admitir llamadas desde varios hilos).
+     * @param maxInFlight Número máximo de peticiones POST en curso a la vez.
+     */
+    public BulkUploader(CloudClient api, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight debe ser como mínimo 1");
+        }
+        this.api = api;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Publica todos los registros en la colección y espera a que terminen todas las peticiones.
+     * Los errores no detienen la subida: cada registro queda marcado como subido o fallido en el resultado.
+     *
+     * @param url URL de la colección.
+     * @param records Registros que se publicarán, serializados con el Gson compartido (PersistanceGson).
+     * @return Resultado registro a registro, en el mismo orden que la lista.
+     */
+    public UploadResult upload(String url, List<?> records) {
+        return send(records.size(), index -> api.postToUrl(url, PersistanceGson.gson().toJson(records.get(index))));
+    }
+
+    /**
+     * Borra muchos registros a la vez (una petición DELETE por URL) y espera a que terminen todas las peticiones.
+     *
+     * @param urls URLs de los registros que se borrarán (por ejemplo, las de CloudConfig.recordUrl).
+     * @return Resultado registro a registro, en el mismo orden que la lista.
+     */
+    public UploadResult delete(List<String> urls) {
+        return send(urls.size(), index -> api.deleteFromUrl(urls.get(index)));
+    }
+
+    /**
+     * Interfaz de una petición a la API para el registro de una posición de la lista.
+     */
+    @FunctionalInterface
+    private interface Request {
+
+        /**
+         * Hace la petición.
+         *
+         * @param index Posición del registro en la lista.
+         * @throws IOException si la petición no se puede completar.
+         * @return Cuerpo de la respuesta, o null si la API no ha respondido.
+         */
+        String send(int index) throws IOException;
+    }
+
+    /**
+     * Hace una petición por registro, cada una en su propio hilo virtual y con un máximo de peticiones en curso.
+     *
+     * @param size Número de registros.
+     * @param request Petición de cada registro.
+     * @return Resultado registro a registro.
+     */
+    private UploadResult send(int size, Request request) {
+        UploadResult result = new UploadResult(size);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < size; i++) {
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                int index = i;
+                executor.execute(() -> {
+                    try {
+                        if (request.send(index) != null) {
+                            result.setUploaded(index);
+                        } else {
+                            result.setFailed(index, new IOException("La API no ha respondido"));
+                        }
+                    } catch (IOException e) {
+                        result.setFailed(index, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,215 @@
+package Persistance.CloudPersistance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clase que implementa la interfaz CloudClient como caché de respuestas delante de otro CloudClient.
+ * Cada GET se guarda con un validador (el hash SHA-256 del contenido, que el servidor local usa también como ETag)
+ * y un tiempo de vida: mientras no caduca se sirve desde memoria y, cuando caduca, se revalida con un GET condicional.
+ * Cualquier POST o DELETE hecho a través de este cliente descarta las respuestas guardadas.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class CachingCloudClient implements CloudClient {
+
+    private final CloudClient client;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, CachedResponse> responses;
+    private final AtomicLong generation;
+    private final AtomicLong hits;
+    private final AtomicLong revalidations;
+    private final AtomicLong misses;
+
+    /**
+     * Clase que guarda una respuesta junto con su validador y el momento en que caduca.
+     */
+    private static class CachedResponse {
+        private final String body;
+        private final String etag;
+        private final long expires;
+
+        /**
+         * Constructor de la clase CachedResponse.
+         *
+         * @param body Cuerpo de la respuesta.
+         * @param etag Validador del cuerpo.
+         * @param expires Momento (System.currentTimeMillis) a partir del cual hay que revalidar.
+         */
+        private CachedResponse(String body, String etag, long expires) {
+            this.body = body;
+            this.etag = etag;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * Constructor de la clase CachingCloudClient.
+     *
+     * @param client Cliente al que se delegan las peticiones.
+     * @param ttlMillis Tiempo en milisegundos durante el que una respuesta se sirve sin preguntar al servidor.
+     */
+    public CachingCloudClient(CloudClient client, long ttlMillis) {
+        this.client = client;
+        this.ttlMillis = ttlMillis;
+        this.responses = new ConcurrentHashMap<>();
+        this.generation = new AtomicLong();
+        this.hits = new AtomicLong();
+        this.revalidations = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * Hace una petición GET, sirviéndola desde memoria si la respuesta guardada no ha caducado
+     * y revalidándola con el servidor si ha caducado.
+     *
+     * @param url URL completa del recurso.
+     * @throws IOException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String getFromUrl(String url) throws IOException {
+        CachedResponse cached = responses.get(url);
+        long now = System.currentTimeMillis();
+        if (cached != null && now < cached.expires) {
+            hits.incrementAndGet();
+            return cached.body;
+        }
+
+        long current = generation.get();
+        if (cached != null) {
+            String body = client.getIfNoneMatch(url, cached.etag);
+            if (body == null || contentHash(body).equals(cached.etag)) {
+                revalidations.incrementAndGet();
+                store(url, cached.body, cached.etag, current);
+                return cached.body;
+            }
+            misses.incrementAndGet();
+            store(url, body, contentHash(body), current);
+            return body;
+        }
+
+        misses.incrementAndGet();
+        String body = client.getFromUrl(url);
+        store(url, body, contentHash(body), current);
+        return body;
+    }
+
+    /**
+     * Hace una petición GET condicional sin pasar por la caché.
+     *
+     * @param url URL completa del recurso.
+     * @param etag Validador de la última respuesta conocida.
+     * @throws IOException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta, o null si no ha cambiado.
+     */
+    @Override
+    public String getIfNoneMatch(String url, String etag) throws IOException {
+        return client.getIfNoneMatch(url, etag);
+    }
+
+    /**
+     * Hace una petición POST y descarta las respuestas guardadas.
+     *
+     * @param url URL completa de la colección.
+     * @param content Cuerpo JSON de la petición.
+     * @throws IOException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String postToUrl(String url, String content) throws IOException {
+        try {
+            return client.postToUrl(url, content);
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Hace una petición DELETE y descarta las respuestas guardadas.
+     *
+     * @param url URL completa del recurso o de la colección.
+     * @throws IOException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String deleteFromUrl(String url) throws IOException {
+        try {
+            return client.deleteFromUrl(url);
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Descarta todas las respuestas guardadas.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        responses.clear();
+    }
+
+    /**
+     * Obtiene el número de GET servidos desde memoria sin contactar con el servidor.
+     *
+     * @return Número de aciertos.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Obtiene el número de GET caducados que el servidor ha confirmado que no han cambiado.
+     *
+     * @return Número de revalidaciones.
+     */
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * Obtiene el número de GET que han tenido que descargar contenido nuevo.
+     *
+     * @return Número de fallos.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Calcula el validador de un contenido: el hash SHA-256 en hexadecimal entre comillas, con el formato de un ETag.
+     *
+     * @param body Contenido de la respuesta.
+     * @return El ETag correspondiente al contenido.
+     */
+    public static String contentHash(String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return "\"" + HexFormat.of().formatHex(digest.digest(body.getBytes(StandardCharsets.UTF_8))) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Guarda una respuesta, salvo que se haya hecho una escritura mientras se descargaba.
+     *
+     * @param url URL de la respuesta.
+     * @param body Cuerpo de la respuesta.
+     * @param etag Validador del cuerpo.
+     * @param requestGeneration Generación de la caché cuando se empezó la petición.
+     */
+    private void store(String url, String body, String etag, long requestGeneration) {
+        if (body == null) {
+            return;
+        }
+        responses.put(url, new CachedResponse(body, etag, System.currentTimeMillis() + ttlMillis));
+        if (generation.get() != requestGeneration) {
+            responses.remove(url);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package Persistance.CloudPersistance;
+
+import java.io.IOException;
+
+/**
+ * Interfaz que define las peticiones HTTP que los DAO de la nube hacen a la API.
+ * Permite usar el ApiHelper de balandrau o cualquier otro servidor compatible (por ejemplo, el servidor local de pruebas).
+ * @author alberto.marquillas i marc.viñas
+ */
+public interface CloudClient {
+
+    /**
+     * Hace una petición GET.
+     *
+     * @param url URL completa del recurso.
+     * @throws IOException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    String getFromUrl(String url) throws IOException;
+
+    /**
+     * Hace una petición GET condicional con la cabecera If-None-Match.
+     * Los servidores que no la entienden responden siempre con el contenido completo.
+     *
+     * @param url URL completa del recurso.
+     * @param etag Validador (ETag) de la última respuesta conocida.
+     * @throws IOException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta, o null si el servidor indica que no ha cambiado (304 Not Modified).
+     */
+    String getIfNoneMatch(String url, String etag) throws IOException;
+
+    /**
+     * Hace una petición POST con un cuerpo JSON.
+     *
+     * @param url URL completa de la colección.
+     * @param content Cuerpo JSON de la petición.
+     * @throws IOException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    String postToUrl(String url, String content) throws IOException;
+
+    /**
+     * Hace una petición DELETE.
+     *
+     * @param url URL completa del recurso o de la colección (admite "?name=" para borrar por nombre).
+     * @throws IOException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    String deleteFromUrl(String url) throws IOException;
+}
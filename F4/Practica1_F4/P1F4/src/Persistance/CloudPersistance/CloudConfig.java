@@ -0,0 +1,113 @@
+package Persistance.CloudPersistance;
+
+import edu.salle.url.api.exception.ApiException;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Clase que centraliza la URL base de la API y la creación del cliente HTTP de los DAO de la nube.
+ * Por defecto se usa balandrau; con la propiedad del sistema "cloud.baseUrl" se puede apuntar a otro servidor
+ * (por ejemplo, -Dcloud.baseUrl=http://localhost:8080/dpoo/P1-G109 para el servidor local de pruebas).
+ * @author alberto.marquillas i marc.viñas
+ */
+public class CloudConfig {
+
+    public static final String BASE_URL_PROPERTY = "cloud.baseUrl";
+    public static final String DEFAULT_BASE_URL = "https://balandrau.salle.url.edu/dpoo/P1-G109";
+    public static final String MAX_IN_FLIGHT_PROPERTY = "cloud.maxInFlight";
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    public static final String CACHE_TTL_PROPERTY = "cloud.cacheTtl";
+    public static final long DEFAULT_CACHE_TTL = 5000;
+
+    /**
+     * Constructor privado: la clase solo ofrece métodos estáticos.
+     */
+    private CloudConfig() {}
+
+    /**
+     * Obtiene la URL base de la API, sin barra final.
+     *
+     * @return La URL base configurada o la de balandrau.
+     */
+    public static String getBaseUrl() {
+        String baseUrl = System.getProperty(BASE_URL_PROPERTY, DEFAULT_BASE_URL);
+        while (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+        return baseUrl;
+    }
+
+    /**
+     * Cambia la URL base de la API para los DAO de la nube que se creen a partir de ahora
+     * (por ejemplo, con la de un CloudStandInServer).
+     *
+     * @param baseUrl Nueva URL base.
+     */
+    public static void setBaseUrl(String baseUrl) {
+        System.setProperty(BASE_URL_PROPERTY, baseUrl);
+    }
+
+    /**
+     * Obtiene la URL de una colección de la API.
+     *
+     * @param collection Nombre de la colección ("shops" o "products").
+     * @return URL de la colección.
+     */
+    public static String collectionUrl(String collection) {
+        return getBaseUrl() + "/" + collection;
+    }
+
+    /**
+     * Obtiene la URL que identifica un único registro de una colección por su nombre.
+     *
+     * @param collectionUrl URL de la colección.
+     * @param name Nombre del registro.
+     * @return URL con el parámetro "?name=" codificado.
+     */
+    public static String recordUrl(String collectionUrl, String name) {
+        return collectionUrl + "?name=" + URLEncoder.encode(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Obtiene el número máximo de peticiones simultáneas de las subidas masivas (propiedad "cloud.maxInFlight").
+     *
+     * @return El valor configurado, o DEFAULT_MAX_IN_FLIGHT si no hay ninguno válido.
+     */
+    public static int getMaxInFlight() {
+        try {
+            int maxInFlight = Integer.parseInt(System.getProperty(MAX_IN_FLIGHT_PROPERTY, String.valueOf(DEFAULT_MAX_IN_FLIGHT)));
+            return maxInFlight > 0 ? maxInFlight : DEFAULT_MAX_IN_FLIGHT;
+        } catch (NumberFormatException e) {
+            return DEFAULT_MAX_IN_FLIGHT;
+        }
+    }
+
+    /**
+     * Obtiene el tiempo de vida en milisegundos de las respuestas guardadas por CachingCloudClient (propiedad "cloud.cacheTtl").
+     *
+     * @return El valor configurado, o DEFAULT_CACHE_TTL si no hay ninguno válido.
+     */
+    public static long getCacheTtl() {
+        try {
+            long ttl = Long.parseLong(System.getProperty(CACHE_TTL_PROPERTY, String.valueOf(DEFAULT_CACHE_TTL)));
+            return ttl >= 0 ? ttl : DEFAULT_CACHE_TTL;
+        } catch (NumberFormatException e) {
+            return DEFAULT_CACHE_TTL;
+        }
+    }
+
+    /**
+     * Crea el cliente HTTP adecuado para la URL base configurada.
+     *
+     * @throws ApiException si el servidor no está disponible.
+     * @return Un ApiHelperClient para balandrau o un HttpCloudClient para cualquier otro servidor.
+     */
+    public static CloudClient createClient() throws ApiException {
+        String baseUrl = getBaseUrl();
+        if (baseUrl.equals(DEFAULT_BASE_URL)) {
+            return new ApiHelperClient();
+        }
+        return new HttpCloudClient(baseUrl);
+    }
+}
@@ -0,0 +1,95 @@
+package Persistance.CloudPersistance;
+
+import Persistance.JsonStorage;
+import Persistance.PersistanceGson;
+import Persistance.ProductPersistance.ProductJSON;
+import Persistance.ShopPersistance.ShopJSON;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Scanner;
+
+/**
+ * Clase que arranca el servidor local de pruebas como programa independiente, con las tiendas y los productos
+ * de la carpeta "files" leídos con los DAO JSON (así se aplican el diario de productos, los ficheros comprimidos
+ * y los catálogos normalizados, y el servidor recibe las tiendas con los productos enteros). Uso: CloudStandInLauncher [puerto] [latenciaMin-latenciaMax ms] [tasaFallos].
+ * Después hay que arrancar el programa con la propiedad "cloud.baseUrl" que se muestra por pantalla.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class CloudStandInLauncher {
+
+    /**
+     * Arranca el servidor y lo mantiene en marcha hasta que se pulsa Enter.
+     *
+     * @param args Puerto (8080 por defecto), rango de latencia en milisegundos (por ejemplo "20-80") y tasa de fallos (por ejemplo "0.01").
+     * @throws IOException si no se puede abrir el puerto.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        CloudStandInServer server = new CloudStandInServer(port);
+
+        if (args.length > 1) {
+            String[] latency = args[1].split("-");
+            long min = Long.parseLong(latency[0]);
+            server.setLatency(min, latency.length > 1 ? Long.parseLong(latency[1]) : min);
+        }
+        if (args.length > 2) {
+            server.setFailureRate(Double.parseDouble(args[2]));
+        }
+
+        seed(server);
+        server.start();
+
+        System.out.println("Servidor local escuchando en " + server.getBaseUrl());
+        System.out.println("Arranca el programa con -D" + CloudConfig.BASE_URL_PROPERTY + "=" + server.getBaseUrl());
+        System.out.println("Pulsa Enter para pararlo.");
+        new Scanner(System.in).nextLine();
+
+        System.out.println(server.getStats());
+        server.stop();
+    }
+
+    /**
+     * Carga las colecciones "products" y "shops" con el contenido de los ficheros de la carpeta "files".
+     * Los catálogos de las tiendas se resuelven contra los productos, como hace el programa al leerlos.
+     *
+     * @param server Servidor que se carga.
+     * @throws IOException si los ficheros no se pueden leer.
+     */
+    private static void seed(CloudStandInServer server) throws IOException {
+        ProductJSON productJSON = null;
+        try {
+            JsonStorage.resolve(Paths.get("files/products.json"));
+            productJSON = new ProductJSON();
+            seed(server, "products", productJSON.readAll(), PersistanceGson.PRODUCT_LIST);
+        } catch (FileNotFoundException e) {
+            seed(server, "products", null, PersistanceGson.PRODUCT_LIST);
+        }
+
+        try {
+            JsonStorage.resolve(Paths.get("files/shops.json"));
+            seed(server, "shops", new ShopJSON(productJSON).readAll(), PersistanceGson.SHOP_LIST);
+        } catch (FileNotFoundException e) {
+            seed(server, "shops", null, PersistanceGson.SHOP_LIST);
+        }
+    }
+
+    /**
+     * Carga una colección con una lista de objetos, serializada con el mismo Gson que usa el adaptador de la nube.
+     *
+     * @param server Servidor que se carga.
+     * @param collection Nombre de la colección y del fichero ("shops" o "products").
+     * @param objects Objetos de la colección, o null si el fichero no existe o no contiene datos.
+     * @param type Tipo de la lista (PersistanceGson.SHOP_LIST o PersistanceGson.PRODUCT_LIST).
+     */
+    private static void seed(CloudStandInServer server, String collection, ArrayList<?> objects, Type type) {
+        if (objects == null) {
+            System.out.println("No hay datos en files/" + collection + ".json, la colección empieza vacía.");
+            objects = new ArrayList<>();
+        }
+        server.seed(collection, PersistanceGson.gson().toJson(objects, type));
+    }
+}
@@ -0,0 +1,430 @@
+package Persistance.CloudPersistance;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor HTTP local que imita la API de balandrau para poder probar los DAO de la nube sin conexión.
+ * Cada ruta es una colección de objetos JSON guardada en memoria:
+ * GET devuelve la colección (filtrada por los parámetros de la consulta, si hay), POST añade el objeto recibido,
+ * DELETE sin parámetros vacía la colección, DELETE ".../coleccion/N" elimina el elemento N
+ * y DELETE con parámetros (por ejemplo "?name=") elimina los objetos que coinciden.
+ * Para hacer pruebas de carga se puede añadir una latencia aleatoria a cada petición y hacer fallar
+ * una fracción de ellas con un error 503. Los GET llevan un ETag y admiten peticiones condicionales (If-None-Match).
+ * @author alberto.marquillas i marc.viñas
+ */
+public class CloudStandInServer {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final HashMap<String, ArrayList<JsonObject>> collections;
+    private final HashMap<String, AtomicLong> requests;
+    private final AtomicLong failures;
+    private final AtomicLong notModified;
+    private volatile long minLatency;
+    private volatile long maxLatency;
+    private volatile double failureRate;
+
+    /**
+     * Constructor de la clase CloudStandInServer. El servidor no atiende peticiones hasta llamar a start().
+     * Cada petición se atiende en su propio hilo virtual, así que la latencia simulada no limita la concurrencia.
+     *
+     * @param port Puerto local en el que escuchará (0 para escoger uno libre).
+     * @throws IOException si no se puede abrir el puerto.
+     */
+    public CloudStandInServer(int port) throws IOException {
+        // Sin TCP_NODELAY cada respuesta espera el ACK retardado del cliente (unos 40 ms).
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.failures = new AtomicLong();
+        this.notModified = new AtomicLong();
+        this.collections = new HashMap<>();
+        this.requests = new HashMap<>();
+        requests.put("GET", new AtomicLong());
+        requests.put("POST", new AtomicLong());
+        requests.put("DELETE", new AtomicLong());
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Empieza a atender peticiones.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Deja de atender peticiones y libera el puerto.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Obtiene la URL base que hay que configurar en "cloud.baseUrl" para usar este servidor.
+     *
+     * @return URL base equivalente a la de balandrau.
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + getBasePath();
+    }
+
+    /**
+     * Obtiene la ruta base de las colecciones, la misma que en balandrau.
+     *
+     * @return Ruta base sin barra final.
+     */
+    private String getBasePath() {
+        return "/dpoo/P1-G109";
+    }
+
+    /**
+     * Configura la latencia que se añade a cada petición antes de atenderla, escogida al azar entre los dos valores.
+     *
+     * @param minMillis Latencia mínima en milisegundos.
+     * @param maxMillis Latencia máxima en milisegundos.
+     */
+    public void setLatency(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Latencia no válida: " + minMillis + "-" + maxMillis);
+        }
+        this.minLatency = minMillis;
+        this.maxLatency = maxMillis;
+    }
+
+    /**
+     * Configura la fracción de peticiones que fallan con un error 503 (después de la latencia).
+     *
+     * @param failureRate Probabilidad de fallo, entre 0 y 1.
+     */
+    public void setFailureRate(double failureRate) {
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("Tasa de fallos no válida: " + failureRate);
+        }
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Carga datos iniciales en una colección, sustituyendo los que tuviera.
+     *
+     * @param collection Nombre de la colección ("shops" o "products").
+     * @param json Array JSON con los objetos de la colección.
+     */
+    public void seed(String collection, String json) {
+        ArrayList<JsonObject> objects = new ArrayList<>();
+        JsonElement element = JsonParser.parseString(json);
+        if (element.isJsonArray()) {
+            for (JsonElement object : element.getAsJsonArray()) {
+                objects.add(object.getAsJsonObject());
+            }
+        }
+        synchronized (collections) {
+            collections.put(getBasePath() + "/" + collection, objects);
+        }
+    }
+
+    /**
+     * Obtiene el número de peticiones que se han hecho fallar a propósito.
+     *
+     * @return Número de errores 503 devueltos.
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Resume los contadores de peticiones en una línea.
+     *
+     * @return Texto con las peticiones de cada método, las respuestas 304 y los fallos provocados.
+     */
+    public String getStats() {
+        return "GET=" + getRequests("GET") + " POST=" + getRequests("POST") + " DELETE=" + getRequests("DELETE")
+                + " total=" + getTotalRequests() + " 304=" + getNotModified() + " fallos=" + getFailures();
+    }
+
+    /**
+     * Obtiene el número de GET condicionales respondidos con 304 Not Modified.
+     *
+     * @return Número de respuestas 304.
+     */
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    /**
+     * Obtiene el número de peticiones atendidas de un método HTTP.
+     *
+     * @param method Método HTTP (GET, POST o DELETE).
+     * @return Número de peticiones recibidas con ese método.
+     */
+    public long getRequests(String method) {
+        AtomicLong counter = requests.get(method);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Obtiene el número total de peticiones atendidas.
+     *
+     * @return Número de peticiones recibidas.
+     */
+    public long getTotalRequests() {
+        long total = 0;
+        for (AtomicLong counter : requests.values()) {
+            total += counter.get();
+        }
+        return total;
+    }
+
+    /**
+     * Pone a cero los contadores de peticiones.
+     */
+    public void resetRequests() {
+        for (AtomicLong counter : requests.values()) {
+            counter.set(0);
+        }
+        failures.set(0);
+        notModified.set(0);
+    }
+
+    /**
+     * Atiende una petición.
+     *
+     * @param exchange Petición y respuesta HTTP.
+     * @throws IOException si no se puede responder.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        AtomicLong counter = requests.get(method);
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+
+        if (!simulateNetwork(exchange)) {
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        HashMap<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        try {
+            switch (method) {
+                case "GET" -> respondGet(exchange, get(path, query).toString());
+                case "POST" -> respond(exchange, 200, post(path, readBody(exchange.getRequestBody())));
+                case "DELETE" -> respond(exchange, 200, delete(path, query));
+                default -> respond(exchange, 405, "{\"error\":\"Method not allowed\"}");
+            }
+        } catch (JsonParseException | IllegalStateException e) {
+            respond(exchange, 400, "{\"error\":\"Invalid JSON\"}");
+        }
+    }
+
+    /**
+     * Aplica la latencia configurada y, según la tasa de fallos, responde con un error 503.
+     *
+     * @param exchange Petición y respuesta HTTP.
+     * @throws IOException si no se puede responder.
+     * @return true si la petición se debe atender, false si ya se ha respondido con un error.
+     */
+    private boolean simulateNetwork(HttpExchange exchange) throws IOException {
+        long latency = minLatency == maxLatency ? minLatency : ThreadLocalRandom.current().nextLong(minLatency, maxLatency + 1);
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            failures.incrementAndGet();
+            exchange.getRequestBody().close();
+            respond(exchange, 503, "{\"error\":\"Service unavailable\"}");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve los objetos de una colección que coinciden con la consulta.
+     *
+     * @param path Ruta de la colección.
+     * @param query Parámetros de la consulta.
+     * @return Array JSON con los objetos.
+     */
+    private JsonArray get(String path, HashMap<String, String> query) {
+        JsonArray array = new JsonArray();
+        synchronized (collections) {
+            ArrayList<JsonObject> collection = collections.get(path);
+            if (collection != null) {
+                for (JsonObject object : collection) {
+                    if (matches(object, query)) {
+                        array.add(object);
+                    }
+                }
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Añade un objeto a una colección.
+     *
+     * @param path Ruta de la colección.
+     * @param body Cuerpo JSON recibido.
+     * @return El objeto añadido.
+     */
+    private String post(String path, String body) {
+        JsonObject object = JsonParser.parseString(body).getAsJsonObject();
+        synchronized (collections) {
+            collections.computeIfAbsent(path, key -> new ArrayList<>()).add(object);
+        }
+        return object.toString();
+    }
+
+    /**
+     * Elimina objetos de una colección: todos, uno por posición o los que coinciden con la consulta.
+     *
+     * @param path Ruta de la colección o de un elemento ("/coleccion/N").
+     * @param query Parámetros de la consulta.
+     * @return Mensaje JSON con el número de objetos eliminados.
+     */
+    private String delete(String path, HashMap<String, String> query) {
+        int removed = 0;
+        synchronized (collections) {
+            ArrayList<JsonObject> collection = collections.get(path);
+            if (collection != null) {
+                if (query.isEmpty()) {
+                    removed = collection.size();
+                    collection.clear();
+                } else {
+                    int before = collection.size();
+                    collection.removeIf(object -> matches(object, query));
+                    removed = before - collection.size();
+                }
+            } else {
+                int slash = path.lastIndexOf('/');
+                collection = collections.get(path.substring(0, slash));
+                try {
+                    int index = Integer.parseInt(path.substring(slash + 1));
+                    if (collection != null && index >= 0 && index < collection.size()) {
+                        collection.remove(index);
+                        removed = 1;
+                    }
+                } catch (NumberFormatException e) {
+                    removed = 0;
+                }
+            }
+        }
+        return "{\"deleted\":" + removed + "}";
+    }
+
+    /**
+     * Comprueba si un objeto tiene, como texto, todos los valores pedidos en la consulta.
+     *
+     * @param object Objeto de la colección.
+     * @param query Parámetros de la consulta.
+     * @return true si coincide con todos los parámetros.
+     */
+    private boolean matches(JsonObject object, HashMap<String, String> query) {
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            JsonElement value = object.get(entry.getKey());
+            if (value == null || !value.isJsonPrimitive() || !value.getAsString().equals(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Separa los parámetros de la consulta.
+     *
+     * @param rawQuery Consulta sin decodificar (puede ser null).
+     * @return Mapa de parámetro a valor decodificado.
+     */
+    private HashMap<String, String> parseQuery(String rawQuery) {
+        HashMap<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals == -1 ? pair : pair.substring(0, equals);
+            String value = equals == -1 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Lee el cuerpo entero de la petición.
+     *
+     * @param body Flujo del cuerpo.
+     * @throws IOException si no se puede leer.
+     * @return El cuerpo como texto.
+     */
+    private String readBody(InputStream body) throws IOException {
+        try (body) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Envía la respuesta de un GET con su ETag (el hash del contenido), o 304 si coincide con el If-None-Match recibido.
+     *
+     * @param exchange Petición y respuesta HTTP.
+     * @param body Cuerpo JSON de la respuesta.
+     * @throws IOException si no se puede enviar.
+     */
+    private void respondGet(HttpExchange exchange, String body) throws IOException {
+        String etag = CachingCloudClient.contentHash(body);
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        respond(exchange, 200, body);
+    }
+
+    /**
+     * Envía la respuesta.
+     *
+     * @param exchange Petición y respuesta HTTP.
+     * @param status Código HTTP.
+     * @param body Cuerpo JSON de la respuesta.
+     * @throws IOException si no se puede enviar.
+     */
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package Persistance.CloudPersistance;
+
+import edu.salle.url.api.exception.ApiException;
+import edu.salle.url.api.exception.ConnectionInterruptedException;
+import edu.salle.url.api.exception.MalformedUrlException;
+import edu.salle.url.api.exception.UnreachableServerException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Clase que implementa la interfaz CloudClient con el HttpClient de Java, para servidores distintos de balandrau
+ * (el ApiHelper siempre comprueba balandrau al crearse). Lanza las mismas excepciones que el ApiHelper
+ * y, además, trata las respuestas con código de error como un servidor no disponible.
+ * @author alberto.marquillas i marc.viñas
+ */
+public final class HttpCloudClient implements CloudClient {
+
+    private final HttpClient client;
+
+    /**
+     * Constructor de la clase HttpCloudClient. Comprueba que el servidor responde pidiendo la URL base.
+     *
+     * @param baseUrl URL base de la API.
+     * @throws ApiException si el servidor no está disponible.
+     */
+    public HttpCloudClient(String baseUrl) throws ApiException {
+        this.client = HttpClient.newHttpClient();
+        getFromUrl(baseUrl);
+    }
+
+    /**
+     * Hace una petición GET con el HttpClient.
+     *
+     * @param url URL completa del recurso.
+     * @throws ApiException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String getFromUrl(String url) throws ApiException {
+        return send(url, builder(url).GET()).body();
+    }
+
+    /**
+     * Hace una petición GET condicional con el HttpClient.
+     *
+     * @param url URL completa del recurso.
+     * @param etag Validador (ETag) de la última respuesta conocida.
+     * @throws ApiException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta, o null si el servidor responde 304 Not Modified.
+     */
+    @Override
+    public String getIfNoneMatch(String url, String etag) throws ApiException {
+        HttpResponse<String> response = send(url, builder(url).header("If-None-Match", etag).GET());
+        if (response.statusCode() == 304) {
+            return null;
+        }
+        return response.body();
+    }
+
+    /**
+     * Hace una petición POST con el HttpClient.
+     *
+     * @param url URL completa de la colección.
+     * @param content Cuerpo JSON de la petición.
+     * @throws ApiException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String postToUrl(String url, String content) throws ApiException {
+        return send(url, builder(url).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(content))).body();
+    }
+
+    /**
+     * Hace una petición DELETE con el HttpClient.
+     *
+     * @param url URL completa del recurso o de la colección.
+     * @throws ApiException si la petición no se puede completar.
+     * @return Cuerpo de la respuesta.
+     */
+    @Override
+    public String deleteFromUrl(String url) throws ApiException {
+        return send(url, builder(url).DELETE()).body();
+    }
+
+    /**
+     * Crea la petición para la URL indicada.
+     *
+     * @param url URL de la petición.
+     * @throws ApiException si la URL no es válida.
+     * @return Constructor de la petición.
+     */
+    private HttpRequest.Builder builder(String url) throws ApiException {
+        try {
+            return HttpRequest.newBuilder().uri(new URI(url));
+        } catch (URISyntaxException e) {
+            throw new MalformedUrlException(url, e);
+        }
+    }
+
+    /**
+     * Envía la petición y devuelve la respuesta.
+     *
+     * @param url URL de la petición (para los mensajes de error).
+     * @param builder Petición que se enviará.
+     * @throws ApiException si la petición falla o el servidor responde con un código de error.
+     * @return Respuesta del servidor.
+     */
+    private HttpResponse<String> send(String url, HttpRequest.Builder builder) throws ApiException {
+        try {
+            HttpResponse<String> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                throw new UnreachableServerException(url, new IOException("HTTP " + response.statusCode()));
+            }
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionInterruptedException(url, e);
+        } catch (ApiException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UnreachableServerException(url, e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package Persistance.CloudPersistance;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Clase que guarda el resultado de una subida masiva registro a registro:
+ * qué registros se han publicado y, para los que han fallado, el error correspondiente.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class UploadResult {
+
+    private final IOException[] errors;
+    private final boolean[] uploaded;
+
+    /**
+     * Constructor de la clase UploadResult. Inicialmente ningún registro está subido.
+     *
+     * @param size Número de registros de la subida.
+     */
+    public UploadResult(int size) {
+        this.errors = new IOException[size];
+        this.uploaded = new boolean[size];
+    }
+
+    /**
+     * Marca un registro como subido.
+     *
+     * @param index Posición del registro en la lista subida.
+     */
+    void setUploaded(int index) {
+        uploaded[index] = true;
+    }
+
+    /**
+     * Marca un registro como fallido.
+     *
+     * @param index Posición del registro en la lista subida.
+     * @param error Error producido al subirlo.
+     */
+    void setFailed(int index, IOException error) {
+        uploaded[index] = false;
+        errors[index] = error;
+    }
+
+    /**
+     * Obtiene el número de registros de la subida.
+     *
+     * @return Número de registros.
+     */
+    public int size() {
+        return uploaded.length;
+    }
+
+    /**
+     * Comprueba si un registro concreto se ha subido.
+     *
+     * @param index Posición del registro en la lista subida.
+     * @return true si la API lo ha aceptado.
+     */
+    public boolean isUploaded(int index) {
+        return uploaded[index];
+    }
+
+    /**
+     * Obtiene el error de un registro que no se ha subido.
+     *
+     * @param index Posición del registro en la lista subida.
+     * @return El error, o null si el registro se ha subido o no llegó a enviarse.
+     */
+    public IOException getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * Obtiene el número de registros subidos.
+     *
+     * @return Número de registros aceptados por la API.
+     */
+    public int getUploaded() {
+        int count = 0;
+        for (boolean ok : uploaded) {
+            if (ok) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Obtiene las posiciones de los registros que no se han subido.
+     *
+     * @return Lista de posiciones fallidas, en orden.
+     */
+    public ArrayList<Integer> getFailed() {
+        ArrayList<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < uploaded.length; i++) {
+            if (!uploaded[i]) {
+                failed.add(i);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Comprueba si se han subido todos los registros.
+     *
+     * @return true si no ha fallado ninguno.
+     */
+    public boolean isComplete() {
+        return getUploaded() == uploaded.length;
+    }
+}
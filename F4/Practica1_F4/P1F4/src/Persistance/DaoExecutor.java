@@ -0,0 +1,60 @@
+package Persistance;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clase que ofrece el ejecutor dedicado en el que se hacen las llamadas asíncronas a los DAO,
+ * para que las lecturas y escrituras (ficheros o API) no bloqueen el hilo de la consola.
+ * Los hilos son daemon, así que no impiden que el programa termine.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class DaoExecutor {
+
+    public static final String THREADS_PROPERTY = "dao.threads";
+    public static final int DEFAULT_THREADS = 4;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(getThreads(), runnable -> {
+        Thread thread = new Thread(runnable, "dao-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructor privado: la clase solo ofrece métodos estáticos.
+     */
+    private DaoExecutor() {}
+
+    /**
+     * Obtiene el número de hilos del ejecutor (propiedad "dao.threads", por defecto DEFAULT_THREADS).
+     *
+     * @return Número de hilos, como mínimo 1.
+     */
+    public static int getThreads() {
+        return Math.max(1, Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS));
+    }
+
+    /**
+     * Ejecuta una llamada en el ejecutor de los DAO.
+     * Si la llamada lanza una excepción (por ejemplo una IOException), el futuro termina con esa excepción.
+     *
+     * @param call Llamada que se ejecutará.
+     * @param <T> Tipo del resultado.
+     * @return Futuro con el resultado de la llamada.
+     */
+    public static <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        EXECUTOR.execute(() -> {
+            try {
+                future.complete(call.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,142 @@
+package Persistance;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Clase que lee y escribe los ficheros JSON de los DAO en cualquiera de los formatos de StorageEncoding.
+ * Un fichero "x.json" puede estar guardado como "x.json" (con o sin sangrías) o como "x.json.gz";
+ * al leer se usa el que exista (el más reciente si están los dos) y se detecta gzip por su número mágico.
+ * Las escrituras pasan por un fichero temporal que se renombra, así que el fichero nunca queda a medias.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class JsonStorage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Constructor privado: la clase solo ofrece métodos estáticos.
+     */
+    private JsonStorage() {}
+
+    /**
+     * Obtiene la ruta de la versión comprimida de un fichero JSON.
+     *
+     * @param path Ruta del fichero JSON ("x.json").
+     * @return Ruta "x.json.gz".
+     */
+    public static Path gzipPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".gz");
+    }
+
+    /**
+     * Obtiene el fichero que hay que leer para un fichero JSON: el ".json", el ".json.gz" o, si existen los dos, el más reciente.
+     *
+     * @param path Ruta del fichero JSON ("x.json").
+     * @throws FileNotFoundException si no existe ninguno de los dos.
+     * @return Ruta del fichero existente.
+     */
+    public static Path resolve(Path path) throws FileNotFoundException {
+        Path gzip = gzipPath(path);
+        boolean plain = Files.exists(path);
+        boolean compressed = Files.exists(gzip);
+
+        if (plain && compressed) {
+            try {
+                return Files.getLastModifiedTime(gzip).compareTo(Files.getLastModifiedTime(path)) > 0 ? gzip : path;
+            } catch (IOException e) {
+                return path;
+            }
+        } else if (plain) {
+            return path;
+        } else if (compressed) {
+            return gzip;
+        }
+        throw new FileNotFoundException(path.toString());
+    }
+
+    /**
+     * Abre un fichero JSON para leerlo, descomprimiéndolo si está guardado con gzip.
+     *
+     * @param path Ruta del fichero JSON ("x.json").
+     * @throws FileNotFoundException si no existe ni el ".json" ni el ".json.gz".
+     * @throws IOException si el fichero no se puede abrir.
+     * @return Lector de texto UTF-8 con el contenido JSON.
+     */
+    public static Reader newReader(Path path) throws IOException {
+        Path file = resolve(path);
+        InputStream in;
+        try {
+            in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(file.toString());
+        }
+
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Escribe un objeto como JSON con el formato indicado y elimina la versión del fichero en el otro formato, si existe.
+     *
+     * @param path Ruta del fichero JSON ("x.json"); con GZIP se escribe "x.json.gz".
+     * @param src Objeto que se escribirá.
+     * @param type Tipo del objeto (por ejemplo PersistanceGson.SHOP_LIST).
+     * @param encoding Formato del fichero.
+     * @throws IOException si no se puede escribir.
+     */
+    public static void write(Path path, Object src, Type type, StorageEncoding encoding) throws IOException {
+        write(path, src, type, encoding, PersistanceGson.gson());
+    }
+
+    /**
+     * Escribe un objeto como JSON con el Gson indicado (y, por lo tanto, con sus adaptadores) y el formato indicado,
+     * y elimina la versión del fichero en el otro formato, si existe.
+     *
+     * @param path Ruta del fichero JSON ("x.json"); con GZIP se escribe "x.json.gz".
+     * @param src Objeto que se escribirá.
+     * @param type Tipo del objeto (por ejemplo PersistanceGson.SHOP_LIST).
+     * @param encoding Formato del fichero; con PRETTY se escribe con sangrías aunque el Gson sea compacto.
+     * @param gson Gson con el que se serializa el objeto.
+     * @throws IOException si no se puede escribir.
+     */
+    public static void write(Path path, Object src, Type type, StorageEncoding encoding, Gson gson) throws IOException {
+        Path target = encoding == StorageEncoding.GZIP ? gzipPath(path) : path;
+        Path other = encoding == StorageEncoding.GZIP ? path : gzipPath(path);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        OutputStream out = Files.newOutputStream(tmp);
+        out = encoding == StorageEncoding.GZIP ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+        try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.setIndent(encoding == StorageEncoding.PRETTY ? "  " : "");
+            gson.toJson(src, type, writer);
+        }
+
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(other);
+    }
+}
@@ -0,0 +1,556 @@
+package Persistance.KVPersistance;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * Clase que implementa un almacén clave-valor embebido en un único fichero, sin servidor.
+ * El fichero es un registro en el que solo se añade: cada escritura (alta, modificación o baja) es un registro nuevo
+ * al final, y en memoria se guarda un índice con la posición del valor vigente de cada clave.
+ * Así, leer o escribir una clave cuesta un acceso al fichero, sea cual sea el número de claves.
+ * Cuando los registros obsoletos ocupan más que los vigentes, el fichero se reescribe solo con estos (compactación).
+ * Cada registro lleva un CRC32: al abrir, si el último registro quedó escrito a medias se descarta; si hay un registro
+ * dañado en medio del fichero, no se abre el almacén, para no perder los registros que vienen detrás.
+ * Las claves se recorren en el orden en que se dieron de alta, igual que en los ficheros JSON.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class KVStore {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_SIZE = 4 + 1 + 4 + 4;
+    private static final long COMPACTION_MIN_BYTES = 64 * 1024;
+
+    private static final HashMap<Path, KVStore> OPEN = new HashMap<>();
+
+    private final Path path;
+    private FileChannel channel;
+    private final LinkedHashMap<String, Location> index;
+    private long end;
+    private long liveBytes;
+
+    /**
+     * Interfaz con la que se llena un almacén recién creado (por ejemplo, migrando los datos de los ficheros JSON).
+     */
+    @FunctionalInterface
+    public interface Seed {
+
+        /**
+         * Escribe los datos iniciales en el almacén.
+         *
+         * @param store Almacén vacío recién creado.
+         * @throws IOException si no se pueden obtener o escribir los datos.
+         */
+        void seed(KVStore store) throws IOException;
+    }
+
+    /**
+     * Clase que guarda dónde está el valor vigente de una clave y cuánto ocupa su registro.
+     */
+    private static class Location {
+        private final long valueOffset;
+        private final int valueLength;
+        private final int recordLength;
+
+        /**
+         * Constructor de la clase Location.
+         *
+         * @param valueOffset Posición del valor en el fichero.
+         * @param valueLength Longitud del valor en bytes.
+         * @param recordLength Longitud del registro entero en bytes.
+         */
+        private Location(long valueOffset, int valueLength, int recordLength) {
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.recordLength = recordLength;
+        }
+    }
+
+    /**
+     * Constructor de la clase KVStore. Abre (o crea) el fichero y reconstruye el índice leyendo sus registros.
+     *
+     * @param path Ruta del fichero del almacén.
+     * @throws IOException si el fichero no se puede abrir o leer, o tiene un registro dañado en medio.
+     */
+    private KVStore(Path path) throws IOException {
+        this.path = path;
+        this.index = new LinkedHashMap<>();
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre el almacén de un fichero. Todos los DAO que abren el mismo fichero comparten la misma instancia,
+     * de modo que el índice en memoria siempre coincide con el fichero.
+     * Si el fichero no existía, se crea y se llena con seed.
+     *
+     * @param path Ruta del fichero del almacén.
+     * @param seed Datos iniciales para un almacén nuevo (puede ser null).
+     * @throws IOException si el fichero no se puede abrir o no se pueden escribir los datos iniciales.
+     * @return El almacén abierto.
+     */
+    public static synchronized KVStore open(Path path, Seed seed) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        KVStore store = OPEN.get(key);
+        if (store != null) {
+            return store;
+        }
+
+        boolean created = !Files.exists(key);
+        store = new KVStore(key);
+        if (created && seed != null) {
+            try {
+                seed.seed(store);
+            } catch (IOException | RuntimeException e) {
+                store.channel.close();
+                Files.deleteIfExists(key);
+                throw e;
+            }
+        }
+        OPEN.put(key, store);
+        return store;
+    }
+
+    /**
+     * Lee el valor de una clave.
+     *
+     * @param key Clave.
+     * @throws IOException si no se puede leer el fichero.
+     * @return El valor, o null si la clave no existe.
+     */
+    public synchronized String get(String key) throws IOException {
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        return read(location);
+    }
+
+    /**
+     * Indica si existe una clave.
+     *
+     * @param key Clave.
+     * @return true si la clave existe, false en caso contrario.
+     */
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Obtiene todas las claves, en el orden en que se dieron de alta.
+     *
+     * @return Lista con las claves.
+     */
+    public synchronized ArrayList<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Lee todos los valores, en el orden en que se dieron de alta sus claves.
+     *
+     * @throws IOException si no se puede leer el fichero.
+     * @return Lista con los valores.
+     */
+    public synchronized ArrayList<String> values() throws IOException {
+        ArrayList<String> values = new ArrayList<>(index.size());
+        for (Location location : index.values()) {
+            values.add(read(location));
+        }
+        return values;
+    }
+
+    /**
+     * Obtiene el número de claves.
+     *
+     * @return Número de claves del almacén.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Escribe el valor de una clave, añadiendo un único registro al final del fichero.
+     * Si la clave ya existía, conserva su posición en el orden de las claves.
+     *
+     * @param key Clave.
+     * @param value Valor.
+     * @throws IOException si no se puede escribir.
+     */
+    public synchronized void put(String key, String value) throws IOException {
+        LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+        entries.put(key, value);
+        putAll(entries);
+    }
+
+    /**
+     * Escribe varias claves con una sola escritura en el fichero.
+     *
+     * @param entries Claves y valores que se escribirán, en orden.
+     * @throws IOException si no se puede escribir.
+     */
+    public synchronized void putAll(Map<String, String> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        ArrayList<byte[]> keys = new ArrayList<>(entries.size());
+        ArrayList<byte[]> values = new ArrayList<>(entries.size());
+        int total = 0;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = entry.getValue().getBytes(StandardCharsets.UTF_8);
+            keys.add(key);
+            values.add(value);
+            total += HEADER_SIZE + key.length + value.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (int i = 0; i < keys.size(); i++) {
+            encode(buffer, PUT, keys.get(i), values.get(i));
+        }
+        long start = append(buffer);
+
+        long position = start;
+        int i = 0;
+        for (String key : entries.keySet()) {
+            int recordLength = HEADER_SIZE + keys.get(i).length + values.get(i).length;
+            Location location = new Location(position + HEADER_SIZE + keys.get(i).length, values.get(i).length, recordLength);
+            Location previous = index.put(key, location);
+            if (previous != null) {
+                liveBytes -= previous.recordLength;
+            }
+            liveBytes += recordLength;
+            position += recordLength;
+            i++;
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Cambia las claves que no siguen la forma indicada (por ejemplo, las que no están en minúsculas) por su nueva forma,
+     * con una escritura de las claves nuevas y otra de las bajas de las antiguas. Si la clave nueva ya existe, se conserva
+     * su valor y solo se borra la antigua. Si el programa se cierra entre las dos escrituras, la siguiente llamada termina
+     * el cambio. Si todas las claves ya tienen su forma, no escribe nada.
+     *
+     * @param rename Función que da la nueva forma de cada clave.
+     * @throws IOException si no se puede escribir.
+     * @return Número de claves antiguas borradas.
+     */
+    public synchronized int renameKeys(UnaryOperator<String> rename) throws IOException {
+        LinkedHashMap<String, String> renamed = new LinkedHashMap<>();
+        ArrayList<String> old = new ArrayList<>();
+        for (String key : keys()) {
+            String newKey = rename.apply(key);
+            if (!newKey.equals(key)) {
+                old.add(key);
+                if (!index.containsKey(newKey) && !renamed.containsKey(newKey)) {
+                    renamed.put(newKey, get(key));
+                }
+            }
+        }
+        putAll(renamed);
+        return deleteAll(old);
+    }
+
+    /**
+     * Borra una clave, añadiendo un registro de baja al final del fichero.
+     *
+     * @param key Clave.
+     * @throws IOException si no se puede escribir.
+     * @return true si la clave existía, false en caso contrario.
+     */
+    public synchronized boolean delete(String key) throws IOException {
+        return deleteAll(Collections.singletonList(key)) > 0;
+    }
+
+    /**
+     * Borra varias claves con una sola escritura en el fichero. Las claves que no existen se ignoran.
+     *
+     * @param keys Claves que se borrarán.
+     * @throws IOException si no se puede escribir.
+     * @return Número de claves que existían y se han borrado.
+     */
+    public synchronized int deleteAll(Collection<String> keys) throws IOException {
+        ArrayList<byte[]> deleted = new ArrayList<>();
+        int total = 0;
+        for (String key : keys) {
+            if (index.containsKey(key)) {
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                deleted.add(bytes);
+                total += HEADER_SIZE + bytes.length;
+            }
+        }
+        if (deleted.isEmpty()) {
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (byte[] key : deleted) {
+            encode(buffer, DELETE, key, new byte[0]);
+        }
+        append(buffer);
+
+        int count = 0;
+        for (String key : keys) {
+            Location previous = index.remove(key);
+            if (previous != null) {
+                liveBytes -= previous.recordLength;
+                count++;
+            }
+        }
+        compactIfNeeded();
+        return count;
+    }
+
+    /**
+     * Reescribe el fichero solo con los registros vigentes, mediante un fichero temporal que se renombra.
+     * Si el renombrado falla, el almacén sigue abierto sobre el fichero anterior, que no ha cambiado.
+     *
+     * @throws IOException si no se puede reescribir.
+     */
+    public synchronized void compact() throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        LinkedHashMap<String, Location> compacted = new LinkedHashMap<>();
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] value = read(entry.getValue()).getBytes(StandardCharsets.UTF_8);
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + key.length + value.length);
+                encode(buffer, PUT, key, value);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                compacted.put(entry.getKey(), new Location(position + HEADER_SIZE + key.length, value.length, buffer.limit()));
+                position += buffer.limit();
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        boolean moved = false;
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (!moved) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        index.clear();
+        index.putAll(compacted);
+        end = channel.size();
+        liveBytes = end;
+    }
+
+    /**
+     * Obtiene el tamaño actual del fichero.
+     *
+     * @return Tamaño en bytes.
+     */
+    public synchronized long fileSize() {
+        return end;
+    }
+
+    /**
+     * Compacta el fichero si los registros obsoletos ya ocupan más que los vigentes (y un mínimo).
+     *
+     * @throws IOException si no se puede reescribir.
+     */
+    private void compactIfNeeded() throws IOException {
+        long dead = end - liveBytes;
+        if (dead > COMPACTION_MIN_BYTES && dead > liveBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Añade registros al final del fichero.
+     *
+     * @param buffer Registros codificados (se escriben desde el principio hasta la posición actual).
+     * @throws IOException si no se puede escribir.
+     * @return Posición del fichero en la que empiezan los registros.
+     */
+    private long append(ByteBuffer buffer) throws IOException {
+        long start = end;
+        buffer.flip();
+        long position = start;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        end = position;
+        return start;
+    }
+
+    /**
+     * Lee un valor del fichero.
+     *
+     * @param location Posición y longitud del valor.
+     * @throws IOException si no se puede leer.
+     * @return El valor.
+     */
+    private String read(Location location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+        long position = location.valueOffset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException(path.toString());
+            }
+            position += read;
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Codifica un registro: CRC32, tipo, longitud de la clave, longitud del valor, clave y valor.
+     *
+     * @param buffer Buffer en el que se escribe el registro.
+     * @param type Tipo del registro (PUT o DELETE).
+     * @param key Clave en UTF-8.
+     * @param value Valor en UTF-8 (vacío en las bajas).
+     */
+    private static void encode(ByteBuffer buffer, byte type, byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(key);
+        crc.update(value);
+
+        buffer.putInt((int) crc.getValue());
+        buffer.put(type);
+        buffer.putInt(key.length);
+        buffer.putInt(value.length);
+        buffer.put(key);
+        buffer.put(value);
+    }
+
+    /**
+     * Reconstruye el índice leyendo el fichero de principio a fin.
+     * Si el último registro está incompleto, llega justo al final del fichero con el CRC incorrecto o el fichero acaba
+     * en ceros (una escritura interrumpida), trunca el fichero allí. Un registro dañado seguido de más datos no puede venir de una escritura
+     * interrumpida, así que no se trunca nada y se lanza una excepción.
+     *
+     * @throws IOException si no se puede leer el fichero o tiene un registro dañado en medio.
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        long position = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            while (position + HEADER_SIZE <= size) {
+                int storedCrc = in.readInt();
+                byte type = in.readByte();
+                int keyLength = in.readInt();
+                int valueLength = in.readInt();
+                if (keyLength < 0 || valueLength < 0 || (type != PUT && type != DELETE)) {
+                    if (zeroesFrom(position, size)) {
+                        break;
+                    }
+                    throw corrupted(position);
+                }
+                if (position + HEADER_SIZE + keyLength + valueLength > size) {
+                    break;
+                }
+
+                byte[] key = new byte[keyLength];
+                byte[] value = new byte[valueLength];
+                in.readFully(key);
+                in.readFully(value);
+
+                CRC32 crc = new CRC32();
+                crc.update(type);
+                crc.update(key);
+                crc.update(value);
+                int recordLength = HEADER_SIZE + keyLength + valueLength;
+                if ((int) crc.getValue() != storedCrc) {
+                    if (position + recordLength < size) {
+                        throw corrupted(position);
+                    }
+                    break;
+                }
+
+                String name = new String(key, StandardCharsets.UTF_8);
+                Location previous = type == PUT
+                        ? index.put(name, new Location(position + HEADER_SIZE + keyLength, valueLength, recordLength))
+                        : index.remove(name);
+                if (previous != null) {
+                    liveBytes -= previous.recordLength;
+                }
+                if (type == PUT) {
+                    liveBytes += recordLength;
+                }
+                position += recordLength;
+            }
+        } catch (EOFException e) {
+            // El último registro está incompleto: se descarta a partir de position.
+        }
+
+        if (position < size) {
+            channel.truncate(position);
+        }
+        end = position;
+    }
+
+    /**
+     * Comprueba si el fichero solo tiene ceros desde una posición hasta el final, como cuando el sistema ha reservado
+     * el espacio de una escritura que no se llegó a hacer.
+     *
+     * @param position Posición desde la que se comprueba.
+     * @param size Tamaño del fichero.
+     * @throws IOException si no se puede leer el fichero.
+     * @return true si todos los bytes desde position son 0.
+     */
+    private boolean zeroesFrom(long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) != 0) {
+                    return false;
+                }
+            }
+            position += read;
+        }
+        return true;
+    }
+
+    /**
+     * Crea la excepción de un registro dañado en medio del fichero.
+     *
+     * @param position Posición del registro.
+     * @return La excepción.
+     */
+    private IOException corrupted(long position) {
+        return new IOException("Almacén " + path + " dañado: registro no válido en la posición " + position);
+    }
+}
@@ -0,0 +1,88 @@
+package Persistance;
+
+import Business.Entities.BusinessModel;
+import Business.Entities.Product;
+import Business.Entities.ProductCatalog;
+import Business.Entities.Shop;
+import Persistance.ProductPersistance.ProductTypeAdapter;
+import Persistance.ShopPersistance.BusinessModelTypeAdapter;
+import Persistance.ShopPersistance.NormalizedCatalogTypeAdapter;
+import Persistance.ShopPersistance.ProductCatalogTypeAdapter;
+import Persistance.ShopPersistance.ShopTypeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.function.Function;
+
+/**
+ * Clase que ofrece las instancias de Gson compartidas por todos los DAO (ficheros JSON y API), con los adaptadores
+ * de Product, BusinessModel, ProductCatalog y Shop registrados, de modo que ni la lectura ni la escritura usan reflexión.
+ * Gson es seguro entre hilos, así que se crean una sola vez.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class PersistanceGson {
+
+    public static final Type PRODUCT_LIST = new TypeToken<ArrayList<Product>>() {}.getType();
+    public static final Type SHOP_LIST = new TypeToken<ArrayList<Shop>>() {}.getType();
+
+    private static final Gson GSON = builder(null).create();
+    private static final Gson PRETTY_GSON = builder(null).setPrettyPrinting().create();
+
+    /**
+     * Constructor privado: la clase solo ofrece métodos estáticos.
+     */
+    private PersistanceGson() {}
+
+    /**
+     * Obtiene el Gson compacto (sin sangrías), usado para la API y el diario de productos.
+     *
+     * @return Instancia de Gson compartida.
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * Obtiene el Gson con sangrías, usado para los ficheros JSON.
+     *
+     * @return Instancia de Gson compartida.
+     */
+    public static Gson prettyGson() {
+        return PRETTY_GSON;
+    }
+
+    /**
+     * Crea un Gson (compacto) que guarda los catálogos de las tiendas como referencias a los productos
+     * (nombre y precio) en lugar de copiarlos enteros, y que al leerlos los resuelve con la función indicada.
+     *
+     * @param resolver Función que devuelve el producto del catálogo general con un nombre, o null si no existe.
+     * @return Nueva instancia de Gson.
+     */
+    public static Gson normalizedGson(Function<String, Product> resolver) {
+        return builder(resolver).create();
+    }
+
+    /**
+     * Crea un GsonBuilder con todos los adaptadores registrados.
+     *
+     * @param resolver Si no es null, los catálogos se guardan como referencias y se resuelven con esta función.
+     * @return El GsonBuilder configurado.
+     */
+    private static GsonBuilder builder(Function<String, Product> resolver) {
+        ProductTypeAdapter productAdapter = new ProductTypeAdapter();
+        BusinessModelTypeAdapter businessModelAdapter = new BusinessModelTypeAdapter();
+        TypeAdapter<ProductCatalog> productCatalogAdapter = resolver == null
+                ? new ProductCatalogTypeAdapter(productAdapter)
+                : new NormalizedCatalogTypeAdapter(productAdapter, resolver);
+
+        return new GsonBuilder()
+                .registerTypeHierarchyAdapter(Product.class, productAdapter)
+                .registerTypeHierarchyAdapter(BusinessModel.class, businessModelAdapter)
+                .registerTypeAdapter(ProductCatalog.class, productCatalogAdapter)
+                .registerTypeAdapter(Shop.class, new ShopTypeAdapter(businessModelAdapter, productCatalogAdapter));
+    }
+}
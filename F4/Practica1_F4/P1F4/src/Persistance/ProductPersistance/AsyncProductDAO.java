@@ -0,0 +1,70 @@
+package Persistance.ProductPersistance;
+
+import Business.Entities.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interfaz que define las operaciones de acceso a datos para productos de forma asíncrona:
+ * cada operación devuelve enseguida un CompletableFuture, que termina con el resultado (o con la excepción) de ProductDAO.
+ * @author alberto.marquillas i marc.viñas
+ */
+public interface AsyncProductDAO {
+
+    /**
+     * Lee todos los productos almacenados.
+     *
+     * @return Futuro con el ArrayList que contiene todos los productos almacenados.
+     */
+    CompletableFuture<ArrayList<Product>> readAll();
+
+    /**
+     * Actualiza la información de un producto.
+     *
+     * @param product Producto que se actualizará.
+     * @return Futuro con true si la actualización fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> update(Product product);
+
+    /**
+     * Elimina los productos almacenados que no aparecen en la lista recibida.
+     *
+     * @param products ArrayList de productos que se conservarán.
+     * @return Futuro con true si la eliminación fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> delete(ArrayList<Product> products);
+
+    /**
+     * Agrega un producto nuevo.
+     *
+     * @param product Producto que se agregará.
+     * @return Futuro con true si la adición fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> add(Product product);
+
+    /**
+     * Actualiza varios productos con una sola escritura en el almacenamiento.
+     *
+     * @param products Productos que se actualizarán.
+     * @return Futuro con true si la actualización fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> updateAll(Collection<Product> products);
+
+    /**
+     * Agrega varios productos nuevos con una sola escritura en el almacenamiento.
+     *
+     * @param products Productos que se agregarán.
+     * @return Futuro con true si la adición fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> addAll(Collection<Product> products);
+
+    /**
+     * Elimina los productos con los nombres indicados con una sola escritura en el almacenamiento.
+     *
+     * @param names Nombres de los productos que se eliminarán.
+     * @return Futuro con true si la eliminación fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> deleteByNames(Collection<String> names);
+}
@@ -0,0 +1,103 @@
+package Persistance.ProductPersistance;
+
+import Business.Entities.Product;
+import Persistance.DaoExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Clase que implementa la interfaz AsyncProductDAO ejecutando las operaciones de un ProductDAO en el ejecutor dedicado
+ * de los DAO (DaoExecutor). El ProductDAO debe admitir llamadas desde varios hilos.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ExecutorProductDAO implements AsyncProductDAO {
+
+    private final ProductDAO productDAO;
+
+    /**
+     * Constructor de la clase ExecutorProductDAO.
+     *
+     * @param productDAO DAO al que se delegan las operaciones.
+     */
+    public ExecutorProductDAO(ProductDAO productDAO) {
+        this.productDAO = productDAO;
+    }
+
+    /**
+     * Lee todos los productos almacenados en el ejecutor de los DAO.
+     *
+     * @return Futuro con el ArrayList que contiene todos los productos almacenados.
+     */
+    @Override
+    public CompletableFuture<ArrayList<Product>> readAll() {
+        return DaoExecutor.submit(productDAO::readAll);
+    }
+
+    /**
+     * Actualiza la información de un producto en el ejecutor de los DAO.
+     *
+     * @param product Producto que se actualizará.
+     * @return Futuro con true si la actualización fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> update(Product product) {
+        return DaoExecutor.submit(() -> productDAO.update(product));
+    }
+
+    /**
+     * Elimina los productos que no aparecen en la lista recibida en el ejecutor de los DAO.
+     *
+     * @param products ArrayList de productos que se conservarán.
+     * @return Futuro con true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> delete(ArrayList<Product> products) {
+        return DaoExecutor.submit(() -> productDAO.delete(products));
+    }
+
+    /**
+     * Agrega un producto nuevo en el ejecutor de los DAO.
+     *
+     * @param product Producto que se agregará.
+     * @return Futuro con true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> add(Product product) {
+        return DaoExecutor.submit(() -> productDAO.add(product));
+    }
+
+    /**
+     * Actualiza varios productos en el ejecutor de los DAO.
+     *
+     * @param products Productos que se actualizarán.
+     * @return Futuro con true si la actualización fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> updateAll(Collection<Product> products) {
+        return DaoExecutor.submit(() -> productDAO.updateAll(products));
+    }
+
+    /**
+     * Agrega varios productos en el ejecutor de los DAO.
+     *
+     * @param products Productos que se agregarán.
+     * @return Futuro con true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> addAll(Collection<Product> products) {
+        return DaoExecutor.submit(() -> productDAO.addAll(products));
+    }
+
+    /**
+     * Elimina varios productos en el ejecutor de los DAO.
+     *
+     * @param names Nombres de los productos que se eliminarán.
+     * @return Futuro con true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> deleteByNames(Collection<String> names) {
+        return DaoExecutor.submit(() -> productDAO.deleteByNames(names));
+    }
+}
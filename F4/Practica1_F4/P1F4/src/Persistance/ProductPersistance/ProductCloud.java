@@ -1,40 +1,45 @@
 package Persistance.ProductPersistance;
 
-import Business.Entities.HerenciasProduct.General;
-import Business.Entities.HerenciasProduct.Reduced;
-import Business.Entities.HerenciasProduct.SuperReduced;
 import Business.Entities.Product;
 
+import Persistance.CloudPersistance.BulkUploader;
+import Persistance.CloudPersistance.CachingCloudClient;
+import Persistance.CloudPersistance.CloudConfig;
+import Persistance.CloudPersistance.UploadResult;
+import Persistance.PersistanceGson;
 import com.google.gson.*;
-import edu.salle.url.api.ApiHelper;
+import com.google.gson.stream.JsonReader;
 import edu.salle.url.api.exception.ApiException;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-
-import java.nio.file.Path;
-
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 
 /**
  * Clase que implementa la interfaz ProductDAO para la manipulación de datos de productos en la API.
+ * Las escrituras solo envían los productos que cambian (usando "?name=" para borrar uno concreto)
+ * en lugar de vaciar la colección y volver a subir todos los productos.
+ * Las lecturas pasan por una caché de respuestas (CachingCloudClient) para no descargar la colección en cada consulta.
  * @author alberto.marquillas i marc.viñas
  */
 public class ProductCloud implements ProductDAO{
 
-    private static Path path;
-    ApiHelper api;
+    CachingCloudClient api;
     String pathString;
 
     /**
-     * Constructor de la clase ProductCloud. Inicializa los campos path, pathString y api para interactuar con la API de productos.
+     * Constructor de la clase ProductCloud. Inicializa los campos pathString y api para interactuar con la API de productos.
      *
      * @throws ApiException si ocurre una excepción ApiException durante la inicialización.
      */
     public ProductCloud () throws ApiException {
-            path = Path.of("https//balandrau.salle.url.edu/dpoo/P1-G109/products");
-            pathString = "https://balandrau.salle.url.edu/dpoo/P1-G109/products";
-            this.api = new ApiHelper();
+            pathString = CloudConfig.collectionUrl("products");
+            this.api = new CachingCloudClient(CloudConfig.createClient(), CloudConfig.getCacheTtl());
     }
 
     /**
@@ -45,50 +50,43 @@ public class ProductCloud implements ProductDAO{
      */
     @Override
     public ArrayList<Product> readAll() throws FileNotFoundException {
-        ArrayList<Product> products = new ArrayList<>();
-        JsonArray array;
-        JsonObject obj;
-
-        String string = null;
         try {
-            string = api.getFromUrl(pathString);
-        } catch (ApiException e) {
+            String string = api.getFromUrl(pathString);
+            JsonReader reader = new JsonReader(new StringReader(string));
+            reader.setLenient(true);
+            ArrayList<Product> products = PersistanceGson.gson().fromJson(reader, PersistanceGson.PRODUCT_LIST);
+            if (products == null) {
+                throw new IOException("La API no ha devuelto una lista de productos");
+            }
+            return products;
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        JsonElement element = JsonParser.parseString(string);
-        array = element.getAsJsonArray();
-        for (JsonElement elem: array) {
-            obj = elem.getAsJsonObject();
-            String name = obj.get("name").getAsString();
-            String brand = obj.get("brand").getAsString();
-            float maxPrice = obj.get("maxPrice").getAsFloat();
-            String category = obj.get("category").getAsString();
-
-            JsonArray reviewsArray = obj.get("rating").getAsJsonArray();
-            ArrayList<String> reviews = new ArrayList<>();
-            if (!reviewsArray.isEmpty()) {
-                for (JsonElement rev : reviewsArray) {
-                    reviews.add(rev.getAsString());
-                }
-            }
-
-            Product product = null;
+    }
 
-            switch (category){
-                case "GENERAL" -> product = new General(name, brand, category, maxPrice, reviews);
-                case "REDUCED" -> product = new Reduced(name, brand, category, maxPrice, reviews);
-                case "SUPER_REDUCED" -> product = new SuperReduced(name, brand, category, maxPrice, reviews);
+    /**
+     * Busca un producto por su nombre (sin distinguir mayúsculas y minúsculas) en la colección de la API,
+     * que se sirve de la caché de respuestas.
+     *
+     * @param name Nombre del producto.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return El producto, o null si no existe.
+     */
+    @Override
+    public Product find(String name) throws FileNotFoundException {
+        for (Product product : readAll()) {
+            if (product.getName().equalsIgnoreCase(name)) {
+                return product;
             }
-
-            products.add(product);
         }
-
-        return products;
-
+        return null;
     }
 
     /**
      * Actualiza la información de los productos proporcionados en la API.
+     * Solo se reemplaza el producto modificado: se elimina por nombre y se vuelve a publicar con las nuevas calificaciones.
+     * El borrado por nombre también borraría la nueva versión, así que no se puede publicar primero; en su lugar,
+     * si la publicación falla después del borrado se vuelve a publicar la versión anterior.
      *
      * @param product producto que se actualizará.
      * @throws IOException - IOException
@@ -96,67 +94,66 @@ public class ProductCloud implements ProductDAO{
      */
     @Override
     public boolean update(Product product) throws IOException {
-        int flag = 0;
         ArrayList<Product> products = readAll();
 
-
-
-        api.deleteFromUrl(pathString);
-
-
-
         for (Product prod: products) {
             if (prod.getName().equalsIgnoreCase(product.getName())) {
+                String previous = PersistanceGson.gson().toJson(prod, Product.class);
                 prod.setAllRating(product.getRating());
-            }
-            try {
-                Gson gson = new GsonBuilder().setPrettyPrinting().create();
-                if (api.postToUrl(pathString, gson.toJson(prod)) != null) {
-                    flag++;
+                try {
+                    api.deleteFromUrl(CloudConfig.recordUrl(pathString, prod.getName()));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return false;
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
+                try {
+                    if (api.postToUrl(pathString, PersistanceGson.gson().toJson(prod, Product.class)) != null) {
+                        return true;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                restore(List.of(previous));
+                return false;
             }
         }
-        if (flag == products.size()){
-            return true;
-        }
         return false;
     }
 
     /**
      * Elimina los productos proporcionados en la API.
+     * La lista recibida contiene los productos que se conservan, así que se borran por nombre
+     * los productos almacenados que no aparecen en ella.
      *
-     * @param products ArrayList de productos que se eliminarán.
+     * @param products ArrayList de productos que se conservan.
      * @throws IOException - IOException
      * @return true si la eliminación fue exitosa, false en caso contrario.
      */
     @Override
     public boolean delete(ArrayList<Product> products) throws IOException {
-        int flag = 0;
-        if(products.size() == 0) {
-            api.deleteFromUrl(pathString + "/" + 0);
-        }
+        HashSet<String> kept = new HashSet<>();
         for (Product product: products) {
-            String name = product.getName();
-            String s = pathString + "?name=" + name;
-            try {
-                if (api.deleteFromUrl(s) != null) {
-                    flag++;
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            kept.add(product.getName());
         }
 
-        if (flag == products.size()){
-            return true;
+        boolean deleted = true;
+        for (Product product: readAll()) {
+            if (!kept.contains(product.getName())) {
+                try {
+                    if (api.deleteFromUrl(CloudConfig.recordUrl(pathString, product.getName())) == null) {
+                        deleted = false;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    deleted = false;
+                }
+            }
         }
-        return false;
+        return deleted;
     }
 
     /**
-     * Agrega nuevos productos al sistema en la API.
+     * Agrega nuevos productos al sistema en la API, publicando únicamente el producto nuevo.
      *
      * @param product Producto que se agregará.
      * @throws IOException - IOException
@@ -164,23 +161,143 @@ public class ProductCloud implements ProductDAO{
      */
     @Override
     public boolean add(Product product) throws IOException {
-        int flag = 0;
-        ArrayList<Product> products = readAll();
-        products.add(product);
-        api.deleteFromUrl(pathString);
-        for (Product prod: products) {
+        try {
+            if (api.postToUrl(pathString, PersistanceGson.gson().toJson(product, Product.class)) != null) {
+                return true;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Actualiza varios productos en una sola pasada: una lectura de la colección y, para los productos que existen,
+     * los borrados por nombre y las nuevas publicaciones (con las nuevas calificaciones) concurrentemente.
+     * Solo se vuelven a publicar los productos que se han podido borrar, para no duplicarlos, y los que no se han podido
+     * volver a publicar se restauran con su versión anterior.
+     *
+     * @param updated Productos que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si se han actualizado todos los productos que existen, false en caso contrario.
+     */
+    @Override
+    public boolean updateAll(Collection<Product> updated) throws IOException {
+        HashMap<String, Product> stored = new HashMap<>();
+        for (Product prod : readAll()) {
+            stored.putIfAbsent(prod.getName().toLowerCase(), prod);
+        }
+
+        ArrayList<Product> matched = new ArrayList<>();
+        ArrayList<String> previous = new ArrayList<>();
+        ArrayList<String> urls = new ArrayList<>();
+        for (Product product : updated) {
+            Product prod = stored.get(product.getName().toLowerCase());
+            if (prod != null) {
+                previous.add(PersistanceGson.gson().toJson(prod, Product.class));
+                prod.setAllRating(product.getRating());
+                matched.add(prod);
+                urls.add(CloudConfig.recordUrl(pathString, prod.getName()));
+            }
+        }
+
+        BulkUploader uploader = new BulkUploader(api, CloudConfig.getMaxInFlight());
+        UploadResult deleted = uploader.delete(urls);
+        ArrayList<Product> replaced = new ArrayList<>();
+        ArrayList<String> replacedPrevious = new ArrayList<>();
+        for (int i = 0; i < matched.size(); i++) {
+            if (deleted.isUploaded(i)) {
+                replaced.add(matched.get(i));
+                replacedPrevious.add(previous.get(i));
+            }
+        }
+        UploadResult posted = uploader.upload(pathString, replaced);
+
+        ArrayList<String> lost = new ArrayList<>();
+        for (int i : posted.getFailed()) {
+            lost.add(replacedPrevious.get(i));
+        }
+        restore(lost);
+
+        return deleted.isComplete() && posted.isComplete();
+    }
+
+    /**
+     * Vuelve a publicar la versión anterior de los registros que se han borrado pero cuya nueva versión no se ha podido
+     * publicar, para que un POST fallido no los haga desaparecer de la API.
+     *
+     * @param previous Versiones anteriores de los registros, ya serializadas.
+     * @return true si se han vuelto a publicar todas, false en caso contrario.
+     */
+    private boolean restore(List<String> previous) {
+        boolean restored = true;
+        for (String record : previous) {
             try {
-                Gson gson = new GsonBuilder().setPrettyPrinting().create();
-                if (api.postToUrl(pathString, gson.toJson(prod)) != null) {
-                    flag++;
+                if (api.postToUrl(pathString, record) == null) {
+                    restored = false;
                 }
             } catch (IOException e) {
                 e.printStackTrace();
+                restored = false;
             }
         }
-        if (flag == products.size()){
-            return true;
+        return restored;
+    }
+
+    /**
+     * Agrega varios productos publicándolos concurrentemente (BulkUploader).
+     *
+     * @param added Productos que se agregarán.
+     * @throws IOException - IOException
+     * @return true si se han publicado todos, false en caso contrario.
+     */
+    @Override
+    public boolean addAll(Collection<Product> added) throws IOException {
+        return new BulkUploader(api, CloudConfig.getMaxInFlight()).upload(pathString, new ArrayList<>(added)).isComplete();
+    }
+
+    /**
+     * Elimina los productos con los nombres indicados (sin distinguir mayúsculas y minúsculas): una lectura de la colección
+     * y los borrados por nombre concurrentemente.
+     *
+     * @param names Nombres de los productos que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si se han borrado todos los productos que existían, false en caso contrario.
+     */
+    @Override
+    public boolean deleteByNames(Collection<String> names) throws IOException {
+        HashSet<String> deleted = new HashSet<>();
+        for (String name : names) {
+            deleted.add(name.toLowerCase());
         }
-        return false;
+        ArrayList<String> urls = new ArrayList<>();
+        for (Product product : readAll()) {
+            if (deleted.contains(product.getName().toLowerCase())) {
+                urls.add(CloudConfig.recordUrl(pathString, product.getName()));
+            }
+        }
+        return new BulkUploader(api, CloudConfig.getMaxInFlight()).delete(urls).isComplete();
+    }
+
+    /**
+     * Sustituye toda la colección de la API por los productos indicados: vacía la colección y los vuelve a publicar
+     * concurrentemente, con un máximo de CloudConfig.getMaxInFlight() peticiones en curso.
+     *
+     * @param products ArrayList con los productos que quedarán en la API.
+     * @throws IOException si no se puede vaciar la colección.
+     * @return Resultado de la subida registro a registro, para saber exactamente qué productos han fallado.
+     */
+    public UploadResult uploadAll(ArrayList<Product> products) throws IOException {
+        api.deleteFromUrl(pathString);
+        return new BulkUploader(api, CloudConfig.getMaxInFlight()).upload(pathString, products);
+    }
+
+    /**
+     * Obtiene la caché de respuestas de la API, para consultar cuántas peticiones se han ahorrado.
+     *
+     * @return La caché de respuestas de las productos.
+     */
+    public CachingCloudClient getResponseCache() {
+        return api;
     }
 }
@@ -5,6 +5,7 @@ import Business.Entities.Product;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * Interfaz que define las operaciones de acceso a datos para productos.
@@ -20,6 +21,15 @@ public interface ProductDAO {
      */
     ArrayList<Product> readAll() throws FileNotFoundException;
 
+    /**
+     * Busca un solo producto por su nombre, sin copiar la lista de todos los productos.
+     *
+     * @param name Nombre del producto.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return El producto, o null si no existe.
+     */
+    Product find(String name) throws FileNotFoundException;
+
     /**
      * Actualiza la información de los productos proporcionados.
      *
@@ -46,5 +56,33 @@ public interface ProductDAO {
      * @return true si la adición fue exitosa, false en caso contrario.
      */
     boolean add(Product product) throws IOException;
-}
 
+    /**
+     * Actualiza varios productos con una sola escritura en el almacenamiento.
+     * Los productos que no existen se ignoran.
+     *
+     * @param products Productos que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si la actualización fue exitosa, false en caso contrario.
+     */
+    boolean updateAll(Collection<Product> products) throws IOException;
+
+    /**
+     * Agrega varios productos nuevos con una sola escritura en el almacenamiento.
+     *
+     * @param products Productos que se agregarán.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    boolean addAll(Collection<Product> products) throws IOException;
+
+    /**
+     * Elimina los productos con los nombres indicados con una sola escritura en el almacenamiento.
+     * Los nombres que no existen se ignoran.
+     *
+     * @param names Nombres de los productos que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si la eliminación fue exitosa, false en caso contrario.
+     */
+    boolean deleteByNames(Collection<String> names) throws IOException;
+}
@@ -1,83 +1,546 @@
 package Persistance.ProductPersistance;
 
-import Business.Entities.HerenciasProduct.General;
-import Business.Entities.HerenciasProduct.Reduced;
-import Business.Entities.HerenciasProduct.SuperReduced;
 import Business.Entities.Product;
-import Business.Entities.Shop;
+import Persistance.JsonStorage;
+import Persistance.PersistanceGson;
+import Persistance.StorageEncoding;
 import com.google.gson.*;
 import com.google.gson.stream.JsonReader;
 
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Clase que implementa la interfaz ProductDAO para la manipulación de datos de productos en formato JSON.
+ * En modo diario (journaled) cada alta, modificación o baja se añade como un registro de una línea al final de
+ * "products.log" en lugar de reescribir "products.json"; las lecturas aplican el diario sobre el fichero de productos
+ * y un hilo en segundo plano lo compacta en un nuevo "products.json" cuando acumula demasiados registros.
  * @author alberto.marquillas i marc.viñas
  */
 public class ProductJSON implements ProductDAO {
 
+    private static final Path PATH = Paths.get("files/products.json");
+    private static final Path LOG_PATH = Paths.get("files/products.log");
+
+    private static final String ADD = "ADD";
+    private static final String UPDATE = "UPDATE";
+    private static final String DELETE = "DELETE";
+    private static final int COMPACTION_THRESHOLD = 64;
+
+    private static final Object LOCK = new Object();
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "products-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static boolean compactionPending = false;
+
+    private final boolean journaled;
+
+    private ArrayList<Product> cachedProducts;
+    private HashMap<String, Integer> cachedPositions;
+    private FileTime cachedModified;
+    private long cachedSize;
+    private FileTime cachedLogModified;
+    private long cachedLogSize;
+    private int logRecords;
+
     /**
      * Constructor from the ProductJSON class.
      * @throws FileNotFoundException - FileNotFoundException
      */
     public ProductJSON() throws FileNotFoundException {
-        JsonReader reader = new JsonReader(new FileReader("files/products.json"));
-        Gson gson = new Gson();
+        this(false);
+    }
+
+    /**
+     * Constructor de la clase ProductJSON que permite escoger el modo de escritura.
+     *
+     * @param journaled true para añadir cada cambio al diario "products.log", false para reescribir "products.json" entero.
+     * @throws FileNotFoundException - FileNotFoundException
+     */
+    public ProductJSON(boolean journaled) throws FileNotFoundException {
+        JsonStorage.resolve(PATH);
+        this.journaled = journaled;
     }
 
     /**
-     * Lee todos los productos almacenados en formato JSON.
+     * Lee todos los productos almacenados en formato JSON, aplicando los registros pendientes del diario si existe.
+     * Los ficheros solo se vuelven a parsear si su fecha de modificación o su tamaño han cambiado desde la última lectura,
+     * de modo que los cambios hechos desde fuera del programa se siguen detectando.
      *
      * @throws FileNotFoundException - FileNotFoundException
      * @return ArrayList que contiene todos los productos almacenados.
      */
     @Override
     public ArrayList<Product> readAll() throws FileNotFoundException {
-        ArrayList<Product> products = new ArrayList<>();
-        JsonArray array;
-        JsonObject obj;
-
-        FileReader file = new FileReader("files/products.json");
-        JsonElement element = JsonParser.parseReader(file);
-        if(!element.isJsonNull()) {
-            array = element.getAsJsonArray();
-            for (JsonElement elem: array) {
-                obj = elem.getAsJsonObject();
-                String name = obj.get("name").getAsString();
-                String brand = obj.get("brand").getAsString();
-                float maxPrice = obj.get("maxPrice").getAsFloat();
-                String category = obj.get("category").getAsString();
-
-                JsonArray reviewsArray = obj.get("rating").getAsJsonArray();
-                ArrayList<String> reviews = new ArrayList<>();
-                if (!reviewsArray.isEmpty()) {
-                    for (JsonElement rev : reviewsArray) {
-                        reviews.add(rev.getAsString());
+        synchronized (LOCK) {
+            ArrayList<Product> products = current();
+            if (products == null) {
+                return null;
+            }
+            return new ArrayList<>(products);
+        }
+    }
+
+    /**
+     * Busca un producto por su nombre en la lista en memoria (con el índice de posiciones), sin copiarla.
+     * Igual que readAll, antes se comprueba si el fichero o el diario han cambiado.
+     *
+     * @param name Nombre del producto.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return El producto, o null si no existe.
+     */
+    @Override
+    public Product find(String name) throws FileNotFoundException {
+        synchronized (LOCK) {
+            ArrayList<Product> products = current();
+            if (products == null) {
+                return null;
+            }
+            int pos = indexOf(cachedPositions, name);
+            return pos == -1 ? null : products.get(pos);
+        }
+    }
+
+    /**
+     * Obtiene la lista de productos en memoria, volviendo a leer el fichero y el diario si han cambiado.
+     * Se debe llamar con el cerrojo LOCK adquirido.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return La lista en caché (sin copiar), o null si el fichero no contiene datos y no hay diario.
+     */
+    private ArrayList<Product> current() throws FileNotFoundException {
+        BasicFileAttributes attributes = readAttributes();
+        BasicFileAttributes logAttributes = readLogAttributes();
+        FileTime logModified = logAttributes == null ? null : logAttributes.lastModifiedTime();
+        long logSize = logAttributes == null ? -1 : logAttributes.size();
+
+        if (cachedProducts != null && attributes.lastModifiedTime().equals(cachedModified) && attributes.size() == cachedSize
+                && (logModified == null ? cachedLogModified == null : logModified.equals(cachedLogModified)) && logSize == cachedLogSize) {
+            return cachedProducts;
+        }
+
+        ArrayList<Product> products = parse();
+        HashMap<String, Integer> positions = products == null ? new HashMap<>() : positionsOf(products);
+        logRecords = 0;
+        if (logAttributes != null) {
+            if (products == null) {
+                products = new ArrayList<>();
+            }
+            logRecords = replay(products, positions);
+        }
+
+        cachedProducts = products;
+        cachedPositions = positions;
+        cachedModified = attributes.lastModifiedTime();
+        cachedSize = attributes.size();
+        cachedLogModified = logModified;
+        cachedLogSize = logSize;
+        return products;
+    }
+
+    /**
+     * Parsea el fichero de productos entero en streaming, sin construir el árbol JSON intermedio.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList con los productos del fichero, o null si el fichero no contiene datos.
+     */
+    private ArrayList<Product> parse() throws FileNotFoundException {
+        try (JsonReader reader = new JsonReader(JsonStorage.newReader(PATH))) {
+            reader.setLenient(true);
+            return PersistanceGson.gson().fromJson(reader, PersistanceGson.PRODUCT_LIST);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Obtiene la fecha de modificación y el tamaño actuales del fichero de productos.
+     *
+     * @throws FileNotFoundException si el fichero no existe.
+     * @return Atributos básicos del fichero.
+     */
+    private BasicFileAttributes readAttributes() throws FileNotFoundException {
+        Path file = JsonStorage.resolve(PATH);
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(file.toString());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Obtiene la fecha de modificación y el tamaño actuales del diario.
+     *
+     * @return Atributos básicos del diario, o null si no existe.
+     */
+    private BasicFileAttributes readLogAttributes() {
+        try {
+            return Files.readAttributes(LOG_PATH, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Guarda en caché los atributos actuales de los dos ficheros después de una escritura propia.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     */
+    private void refreshAttributes() throws FileNotFoundException {
+        BasicFileAttributes attributes = readAttributes();
+        BasicFileAttributes logAttributes = readLogAttributes();
+        cachedModified = attributes.lastModifiedTime();
+        cachedSize = attributes.size();
+        cachedLogModified = logAttributes == null ? null : logAttributes.lastModifiedTime();
+        cachedLogSize = logAttributes == null ? -1 : logAttributes.size();
+    }
+
+    /**
+     * Aplica sobre la lista los registros del diario, en orden.
+     * Cada registro termina en un salto de línea: un último registro sin él es una escritura que no llegó a terminar
+     * (por ejemplo, si el programa se cerró mientras se escribía), así que se ignora y la siguiente escritura lo descarta.
+     * Un registro completo que no se puede leer significa que el diario está dañado: no se ignora, porque se perderían
+     * los registros que vienen detrás (y la compactación haría la pérdida definitiva).
+     *
+     * @param products Lista de productos leída del fichero, que se modifica.
+     * @param positions Posición de cada nombre en la lista, que se mantiene al día.
+     * @return Número de registros aplicados.
+     */
+    private int replay(ArrayList<Product> products, HashMap<String, Integer> positions) {
+        int records = 0;
+        String log;
+        try {
+            log = Files.readString(LOG_PATH, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return records;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        int start = 0;
+        int lineNumber = 0;
+        int end;
+        while ((end = log.indexOf('\n', start)) != -1) {
+            String line = log.substring(start, end);
+            start = end + 1;
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                applyRecord(products, positions, line);
+            } catch (IOException | IllegalStateException | NumberFormatException e) {
+                throw new RuntimeException(new IOException("Diario de productos dañado en la línea " + lineNumber + ": " + line, e));
+            }
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Aplica un registro del diario sobre la lista de productos.
+     * Las altas y modificaciones sustituyen el producto con el mismo nombre (o lo añaden al final si no existe) y las bajas
+     * lo eliminan, de modo que volver a aplicar un registro ya incluido en el fichero no lo duplica.
+     *
+     * @param products Lista de productos que se modifica.
+     * @param positions Posición de cada nombre en la lista, que se mantiene al día.
+     * @param line Registro del diario: {"op": ..., "product": {...}} o {"op": "DELETE", "name": ...}.
+     * @throws IOException si el registro no se puede leer.
+     */
+    private void applyRecord(ArrayList<Product> products, HashMap<String, Integer> positions, String line) throws IOException {
+        String op = null;
+        String name = null;
+        Product product = null;
+
+        JsonReader reader = new JsonReader(new StringReader(line));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "op" -> op = reader.nextString();
+                case "name" -> name = reader.nextString();
+                case "product" -> product = PersistanceGson.gson().getAdapter(Product.class).read(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new IOException("Registro del diario no válido: " + line);
+        }
+
+        if (DELETE.equals(op) && name != null) {
+            int pos = indexOf(positions, name);
+            if (pos != -1) {
+                remove(products, positions, pos);
+            }
+        } else if ((ADD.equals(op) || UPDATE.equals(op)) && product != null) {
+            put(products, positions, product);
+        } else {
+            throw new IOException("Registro del diario no válido: " + line);
+        }
+    }
+
+    /**
+     * Sustituye el producto con el mismo nombre o, si no existe, lo añade al final.
+     *
+     * @param products Lista de productos que se modifica.
+     * @param positions Posición de cada nombre en la lista, que se mantiene al día.
+     * @param product Producto que se guarda.
+     */
+    private static void put(ArrayList<Product> products, HashMap<String, Integer> positions, Product product) {
+        int pos = indexOf(positions, product.getName());
+        if (pos != -1) {
+            products.set(pos, product);
+        } else {
+            positions.put(product.getName(), products.size());
+            products.add(product);
+        }
+    }
+
+    /**
+     * Elimina el producto de la posición indicada y actualiza las posiciones de los que venían detrás.
+     *
+     * @param products Lista de productos que se modifica.
+     * @param positions Posición de cada nombre en la lista, que se mantiene al día.
+     * @param pos Posición del producto que se elimina.
+     */
+    private static void remove(ArrayList<Product> products, HashMap<String, Integer> positions, int pos) {
+        products.remove(pos);
+        positions.values().removeIf(position -> position >= pos);
+        for (int i = pos; i < products.size(); i++) {
+            positions.putIfAbsent(products.get(i).getName(), i);
+        }
+    }
+
+    /**
+     * Construye el índice de posiciones de una lista de productos. Si un nombre aparece repetido se guarda
+     * su primera posición.
+     *
+     * @param products Lista de productos.
+     * @return Posición de cada nombre en la lista.
+     */
+    private static HashMap<String, Integer> positionsOf(ArrayList<Product> products) {
+        HashMap<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            positions.putIfAbsent(products.get(i).getName(), i);
+        }
+        return positions;
+    }
+
+    /**
+     * Busca la posición del producto con el nombre indicado.
+     *
+     * @param positions Posición de cada nombre en la lista.
+     * @param name Nombre del producto.
+     * @return Posición del producto, o -1 si no está.
+     */
+    private static int indexOf(HashMap<String, Integer> positions, String name) {
+        Integer pos = positions.get(name);
+        return pos == null ? -1 : pos;
+    }
+
+    /**
+     * Añade registros al final del diario con una sola escritura y los aplica a la lista en memoria.
+     * Antes de escribir se descarta el último registro si quedó a medias, para que el nuevo no se pegue a él.
+     * Cuando el diario supera COMPACTION_THRESHOLD registros se programa su compactación.
+     *
+     * @param records Registros que se añaden, ya serializados en una línea cada uno.
+     * @throws IOException - IOException
+     */
+    private void append(ArrayList<String> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String record : records) {
+            builder.append(record).append('\n');
+        }
+        discardTornRecord();
+        Files.writeString(LOG_PATH, builder, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        for (String record : records) {
+            applyRecord(cachedProducts, cachedPositions, record);
+        }
+        logRecords += records.size();
+        refreshAttributes();
+
+        if (logRecords >= COMPACTION_THRESHOLD && !compactionPending) {
+            compactionPending = true;
+            COMPACTOR.execute(ProductJSON::compactQuietly);
+        }
+    }
+
+    /**
+     * Recorta el diario hasta su último salto de línea, descartando el registro final que una escritura interrumpida
+     * dejó a medias. Ese registro nunca se llegó a confirmar y la lectura ya lo ignora.
+     *
+     * @throws IOException - IOException
+     */
+    private static void discardTornRecord() throws IOException {
+        try (FileChannel channel = FileChannel.open(LOG_PATH, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            long end = size;
+            while (end > 0) {
+                int length = (int) Math.min(buffer.capacity(), end);
+                long start = end - length;
+                buffer.clear().limit(length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        if (start + i + 1 < size) {
+                            channel.truncate(start + i + 1);
+                        }
+                        return;
                     }
                 }
+                end = start;
+            }
+            channel.truncate(0);
+        } catch (NoSuchFileException e) {
+            // Sin diario no hay nada que recortar.
+        }
+    }
 
-                Product product = null;
+    /**
+     * Serializa un registro de alta o modificación del diario.
+     *
+     * @param op Operación (ADD o UPDATE).
+     * @param product Producto afectado.
+     * @return El registro en una sola línea.
+     */
+    private static String productRecord(String op, Product product) {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        try {
+            writer.beginObject();
+            writer.name("op").value(op);
+            writer.name("product");
+            PersistanceGson.gson().toJson(product, Product.class, writer);
+            writer.endObject();
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return out.toString();
+    }
 
-                switch (category){
-                    case "GENERAL" -> product = new General(name, brand, category, maxPrice, reviews);
-                    case "REDUCED" -> product = new Reduced(name, brand, category, maxPrice, reviews);
-                    case "SUPER_REDUCED" -> product = new SuperReduced(name, brand, category, maxPrice, reviews);
-                }
+    /**
+     * Serializa un registro de baja del diario.
+     *
+     * @param name Nombre del producto eliminado.
+     * @return El registro en una sola línea.
+     */
+    private static String deleteRecord(String name) {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", DELETE);
+        record.addProperty("name", name);
+        return record.toString();
+    }
 
-                products.add(product);
+    /**
+     * Compacta el diario desde el hilo en segundo plano, sin propagar errores: si falla, el diario se conserva
+     * y se volverá a intentar con la siguiente escritura.
+     */
+    private static void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            synchronized (LOCK) {
+                compactionPending = false;
             }
+        }
+    }
 
-            return products;
-        } else {
-            return null;
+    /**
+     * Incorpora los registros del diario a un nuevo "products.json" y vacía el diario.
+     * El fichero nuevo se escribe primero en un fichero temporal y se renombra, así que nunca queda a medias;
+     * si el programa se cierra antes de vaciar el diario, sus registros se vuelven a aplicar sin efecto.
+     * Si el diario está dañado, la lectura falla y el diario se conserva tal cual, sin compactar.
+     *
+     * @throws IOException - IOException
+     */
+    public static void compact() throws IOException {
+        synchronized (LOCK) {
+            compactionPending = false;
+            if (Files.notExists(LOG_PATH)) {
+                return;
+            }
+            ProductJSON json = new ProductJSON(false);
+            ArrayList<Product> products = json.current();
+            if (products == null) {
+                products = new ArrayList<>();
+            }
+            writeSnapshot(products);
+            Files.deleteIfExists(LOG_PATH);
         }
+    }
+
+    /**
+     * Escribe la lista de productos completa en "products.json" (o "products.json.gz") con el formato configurado
+     * en StorageEncoding, mediante un fichero temporal y un renombrado atómico.
+     *
+     * @param products Productos que se escribirán.
+     * @throws IOException - IOException
+     */
+    private static void writeSnapshot(ArrayList<Product> products) throws IOException {
+        JsonStorage.write(PATH, products, PersistanceGson.PRODUCT_LIST, StorageEncoding.configured());
+    }
 
+    /**
+     * Escribe la lista de productos en el fichero, descarta el diario (ya incluido en la lista) y deja la lista en caché
+     * junto con los nuevos atributos de los ficheros, para que la siguiente lectura no tenga que volver a parsearlos.
+     *
+     * @param products Productos que se escribirán.
+     * @throws IOException - IOException
+     */
+    private void writeAll(ArrayList<Product> products) throws IOException {
+        cachedProducts = null;
+
+        writeSnapshot(products);
+        Files.deleteIfExists(LOG_PATH);
+
+        cachedProducts = new ArrayList<>(products);
+        cachedPositions = positionsOf(cachedProducts);
+        logRecords = 0;
+        refreshAttributes();
     }
 
     /**
@@ -89,25 +552,34 @@ public class ProductJSON implements ProductDAO {
      */
     @Override
     public boolean update(Product product) throws IOException {
+        synchronized (LOCK) {
+            ArrayList<Product> products = current();
 
-        ArrayList<Product> products = readAll();
+            if (journaled && products != null) {
+                if (indexOf(cachedPositions, product.getName()) != -1) {
+                    ArrayList<String> records = new ArrayList<>();
+                    records.add(productRecord(UPDATE, product));
+                    append(records);
+                }
+                return true;
+            }
 
-        for (int i = 0; i < products.size(); i++) {
-            if (products.get(i).getName().equals(product.getName())) {
-                products.set(i, product);
-                break;
+            products = readAll();
+
+            int pos = indexOf(cachedPositions, product.getName());
+            if (pos != -1) {
+                products.set(pos, product);
             }
-        }
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        Writer fw = Files.newBufferedWriter(Paths.get("files/products.json"));
-        gson.toJson(products, fw);
-        fw.close();
+            writeAll(products);
 
-        return true;
+            return true;
+        }
     }
 
     /**
      * Elimina los productos proporcionados en formato JSON.
+     * En modo diario se añade una baja por cada producto almacenado que no aparece en la lista recibida
+     * (y un alta por cada producto de la lista que todavía no está almacenado).
      *
      * @param products ArrayList de productos que se eliminarán.
      * @throws IOException - IOException
@@ -117,11 +589,34 @@ public class ProductJSON implements ProductDAO {
     public boolean delete(ArrayList<Product> products) throws IOException {
         // Implementación para eliminar productos de un archivo JSON.
         // Devuelve true si la eliminación fue exitosa, false en caso contrario.
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        Writer fw = Files.newBufferedWriter(Paths.get("files/products.json"));
-        gson.toJson(products, fw);
-        fw.close();
-        return true;
+        synchronized (LOCK) {
+            ArrayList<Product> stored = current();
+
+            if (journaled && stored != null) {
+                HashSet<String> kept = new HashSet<>();
+                for (Product product : products) {
+                    kept.add(product.getName());
+                }
+                HashSet<String> storedNames = new HashSet<>();
+                ArrayList<String> records = new ArrayList<>();
+                for (Product product : stored) {
+                    storedNames.add(product.getName());
+                    if (!kept.contains(product.getName())) {
+                        records.add(deleteRecord(product.getName()));
+                    }
+                }
+                for (Product product : products) {
+                    if (!storedNames.contains(product.getName())) {
+                        records.add(productRecord(ADD, product));
+                    }
+                }
+                append(records);
+                return true;
+            }
+
+            writeAll(products);
+            return true;
+        }
     }
 
     /**
@@ -133,22 +628,136 @@ public class ProductJSON implements ProductDAO {
      */
     @Override
     public boolean add(Product product) throws IOException {
+        synchronized (LOCK) {
+            if (journaled) {
+                if (current() == null) {
+                    cachedProducts = new ArrayList<>();
+                    cachedPositions = new HashMap<>();
+                }
+                ArrayList<String> records = new ArrayList<>();
+                records.add(productRecord(ADD, product));
+                append(records);
+                return true;
+            }
+
+            ArrayList<Product> products = readAll();
+            if (products == null) {
+                products = readAll();
+                if (products == null) {
+                    products = new ArrayList<>();
+                }
+            }
+
+            products.add(product);
+
+            writeAll(products);
+            return true;
+        }
+    }
+
+    /**
+     * Actualiza varios productos con una sola escritura: en modo diario, un único bloque de registros;
+     * si no, una sola reescritura del fichero. Los productos que no existen se ignoran.
+     *
+     * @param updated Productos que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si la actualización fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean updateAll(Collection<Product> updated) throws IOException {
+        synchronized (LOCK) {
+            ArrayList<Product> products = current();
+
+            if (journaled && products != null) {
+                ArrayList<String> records = new ArrayList<>();
+                for (Product product : updated) {
+                    if (indexOf(cachedPositions, product.getName()) != -1) {
+                        records.add(productRecord(UPDATE, product));
+                    }
+                }
+                append(records);
+                return true;
+            }
 
-        ArrayList<Product> products = readAll();
-        if (products == null) {
             products = readAll();
+            for (Product product : updated) {
+                int pos = indexOf(cachedPositions, product.getName());
+                if (pos != -1) {
+                    products.set(pos, product);
+                }
+            }
+            writeAll(products);
+            return true;
+        }
+    }
+
+    /**
+     * Agrega varios productos con una sola escritura: en modo diario, un único bloque de registros;
+     * si no, una sola reescritura del fichero.
+     *
+     * @param added Productos que se agregarán.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean addAll(Collection<Product> added) throws IOException {
+        synchronized (LOCK) {
+            if (journaled) {
+                if (current() == null) {
+                    cachedProducts = new ArrayList<>();
+                    cachedPositions = new HashMap<>();
+                }
+                ArrayList<String> records = new ArrayList<>();
+                for (Product product : added) {
+                    records.add(productRecord(ADD, product));
+                }
+                append(records);
+                return true;
+            }
+
+            ArrayList<Product> products = readAll();
             if (products == null) {
                 products = new ArrayList<>();
             }
+            products.addAll(added);
+            writeAll(products);
+            return true;
         }
+    }
+
+    /**
+     * Elimina los productos con los nombres indicados con una sola escritura: en modo diario, un único bloque
+     * de bajas; si no, una sola reescritura del fichero. Los nombres que no existen se ignoran.
+     *
+     * @param names Nombres de los productos que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean deleteByNames(Collection<String> names) throws IOException {
+        synchronized (LOCK) {
+            ArrayList<Product> products = current();
+            if (products == null) {
+                return true;
+            }
 
-        products.add(product);
+            HashSet<String> deleted = new HashSet<>(names);
+            if (journaled) {
+                ArrayList<String> records = new ArrayList<>();
+                for (Product product : products) {
+                    if (deleted.contains(product.getName())) {
+                        records.add(deleteRecord(product.getName()));
+                    }
+                }
+                append(records);
+                return true;
+            }
 
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        Writer fw = Files.newBufferedWriter(Paths.get("files/products.json"));
-        gson.toJson(products, fw);
-        fw.close();
-        return true;
+            products = readAll();
+            if (products.removeIf(product -> deleted.contains(product.getName()))) {
+                writeAll(products);
+            }
+            return true;
+        }
     }
-
 }
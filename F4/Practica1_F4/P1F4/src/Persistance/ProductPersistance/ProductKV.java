@@ -0,0 +1,234 @@
+package Persistance.ProductPersistance;
+
+import Business.Entities.Product;
+import Persistance.KVPersistance.KVStore;
+import Persistance.PersistanceGson;
+import com.google.gson.Gson;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+/**
+ * Clase que implementa la interfaz ProductDAO sobre un almacén clave-valor embebido ("products.kv"),
+ * con el nombre del producto en minúsculas como clave y el producto en JSON como valor (con su nombre tal cual).
+ * Así, las búsquedas sin distinguir mayúsculas y minúsculas son un solo acceso al almacén.
+ * Cada alta, modificación o baja escribe solo el producto afectado, en lugar de reescribir todo el fichero.
+ * La primera vez que se abre, el almacén se llena con los productos de "products.json" (si existe).
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ProductKV implements ProductDAO {
+
+    private static final Path PATH = Paths.get("files/products.kv");
+
+    private final KVStore store;
+    private final Gson gson;
+
+    /**
+     * Constructor de la clase ProductKV.
+     *
+     * Los almacenes creados cuando las claves eran el nombre tal cual se pasan a claves en minúsculas al abrirlos.
+     *
+     * @throws IOException si el almacén no se puede abrir o no se pueden migrar los productos de "products.json".
+     */
+    public ProductKV() throws IOException {
+        this.gson = PersistanceGson.gson();
+        this.store = KVStore.open(PATH, this::migrate);
+        this.store.renameKeys(ProductKV::keyOf);
+    }
+
+    /**
+     * Llena el almacén recién creado con los productos de "products.json" (y su diario de cambios).
+     *
+     * @param store Almacén vacío.
+     * @throws IOException si no se pueden leer los productos o escribirlos en el almacén.
+     */
+    private void migrate(KVStore store) throws IOException {
+        ArrayList<Product> products;
+        try {
+            products = new ProductJSON(true).readAll();
+        } catch (FileNotFoundException e) {
+            return;
+        }
+        if (products == null) {
+            return;
+        }
+
+        LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+        for (Product product : products) {
+            entries.putIfAbsent(keyOf(product.getName()), gson.toJson(product, Product.class));
+        }
+        store.putAll(entries);
+    }
+
+    /**
+     * Lee todos los productos almacenados, en el orden en que se dieron de alta.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList que contiene todos los productos almacenados.
+     */
+    @Override
+    public ArrayList<Product> readAll() throws FileNotFoundException {
+        try {
+            ArrayList<Product> products = new ArrayList<>();
+            for (String value : store.values()) {
+                products.add(gson.fromJson(value, Product.class));
+            }
+            return products;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Busca un producto por su nombre (sin distinguir mayúsculas y minúsculas) leyendo solo su registro.
+     *
+     * @param name Nombre del producto.
+     * @return El producto, o null si no existe.
+     */
+    @Override
+    public Product find(String name) {
+        try {
+            String value = store.get(keyOf(name));
+            return value == null ? null : gson.fromJson(value, Product.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Actualiza el producto con el mismo nombre, si existe.
+     *
+     * @param product Producto que se actualizará.
+     * @throws IOException - IOException
+     * @return true si la actualización fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean update(Product product) throws IOException {
+        synchronized (store) {
+            String key = keyOf(product.getName());
+            if (store.contains(key)) {
+                store.put(key, gson.toJson(product, Product.class));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Elimina los productos almacenados que no aparecen en la lista recibida
+     * (y da de alta los de la lista que todavía no están almacenados).
+     *
+     * @param products ArrayList de productos que se conservarán.
+     * @throws IOException - IOException
+     * @return true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean delete(ArrayList<Product> products) throws IOException {
+        synchronized (store) {
+            HashSet<String> kept = new HashSet<>();
+            LinkedHashMap<String, String> added = new LinkedHashMap<>();
+            for (Product product : products) {
+                String key = keyOf(product.getName());
+                kept.add(key);
+                if (!store.contains(key)) {
+                    added.put(key, gson.toJson(product, Product.class));
+                }
+            }
+
+            ArrayList<String> deleted = new ArrayList<>();
+            for (String key : store.keys()) {
+                if (!kept.contains(key)) {
+                    deleted.add(key);
+                }
+            }
+            store.deleteAll(deleted);
+            store.putAll(added);
+            return true;
+        }
+    }
+
+    /**
+     * Agrega un producto nuevo al almacén.
+     *
+     * @param product Producto que se agregará.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean add(Product product) throws IOException {
+        store.put(keyOf(product.getName()), gson.toJson(product, Product.class));
+        return true;
+    }
+
+    /**
+     * Actualiza varios productos con una sola escritura en el almacén. Los que no existen se ignoran.
+     *
+     * @param products Productos que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si la actualización fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean updateAll(Collection<Product> products) throws IOException {
+        synchronized (store) {
+            LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+            for (Product product : products) {
+                String key = keyOf(product.getName());
+                if (store.contains(key)) {
+                    entries.put(key, gson.toJson(product, Product.class));
+                }
+            }
+            store.putAll(entries);
+            return true;
+        }
+    }
+
+    /**
+     * Agrega varios productos con una sola escritura en el almacén.
+     *
+     * @param products Productos que se agregarán.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean addAll(Collection<Product> products) throws IOException {
+        LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+        for (Product product : products) {
+            entries.put(keyOf(product.getName()), gson.toJson(product, Product.class));
+        }
+        store.putAll(entries);
+        return true;
+    }
+
+    /**
+     * Elimina los productos con los nombres indicados (sin distinguir mayúsculas y minúsculas) con una sola escritura
+     * en el almacén.
+     *
+     * @param names Nombres de los productos que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean deleteByNames(Collection<String> names) throws IOException {
+        ArrayList<String> keys = new ArrayList<>();
+        for (String name : names) {
+            keys.add(keyOf(name));
+        }
+        store.deleteAll(keys);
+        return true;
+    }
+
+    /**
+     * Obtiene la clave con la que se guarda un producto: su nombre en minúsculas.
+     *
+     * @param name Nombre del producto.
+     * @return La clave del producto.
+     */
+    private static String keyOf(String name) {
+        return name.toLowerCase();
+    }
+}
@@ -0,0 +1,188 @@
+package Persistance.ProductPersistance;
+
+import Business.Entities.Product;
+import Business.Entities.ProductCategory;
+import Business.Entities.RatingAggregate;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Clase que convierte productos a JSON y de JSON sin usar reflexión, campo a campo sobre el JsonReader/JsonWriter.
+ * Genera el mismo formato que los ficheros existentes (más el resumen de las calificaciones, "ratingAggregate") y escoge la subclase (General, Reduced o SuperReduced) según la categoría.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ProductTypeAdapter extends TypeAdapter<Product> {
+
+    /**
+     * Escribe un producto como objeto JSON.
+     *
+     * @param out Escritor JSON.
+     * @param product Producto que se escribirá (puede ser null).
+     * @throws IOException si no se puede escribir.
+     */
+    @Override
+    public void write(JsonWriter out, Product product) throws IOException {
+        if (product == null) {
+            out.nullValue();
+            return;
+        }
+        write(out, product, product.getPrice());
+    }
+
+    /**
+     * Escribe un producto como objeto JSON con un precio concreto (por ejemplo, el de la oferta de una tienda),
+     * en lugar del precio guardado en el producto.
+     *
+     * @param out Escritor JSON.
+     * @param product Producto que se escribirá.
+     * @param price Precio que se escribirá.
+     * @throws IOException si no se puede escribir.
+     */
+    public void write(JsonWriter out, Product product, float price) throws IOException {
+
+        out.beginObject();
+        out.name("name").value(product.getName());
+        out.name("brand").value(product.getBrand());
+        out.name("category").value(product.getCategory());
+        out.name("maxPrice").value(product.getMaxPrice());
+        if (product.getRating() != null) {
+            out.name("rating").beginArray();
+            for (String review : product.getRating()) {
+                out.value(review);
+            }
+            out.endArray();
+
+            RatingAggregate aggregate = product.getRatingAggregate();
+            out.name("ratingAggregate").beginObject();
+            out.name("count").value(aggregate.getCount());
+            out.name("sum").value(aggregate.getSum());
+            out.name("histogram").beginArray();
+            for (int stars = 1; stars <= RatingAggregate.MAX_STARS; stars++) {
+                out.value(aggregate.getCount(stars));
+            }
+            out.endArray();
+            out.endObject();
+        }
+        out.name("price").value(price);
+        out.endObject();
+    }
+
+    /**
+     * Lee un producto (un objeto JSON).
+     * Si el objeto incluye el campo "price" (productos dentro de un catálogo), también se asigna.
+     * El resumen guardado ("ratingAggregate") se usa si su número de calificaciones coincide con el de reseñas que empiezan
+     * con un dígito (las únicas que cuenta el resumen); si no, el producto se queda con el resumen calculado de las reseñas.
+     *
+     * @param in Lector JSON posicionado al inicio del objeto.
+     * @throws IOException si el contenido no se puede leer o la categoría es desconocida.
+     * @return El producto leído (General, Reduced o SuperReduced según su categoría), o null si el valor es null.
+     */
+    @Override
+    public Product read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String name = null;
+        String brand = null;
+        ProductCategory category = null;
+        float maxPrice = 0;
+        float price = 0;
+        boolean hasPrice = false;
+        ArrayList<String> reviews = new ArrayList<>();
+        int rated = 0;
+        RatingAggregate aggregate = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name" -> name = in.nextString();
+                case "brand" -> brand = in.nextString();
+                case "category" -> {
+                    String categoryName = in.nextString();
+                    category = ProductCategory.fromName(categoryName);
+                    if (category == null) {
+                        throw new IOException("Categoría de producto desconocida: " + categoryName);
+                    }
+                }
+                case "maxPrice" -> maxPrice = Float.parseFloat(in.nextString());
+                case "price" -> {
+                    price = Float.parseFloat(in.nextString());
+                    hasPrice = true;
+                }
+                case "rating" -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        String review = in.nextString();
+                        reviews.add(review);
+                        if (RatingAggregate.stars(review) >= 0) {
+                            rated++;
+                        }
+                    }
+                    in.endArray();
+                }
+                case "ratingAggregate" -> aggregate = readAggregate(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (category == null) {
+            throw new IOException("Producto sin categoría: " + name);
+        }
+        Product product = category.create(name, brand, maxPrice, reviews);
+
+        if (hasPrice) {
+            product.setPrice(price);
+        }
+        if (aggregate != null && aggregate.getCount() == rated) {
+            product.setRatingAggregate(aggregate);
+        }
+        return product;
+    }
+
+    /**
+     * Lee el resumen de las calificaciones guardado con el producto.
+     *
+     * @param in Lector JSON posicionado al inicio del objeto del resumen.
+     * @throws IOException si el contenido no se puede leer.
+     * @return El resumen leído.
+     */
+    private RatingAggregate readAggregate(JsonReader in) throws IOException {
+        int count = 0;
+        int sum = 0;
+        int[] histogram = new int[RatingAggregate.MAX_STARS];
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "count" -> count = in.nextInt();
+                case "sum" -> sum = in.nextInt();
+                case "histogram" -> {
+                    in.beginArray();
+                    for (int i = 0; in.hasNext(); i++) {
+                        int value = in.nextInt();
+                        if (i < histogram.length) {
+                            histogram[i] = value;
+                        }
+                    }
+                    in.endArray();
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new RatingAggregate(count, sum, histogram);
+    }
+}
@@ -0,0 +1,77 @@
+package Persistance.ShopPersistance;
+
+import Business.Entities.Shop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interfaz que define las operaciones de acceso a datos para tiendas de forma asíncrona:
+ * cada operación devuelve enseguida un CompletableFuture, que termina con el resultado (o con la excepción) de ShopDAO.
+ * @author alberto.marquillas i marc.viñas
+ */
+public interface AsyncShopDAO {
+
+    /**
+     * Lee todas las tiendas almacenadas.
+     *
+     * @return Futuro con el ArrayList que contiene todas las tiendas almacenadas.
+     */
+    CompletableFuture<ArrayList<Shop>> readAll();
+
+    /**
+     * Lee la cabecera de todas las tiendas, sin construir sus catálogos.
+     *
+     * @return Futuro con el ArrayList que contiene la cabecera de todas las tiendas.
+     */
+    CompletableFuture<ArrayList<Shop>> readHeaders();
+
+    /**
+     * Lee una sola tienda entera, con su catálogo.
+     *
+     * @param name Nombre de la tienda.
+     * @return Futuro con la tienda, o con null si no existe.
+     */
+    CompletableFuture<Shop> readShop(String name);
+
+    /**
+     * Actualiza la información de una tienda.
+     *
+     * @param shop Tienda que se actualizará.
+     * @return Futuro con true si la actualización fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> update(Shop shop);
+
+    /**
+     * Agrega una tienda nueva.
+     *
+     * @param shop Tienda que se agregará.
+     * @return Futuro con true si la adición fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> add(Shop shop);
+
+    /**
+     * Actualiza varias tiendas con una sola escritura en el almacenamiento.
+     *
+     * @param shops Tiendas que se actualizarán.
+     * @return Futuro con true si se han actualizado todas las tiendas, false en caso contrario.
+     */
+    CompletableFuture<Boolean> updateAll(Collection<Shop> shops);
+
+    /**
+     * Agrega varias tiendas nuevas con una sola escritura en el almacenamiento.
+     *
+     * @param shops Tiendas que se agregarán.
+     * @return Futuro con true si la adición fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> addAll(Collection<Shop> shops);
+
+    /**
+     * Elimina las tiendas con los nombres indicados con una sola escritura en el almacenamiento.
+     *
+     * @param names Nombres de las tiendas que se eliminarán.
+     * @return Futuro con true si la eliminación fue exitosa, false en caso contrario.
+     */
+    CompletableFuture<Boolean> deleteByNames(Collection<String> names);
+}
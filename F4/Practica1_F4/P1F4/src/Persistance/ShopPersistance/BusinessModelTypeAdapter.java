@@ -0,0 +1,84 @@
+package Persistance.ShopPersistance;
+
+import Business.Entities.BusinessModel;
+import Business.Entities.HerenciasShop.Loyalty;
+import Business.Entities.HerenciasShop.MaxProfit;
+import Business.Entities.HerenciasShop.Sponsored;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Clase que convierte modelos de negocio a JSON y de JSON sin usar reflexión.
+ * El tipo no se guarda explícitamente: se deduce de los campos presentes, igual que en los ficheros existentes
+ * ("loyaltyThreshold" para Loyalty, "sponsoringBrand" para Sponsored y ninguno de los dos para MaxProfit).
+ * @author alberto.marquillas i marc.viñas
+ */
+public class BusinessModelTypeAdapter extends TypeAdapter<BusinessModel> {
+
+    /**
+     * Escribe un modelo de negocio como objeto JSON.
+     *
+     * @param out Escritor JSON.
+     * @param businessModel Modelo de negocio que se escribirá (puede ser null).
+     * @throws IOException si no se puede escribir.
+     */
+    @Override
+    public void write(JsonWriter out, BusinessModel businessModel) throws IOException {
+        if (businessModel == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        if (businessModel instanceof Loyalty loyalty) {
+            out.name("loyaltyThreshold").value(loyalty.getLoyaltyThreshold());
+        } else if (businessModel instanceof Sponsored sponsored) {
+            out.name("sponsoringBrand").value(sponsored.getSponsoringBrand());
+        }
+        out.endObject();
+    }
+
+    /**
+     * Lee el modelo de negocio de una tienda.
+     *
+     * @param in Lector JSON posicionado al inicio del objeto del modelo de negocio.
+     * @throws IOException si el contenido no se puede leer.
+     * @return El modelo de negocio leído, o null si el valor es null.
+     */
+    @Override
+    public BusinessModel read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Float loyaltyThreshold = null;
+        String sponsoringBrand = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "loyaltyThreshold" -> loyaltyThreshold = Float.parseFloat(in.nextString());
+                case "sponsoringBrand" -> sponsoringBrand = in.nextString();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (loyaltyThreshold != null) {
+            return new Loyalty(loyaltyThreshold);
+        } else if (sponsoringBrand != null) {
+            return new Sponsored(sponsoringBrand);
+        }
+        return new MaxProfit();
+    }
+}
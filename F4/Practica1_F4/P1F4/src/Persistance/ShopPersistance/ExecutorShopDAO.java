@@ -0,0 +1,113 @@
+package Persistance.ShopPersistance;
+
+import Business.Entities.Shop;
+import Persistance.DaoExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Clase que implementa la interfaz AsyncShopDAO ejecutando las operaciones de un ShopDAO en el ejecutor dedicado
+ * de los DAO (DaoExecutor). El ShopDAO debe admitir llamadas desde varios hilos.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ExecutorShopDAO implements AsyncShopDAO {
+
+    private final ShopDAO shopDAO;
+
+    /**
+     * Constructor de la clase ExecutorShopDAO.
+     *
+     * @param shopDAO DAO al que se delegan las operaciones.
+     */
+    public ExecutorShopDAO(ShopDAO shopDAO) {
+        this.shopDAO = shopDAO;
+    }
+
+    /**
+     * Lee todas las tiendas almacenadas en el ejecutor de los DAO.
+     *
+     * @return Futuro con el ArrayList que contiene todas las tiendas almacenadas.
+     */
+    @Override
+    public CompletableFuture<ArrayList<Shop>> readAll() {
+        return DaoExecutor.submit(shopDAO::readAll);
+    }
+
+    /**
+     * Lee la cabecera de todas las tiendas (sin catálogo) en el ejecutor de los DAO.
+     *
+     * @return Futuro con el ArrayList que contiene la cabecera de todas las tiendas.
+     */
+    @Override
+    public CompletableFuture<ArrayList<Shop>> readHeaders() {
+        return DaoExecutor.submit(shopDAO::readHeaders);
+    }
+
+    /**
+     * Lee una sola tienda entera en el ejecutor de los DAO.
+     *
+     * @param name Nombre de la tienda.
+     * @return Futuro con la tienda, o con null si no existe.
+     */
+    @Override
+    public CompletableFuture<Shop> readShop(String name) {
+        return DaoExecutor.submit(() -> shopDAO.readShop(name));
+    }
+
+    /**
+     * Actualiza la información de una tienda en el ejecutor de los DAO.
+     *
+     * @param shop Tienda que se actualizará.
+     * @return Futuro con true si la actualización fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> update(Shop shop) {
+        return DaoExecutor.submit(() -> shopDAO.update(shop));
+    }
+
+    /**
+     * Agrega una tienda nueva en el ejecutor de los DAO.
+     *
+     * @param shop Tienda que se agregará.
+     * @return Futuro con true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> add(Shop shop) {
+        return DaoExecutor.submit(() -> shopDAO.add(shop));
+    }
+
+    /**
+     * Actualiza varias tiendas en el ejecutor de los DAO.
+     *
+     * @param shops Tiendas que se actualizarán.
+     * @return Futuro con true si se han actualizado todas las tiendas, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> updateAll(Collection<Shop> shops) {
+        return DaoExecutor.submit(() -> shopDAO.updateAll(shops));
+    }
+
+    /**
+     * Agrega varias tiendas en el ejecutor de los DAO.
+     *
+     * @param shops Tiendas que se agregarán.
+     * @return Futuro con true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> addAll(Collection<Shop> shops) {
+        return DaoExecutor.submit(() -> shopDAO.addAll(shops));
+    }
+
+    /**
+     * Elimina varias tiendas en el ejecutor de los DAO.
+     *
+     * @param names Nombres de las tiendas que se eliminarán.
+     * @return Futuro con true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public CompletableFuture<Boolean> deleteByNames(Collection<String> names) {
+        return DaoExecutor.submit(() -> shopDAO.deleteByNames(names));
+    }
+}
@@ -0,0 +1,168 @@
+package Persistance.ShopPersistance;
+
+import Business.Entities.Offer;
+import Business.Entities.Product;
+import Business.Entities.ProductCatalog;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Clase que convierte catálogos de productos a JSON guardando solo una referencia a cada producto:
+ * {"products": [{"name": ..., "price": ...}]}, es decir, su nombre (la clave en el catálogo general de productos)
+ * y el precio que tiene en la tienda. Al leer, cada referencia se resuelve contra el catálogo general.
+ * También lee los catálogos antiguos, con los productos copiados enteros, para poder migrar los ficheros existentes.
+ * Las referencias que no se pueden resolver no se pierden: se guardan aparte en el catálogo y se vuelven a escribir.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class NormalizedCatalogTypeAdapter extends TypeAdapter<ProductCatalog> {
+
+    private final TypeAdapter<Product> productAdapter;
+    private final Function<String, Product> resolver;
+
+    /**
+     * Constructor de la clase NormalizedCatalogTypeAdapter.
+     *
+     * @param productAdapter Adaptador con el que se leen los productos guardados enteros (formato antiguo).
+     * @param resolver Función que devuelve el producto del catálogo general con un nombre, o null si no existe.
+     */
+    public NormalizedCatalogTypeAdapter(TypeAdapter<Product> productAdapter, Function<String, Product> resolver) {
+        this.productAdapter = productAdapter;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Escribe un catálogo como objeto JSON con una referencia (nombre y precio) por producto, seguidas de las referencias
+     * que no se pudieron resolver al leerlo.
+     *
+     * @param out Escritor JSON.
+     * @param productCatalog Catálogo que se escribirá (puede ser null).
+     * @throws IOException si no se puede escribir.
+     */
+    @Override
+    public void write(JsonWriter out, ProductCatalog productCatalog) throws IOException {
+        if (productCatalog == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("products").beginArray();
+        for (Offer offer : productCatalog.listOffers()) {
+            out.beginObject();
+            out.name("name").value(offer.getName());
+            out.name("price").value(offer.getPrice());
+            out.endObject();
+        }
+        for (Map.Entry<String, Float> reference : productCatalog.getUnresolvedReferences()) {
+            out.beginObject();
+            out.name("name").value(reference.getKey());
+            out.name("price").value(reference.getValue());
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    /**
+     * Lee el catálogo de productos de una tienda, en formato normalizado o antiguo.
+     * Las referencias a productos que ya no existen en el catálogo general se conservan aparte (sin mostrarse).
+     *
+     * @param in Lector JSON posicionado al inicio del objeto del catálogo.
+     * @throws IOException si el contenido no se puede leer.
+     * @return El catálogo leído, o null si el valor es null.
+     */
+    @Override
+    public ProductCatalog read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        ProductCatalog productCatalog = new ProductCatalog();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (field.equals("products") && in.peek() == JsonToken.BEGIN_ARRAY) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    readEntry(in, productCatalog);
+                }
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return productCatalog;
+    }
+
+    /**
+     * Lee una entrada del catálogo y la agrega al catálogo. El nombre y el precio se leen directamente del lector;
+     * solo si aparece algún otro campo se guardan los campos en un objeto, porque puede ser un producto entero
+     * (formato antiguo). Si ese objeto lleva la categoría, se lee como producto tal cual; si no, la entrada es
+     * una referencia y se agrega el producto del catálogo general con el precio de la tienda.
+     * Las referencias a productos que no existen se guardan aparte para no perderlas al volver a escribir el catálogo.
+     *
+     * @param in Lector JSON posicionado al inicio de la entrada.
+     * @param productCatalog Catálogo al que se agrega la entrada.
+     * @throws IOException si el contenido no se puede leer.
+     */
+    private void readEntry(JsonReader in, ProductCatalog productCatalog) throws IOException {
+        if (in.peek() != JsonToken.BEGIN_OBJECT) {
+            in.skipValue();
+            return;
+        }
+
+        String name = null;
+        Double price = null;
+        JsonObject fields = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (field.equals("name") && in.peek() == JsonToken.STRING) {
+                name = in.nextString();
+            } else if (field.equals("price") && in.peek() == JsonToken.NUMBER) {
+                price = in.nextDouble();
+            } else {
+                if (fields == null) {
+                    fields = new JsonObject();
+                }
+                fields.add(field, JsonParser.parseReader(in));
+            }
+        }
+        in.endObject();
+
+        if (fields != null && fields.has("category")) {
+            if (name != null) {
+                fields.addProperty("name", name);
+            }
+            if (price != null) {
+                fields.addProperty("price", price);
+            }
+            productCatalog.addProduct(productAdapter.fromJsonTree(fields));
+            return;
+        }
+
+        if (name == null) {
+            return;
+        }
+        float shopPrice = price == null ? 0 : price.floatValue();
+        Product master = resolver.apply(name);
+        if (master == null) {
+            productCatalog.addUnresolvedReference(name, shopPrice);
+            return;
+        }
+        productCatalog.addProduct(master, shopPrice);
+    }
+}
@@ -0,0 +1,87 @@
+package Persistance.ShopPersistance;
+
+import Business.Entities.Offer;
+import Business.Entities.ProductCatalog;
+import Persistance.ProductPersistance.ProductTypeAdapter;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Clase que convierte catálogos de productos a JSON ({"products": [...]}) y de JSON sin usar reflexión.
+ * Cada oferta se escribe como el producto entero con el precio de la tienda.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ProductCatalogTypeAdapter extends TypeAdapter<ProductCatalog> {
+
+    private final ProductTypeAdapter productAdapter;
+
+    /**
+     * Constructor de la clase ProductCatalogTypeAdapter.
+     *
+     * @param productAdapter Adaptador con el que se escriben y leen los productos del catálogo.
+     */
+    public ProductCatalogTypeAdapter(ProductTypeAdapter productAdapter) {
+        this.productAdapter = productAdapter;
+    }
+
+    /**
+     * Escribe un catálogo como objeto JSON.
+     *
+     * @param out Escritor JSON.
+     * @param productCatalog Catálogo que se escribirá (puede ser null).
+     * @throws IOException si no se puede escribir.
+     */
+    @Override
+    public void write(JsonWriter out, ProductCatalog productCatalog) throws IOException {
+        if (productCatalog == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("products").beginArray();
+        for (Offer offer : productCatalog.listOffers()) {
+            productAdapter.write(out, offer.getProduct(), offer.getPrice());
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    /**
+     * Lee el catálogo de productos de una tienda.
+     *
+     * @param in Lector JSON posicionado al inicio del objeto del catálogo.
+     * @throws IOException si el contenido no se puede leer.
+     * @return El catálogo leído, o null si el valor es null.
+     */
+    @Override
+    public ProductCatalog read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        ProductCatalog productCatalog = new ProductCatalog();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (field.equals("products") && in.peek() == JsonToken.BEGIN_ARRAY) {
+                in.beginArray();
+                while (in.hasNext()) {
+                    productCatalog.addProduct(productAdapter.read(in));
+                }
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return productCatalog;
+    }
+}
@@ -0,0 +1,366 @@
+package Persistance.ShopPersistance;
+
+import Business.Entities.Shop;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Clase que implementa la interfaz ShopDAO como caché en memoria delante de otro ShopDAO (ShopJSON o ShopCloud).
+ * Las tiendas se leen del DAO original una sola vez y las consultas posteriores se sirven desde memoria,
+ * mientras que las escrituras se propagan siempre al DAO original (write-through).
+ * Mientras no se han cargado todas las tiendas, el listado se sirve con solo sus cabeceras (readHeaders) y cada tienda
+ * que se abre con findByName se lee sola (readShop) y se guarda aparte, de modo que no se construyen catálogos que no se usan.
+ * Los métodos están sincronizados, de modo que la caché se puede usar a la vez desde la consola y desde el ejecutor de los DAO.
+ * Las lecturas de las cabeceras y de una sola tienda acceden al DAO original sin retener el cerrojo, para que se puedan
+ * hacer a la vez; su resultado solo se guarda si la caché no ha cambiado mientras tanto (generation).
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ShopCache implements ShopDAO {
+
+    private final ShopDAO shopDAO;
+    private ArrayList<Shop> shops;
+    private HashMap<String, Shop> shopsByName;
+    private boolean loaded;
+    private ArrayList<Shop> headers;
+    private HashMap<String, Shop> opened;
+    private long generation;
+    private int reads;
+    private int loads;
+
+    /**
+     * Constructor de la clase ShopCache.
+     *
+     * @param shopDAO DAO original al que se delegan las lecturas que no están en memoria y todas las escrituras.
+     */
+    public ShopCache(ShopDAO shopDAO) {
+        this.shopDAO = shopDAO;
+        this.loaded = false;
+        this.opened = new HashMap<>();
+        this.reads = 0;
+        this.loads = 0;
+    }
+
+    /**
+     * Lee todas las tiendas. Solo accede al DAO original la primera vez o después de invalidar la caché.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList (copia de la lista en memoria) que contiene todas las tiendas almacenadas.
+     */
+    @Override
+    public synchronized ArrayList<Shop> readAll() throws FileNotFoundException {
+        load();
+        reads++;
+        if (shops == null) {
+            return null;
+        }
+        return new ArrayList<>(shops);
+    }
+
+    /**
+     * Lee la cabecera de todas las tiendas (sin catálogo). Si todas las tiendas ya están en memoria se sirve de ellas;
+     * si no, se leen solo las cabeceras del DAO original, una sola vez hasta la siguiente escritura.
+     * Las tiendas devueltas pueden no tener catálogo, así que no se deben volver a guardar.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList (copia de la lista en memoria) con todas las tiendas, o null si no hay datos.
+     */
+    @Override
+    public ArrayList<Shop> readHeaders() throws FileNotFoundException {
+        long seen;
+        synchronized (this) {
+            reads++;
+            if (loaded) {
+                return shops == null ? null : new ArrayList<>(shops);
+            }
+            if (headers != null) {
+                return new ArrayList<>(headers);
+            }
+            seen = generation;
+        }
+
+        ArrayList<Shop> read = shopDAO.readHeaders();
+        synchronized (this) {
+            loads++;
+            if (read == null) {
+                return null;
+            }
+            if (!loaded && generation == seen) {
+                headers = read;
+            }
+            return new ArrayList<>(read);
+        }
+    }
+
+    /**
+     * Lee una sola tienda entera, a través de findByName.
+     *
+     * @param name Nombre de la tienda.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return La tienda, o null si no existe.
+     */
+    @Override
+    public Shop readShop(String name) throws FileNotFoundException {
+        return findByName(name);
+    }
+
+    /**
+     * Busca una tienda entera por su nombre (sin distinguir mayúsculas y minúsculas) sin recorrer la lista.
+     * Si todas las tiendas no están en memoria, se lee solo esa tienda del DAO original y se guarda para las siguientes consultas.
+     *
+     * @param name Nombre de la tienda.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return La tienda con ese nombre, o null si no existe.
+     */
+    public Shop findByName(String name) throws FileNotFoundException {
+        long seen;
+        synchronized (this) {
+            reads++;
+            if (name == null) {
+                return null;
+            }
+            if (loaded) {
+                return shopsByName.get(key(name));
+            }
+            Shop shop = opened.get(key(name));
+            if (shop != null) {
+                return shop;
+            }
+            seen = generation;
+        }
+
+        Shop shop = shopDAO.readShop(name);
+        synchronized (this) {
+            loads++;
+            if (shop == null || loaded || generation != seen) {
+                return shop;
+            }
+            Shop current = opened.putIfAbsent(key(name), shop);
+            return current == null ? shop : current;
+        }
+    }
+
+    /**
+     * Actualiza la tienda en el DAO original y, si ha ido bien, también en memoria.
+     *
+     * @param shop Tienda que se actualizará.
+     * @throws IOException - IOException
+     * @return true si la actualización fue exitosa, false en caso contrario.
+     */
+    @Override
+    public synchronized boolean update(Shop shop) throws IOException {
+        boolean updated;
+        try {
+            updated = shopDAO.update(shop);
+        } catch (IOException | RuntimeException e) {
+            invalidate();
+            throw e;
+        }
+
+        if (!updated) {
+            invalidate();
+        } else {
+            replace(shop);
+        }
+        return updated;
+    }
+
+    /**
+     * Agrega la tienda en el DAO original y, si ha ido bien, también en memoria.
+     *
+     * @param shop Tienda que se agregará.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public synchronized boolean add(Shop shop) throws IOException {
+        boolean added;
+        try {
+            added = shopDAO.add(shop);
+        } catch (IOException | RuntimeException e) {
+            invalidate();
+            throw e;
+        }
+
+        headers = null;
+        generation++;
+        if (!added || shops == null) {
+            invalidate();
+        } else if (loaded) {
+            shops.add(shop);
+            shopsByName.putIfAbsent(key(shop.getName()), shop);
+        }
+        return added;
+    }
+
+    /**
+     * Actualiza varias tiendas en el DAO original con una sola llamada y, si han ido todas bien, también en memoria.
+     *
+     * @param updatedShops Tiendas que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si se han actualizado todas las tiendas, false en caso contrario.
+     */
+    @Override
+    public synchronized boolean updateAll(Collection<Shop> updatedShops) throws IOException {
+        boolean updated;
+        try {
+            updated = shopDAO.updateAll(updatedShops);
+        } catch (IOException | RuntimeException e) {
+            invalidate();
+            throw e;
+        }
+
+        if (!updated) {
+            invalidate();
+        } else {
+            for (Shop shop : updatedShops) {
+                replace(shop);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Agrega varias tiendas en el DAO original con una sola llamada y, si han ido bien, también en memoria.
+     *
+     * @param newShops Tiendas que se agregarán.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public synchronized boolean addAll(Collection<Shop> newShops) throws IOException {
+        boolean added;
+        try {
+            added = shopDAO.addAll(newShops);
+        } catch (IOException | RuntimeException e) {
+            invalidate();
+            throw e;
+        }
+
+        headers = null;
+        generation++;
+        if (!added || shops == null) {
+            invalidate();
+        } else if (loaded) {
+            for (Shop shop : newShops) {
+                shops.add(shop);
+                shopsByName.putIfAbsent(key(shop.getName()), shop);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Elimina varias tiendas en el DAO original con una sola llamada y descarta la caché,
+     * que se volverá a cargar en la siguiente lectura.
+     *
+     * @param names Nombres de las tiendas que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public synchronized boolean deleteByNames(Collection<String> names) throws IOException {
+        try {
+            return shopDAO.deleteByNames(names);
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Indica si el DAO original guarda los catálogos como referencias a los productos.
+     *
+     * @return true si los catálogos guardan referencias, false si guardan copias de los productos.
+     */
+    @Override
+    public boolean referencesProducts() {
+        return shopDAO.referencesProducts();
+    }
+
+    /**
+     * Descarta las tiendas en memoria para que la próxima lectura vuelva a acceder al DAO original.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+        shops = null;
+        shopsByName = null;
+        headers = null;
+        opened.clear();
+        generation++;
+    }
+
+    /**
+     * Sustituye en memoria la tienda con el mismo nombre por la versión que se acaba de guardar.
+     * Las cabeceras se descartan, porque pueden haber cambiado las ganancias.
+     *
+     * @param shop Tienda guardada.
+     */
+    private void replace(Shop shop) {
+        headers = null;
+        generation++;
+        if (opened.containsKey(key(shop.getName()))) {
+            opened.put(key(shop.getName()), shop);
+        }
+        if (loaded && shops != null) {
+            Shop cached = shopsByName.get(key(shop.getName()));
+            if (cached != null) {
+                shops.set(shops.indexOf(cached), shop);
+                shopsByName.put(key(shop.getName()), shop);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número de lecturas servidas por la caché (readAll, readHeaders y findByName).
+     *
+     * @return Número de lecturas realizadas.
+     */
+    public synchronized int getReads() {
+        return reads;
+    }
+
+    /**
+     * Obtiene el número de veces que se ha leído el DAO original (es decir, que se ha parseado el fichero o la API),
+     * ya sea entero, solo las cabeceras o una sola tienda.
+     *
+     * @return Número de lecturas del DAO original.
+     */
+    public synchronized int getLoads() {
+        return loads;
+    }
+
+    /**
+     * Carga las tiendas del DAO original si todavía no están en memoria.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     */
+    private void load() throws FileNotFoundException {
+        if (loaded) {
+            return;
+        }
+        shops = shopDAO.readAll();
+        loads++;
+        headers = null;
+        opened.clear();
+        shopsByName = new HashMap<>();
+        if (shops != null) {
+            for (Shop shop: shops) {
+                shopsByName.putIfAbsent(key(shop.getName()), shop);
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Normaliza el nombre de una tienda para usarlo como clave del mapa.
+     *
+     * @param name Nombre de la tienda.
+     * @return El nombre en minúsculas.
+     */
+    private String key(String name) {
+        return name.toLowerCase();
+    }
+}
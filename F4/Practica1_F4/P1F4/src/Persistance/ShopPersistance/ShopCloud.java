@@ -1,45 +1,45 @@
 package Persistance.ShopPersistance;
 
-import Business.Entities.BusinessModel;
-import Business.Entities.HerenciasProduct.General;
-import Business.Entities.HerenciasProduct.Reduced;
-import Business.Entities.HerenciasProduct.SuperReduced;
-import Business.Entities.HerenciasShop.Loyalty;
-import Business.Entities.HerenciasShop.MaxProfit;
-import Business.Entities.HerenciasShop.Sponsored;
-import Business.Entities.Product;
-import Business.Entities.ProductCatalog;
 import Business.Entities.Shop;
+import Persistance.CloudPersistance.BulkUploader;
+import Persistance.CloudPersistance.CachingCloudClient;
+import Persistance.CloudPersistance.CloudConfig;
+import Persistance.CloudPersistance.UploadResult;
+import Persistance.PersistanceGson;
 import com.google.gson.*;
-import edu.salle.url.api.ApiHelper;
-import edu.salle.url.api.exception.ApiException;
+import com.google.gson.stream.JsonReader;
 
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.nio.file.Path;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Clase que implementa la interfaz ShopDAO para la manipulación de datos de tiendas en la API.
+ * Las escrituras solo envían la tienda que cambia (borrándola por nombre y volviéndola a publicar)
+ * en lugar de vaciar la colección y volver a subir todas las tiendas.
+ * Las lecturas pasan por una caché de respuestas (CachingCloudClient) para no descargar la colección en cada consulta.
  * @author alberto.marquillas i marc.viñas
  */
 public class ShopCloud implements ShopDAO{
 
-    private static Path path;
-    ApiHelper api;
+    CachingCloudClient api;
     String pathString;
 
     /**
-     * Constructor de la clase ShopCloud. Inicializa los campos path, pathString y api para interactuar con la API de tiendas.
+     * Constructor de la clase ShopCloud. Inicializa los campos pathString y api para interactuar con la API de tiendas.
      *
      * @throws RuntimeException si ocurre una IOException durante la inicialización.
      */
     public ShopCloud () {
         try {
-            path = Path.of("https//balandrau.salle.url.edu/dpoo/P1-G109/shops");
-            pathString = "https://balandrau.salle.url.edu/dpoo/P1-G109/shops";
-            api = new ApiHelper();
+            pathString = CloudConfig.collectionUrl("shops");
+            api = new CachingCloudClient(CloudConfig.createClient(), CloudConfig.getCacheTtl());
         }catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -54,86 +54,71 @@ public class ShopCloud implements ShopDAO{
     @Override
     public ArrayList<Shop> readAll() throws FileNotFoundException {
 
-        try{
-            JsonArray array;
-
+        try {
             String string = api.getFromUrl(pathString);
-            JsonElement element = JsonParser.parseString(string);
-
-            if (element.isJsonArray()) {
-                array = element.getAsJsonArray();
-                ArrayList<Shop> shops = new ArrayList<>();
-
-                for (JsonElement elem : array) {
-                    JsonObject obj = elem.getAsJsonObject();
-                    String name = obj.get("name").getAsString();
-                    String description = obj.get("description").getAsString();
-                    int since = obj.get("since").getAsInt();
-                    float earnings = obj.get("earnings").getAsFloat();
-
-                    BusinessModel businessModel = null;
-                    if (obj.has("businessModelObject")) {
-                        JsonObject businessModelObjectJson = obj.getAsJsonObject("businessModelObject");
-                        if (businessModelObjectJson.has("loyaltyThreshold")) {
-                            float loyaltyThreshold = businessModelObjectJson.get("loyaltyThreshold").getAsFloat();
-                            businessModel = new Loyalty(loyaltyThreshold);
-                        } else if (businessModelObjectJson.has("sponsoringBrand")) {
-                            String sponsoringBrand = businessModelObjectJson.get("sponsoringBrand").getAsString();
-                            businessModel = new Sponsored(sponsoringBrand);
-                        } else {
-                            businessModel = new MaxProfit();
-                        }
-                    }
+            JsonReader reader = new JsonReader(new StringReader(string));
+            reader.setLenient(true);
+            return PersistanceGson.gson().fromJson(reader, PersistanceGson.SHOP_LIST);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-                    ProductCatalog productCatalog = null;
-                    if (obj.has("productCatalog")) {
-                        JsonObject productCatalogJson = obj.getAsJsonObject("productCatalog");
-                        JsonArray prod = productCatalogJson.getAsJsonArray("products");
-
-                        ArrayList<Product> allProducts = new ArrayList<>();
-                        for (JsonElement productElem : prod) {
-                            JsonObject productObj = productElem.getAsJsonObject();
-                            String productName = productObj.get("name").getAsString();
-                            String productBrand = productObj.get("brand").getAsString();
-                            String productCategory = productObj.get("category").getAsString();
-                            float productMaxPrice = productObj.get("maxPrice").getAsFloat();
-
-                            JsonArray reviewsArray = productObj.getAsJsonArray("rating");
-                            ArrayList<String> reviews = new ArrayList<>();
-                            if (reviewsArray != null) {
-                                for (JsonElement rev : reviewsArray) {
-                                    reviews.add(rev.getAsString());
-                                }
-                            }
-                            float productPrice = productObj.get("price").getAsFloat();
-
-                            Product product = null;
-
-                            switch (productCategory){
-                                case "GENERAL" -> product = new General(productName, productBrand, productCategory, productMaxPrice, reviews);
-                                case "REDUCED" -> product = new Reduced(productName, productBrand, productCategory, productMaxPrice, reviews);
-                                case "SUPER_REDUCED" -> product = new SuperReduced(productName, productBrand, productCategory, productMaxPrice, reviews);
-                            }
-
-                            product.setPrice(productPrice);
-                            allProducts.add(product);
-                        }
-                        productCatalog = new ProductCatalog(allProducts);
-                    }
-                    Shop shop = new Shop(name, description, since, earnings, businessModel, productCatalog);
-                    shops.add(shop);
+    /**
+     * Lee la cabecera de todas las tiendas de la API. La API devuelve las tiendas enteras,
+     * pero sus catálogos se saltan al decodificar la respuesta sin construir ningún producto.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList con la cabecera de todas las tiendas almacenadas.
+     */
+    @Override
+    public ArrayList<Shop> readHeaders() throws FileNotFoundException {
+        return read(name -> false);
+    }
+
+    /**
+     * Lee una sola tienda de la API con su catálogo; los catálogos del resto de tiendas se saltan.
+     *
+     * @param name Nombre de la tienda.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return La tienda, o null si no existe.
+     */
+    @Override
+    public Shop readShop(String name) throws FileNotFoundException {
+        ArrayList<Shop> shops = read(name::equalsIgnoreCase);
+        if (shops != null) {
+            for (Shop shop : shops) {
+                if (shop.getName().equalsIgnoreCase(name)) {
+                    return shop;
                 }
-                return shops;
-            } else {
-                return null;
             }
-        } catch (ApiException e) {
+        }
+        return null;
+    }
+
+    /**
+     * Decodifica las tiendas de la API construyendo solo los catálogos de las tiendas que withCatalog acepta.
+     *
+     * @param withCatalog Indica, a partir del nombre de cada tienda, si se debe leer su catálogo.
+     * @return ArrayList con las tiendas de la API.
+     */
+    private ArrayList<Shop> read(Predicate<String> withCatalog) {
+        try {
+            String string = api.getFromUrl(pathString);
+            JsonReader reader = new JsonReader(new StringReader(string));
+            reader.setLenient(true);
+            ShopTypeAdapter adapter = (ShopTypeAdapter) PersistanceGson.gson().getAdapter(Shop.class);
+            return adapter.readList(reader, withCatalog);
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
      * Actualiza la información de las tiendas proporcionadas en la API.
+     * Solo se reemplaza la tienda modificada: se elimina por nombre y se vuelve a publicar, sin tocar el resto.
+     * El borrado por nombre también borraría la nueva versión, así que no se puede publicar primero; en su lugar,
+     * si la publicación falla después del borrado se vuelve a publicar la versión anterior.
      *
      * @param shop Tienda que se agregará.
      * @throws IOException - IOException
@@ -142,24 +127,31 @@ public class ShopCloud implements ShopDAO{
     @Override
     public boolean update(Shop shop) throws IOException {
         ArrayList<Shop> currentShops = readAll();
-        ArrayList<Shop> finalShops = new ArrayList<>();
-        int flag = 0;
-        api.deleteFromUrl(pathString);
-        for (int i = 0; i < currentShops.size(); i++) {
-            finalShops.add(currentShops.get(i));
-            if (shop.getName().equalsIgnoreCase(currentShops.get(i).getName())){
-                finalShops.set(i, shop);
-            }
-            try {
-                Gson gson = new GsonBuilder().setPrettyPrinting().create();
-                if (api.postToUrl(pathString, gson.toJson(finalShops.get(i))) != null) {
-                    flag++;
+        if (currentShops == null) {
+            return false;
+        }
+
+        for (Shop current : currentShops) {
+            if (shop.getName().equalsIgnoreCase(current.getName())) {
+                String previous = PersistanceGson.gson().toJson(current, Shop.class);
+                try {
+                    api.deleteFromUrl(CloudConfig.recordUrl(pathString, current.getName()));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return false;
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
+                try {
+                    if (api.postToUrl(pathString, PersistanceGson.gson().toJson(shop, Shop.class)) != null) {
+                        return true;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                restore(List.of(previous));
+                return false;
             }
         }
-        return flag == currentShops.size();
+        return false;
     }
 
     /**
@@ -172,8 +164,7 @@ public class ShopCloud implements ShopDAO{
     @Override
     public boolean add(Shop shop) throws IOException {
         try {
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            if (api.postToUrl(pathString, gson.toJson(shop)) != null) {
+            if (api.postToUrl(pathString, PersistanceGson.gson().toJson(shop, Shop.class)) != null) {
                 return true;
             }
         } catch (IOException e) {
@@ -181,6 +172,158 @@ public class ShopCloud implements ShopDAO{
         }
 
 
+        return false;
+    }
+
+    /**
+     * Actualiza varias tiendas en una sola pasada: una lectura de la colección y, para las tiendas que existen,
+     * los borrados por nombre y las nuevas publicaciones concurrentemente (BulkUploader).
+     * Solo se vuelven a publicar las tiendas que se han podido borrar, para no duplicarlas, y las que no se han podido
+     * volver a publicar se restauran con su versión anterior.
+     *
+     * @param shops Tiendas que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si se han actualizado todas las tiendas, false si alguna no existe o ha fallado.
+     */
+    @Override
+    public boolean updateAll(Collection<Shop> shops) throws IOException {
+        ArrayList<Shop> currentShops = readAll();
+        if (currentShops == null) {
+            return false;
+        }
+
+        HashMap<String, Shop> storedShops = new HashMap<>();
+        for (Shop current : currentShops) {
+            storedShops.putIfAbsent(current.getName().toLowerCase(), current);
+        }
+
+        boolean all = true;
+        ArrayList<Shop> matched = new ArrayList<>();
+        ArrayList<Shop> previous = new ArrayList<>();
+        ArrayList<String> urls = new ArrayList<>();
+        for (Shop shop : shops) {
+            Shop stored = storedShops.get(shop.getName().toLowerCase());
+            if (stored == null) {
+                all = false;
+            } else {
+                matched.add(shop);
+                previous.add(stored);
+                urls.add(CloudConfig.recordUrl(pathString, stored.getName()));
+            }
+        }
+
+        BulkUploader uploader = new BulkUploader(api, CloudConfig.getMaxInFlight());
+        UploadResult deleted = uploader.delete(urls);
+        ArrayList<Shop> replaced = new ArrayList<>();
+        ArrayList<Shop> replacedPrevious = new ArrayList<>();
+        for (int i = 0; i < matched.size(); i++) {
+            if (deleted.isUploaded(i)) {
+                replaced.add(matched.get(i));
+                replacedPrevious.add(previous.get(i));
+            }
+        }
+        UploadResult posted = uploader.upload(pathString, replaced);
+
+        ArrayList<String> lost = new ArrayList<>();
+        for (int i : posted.getFailed()) {
+            lost.add(PersistanceGson.gson().toJson(replacedPrevious.get(i), Shop.class));
+        }
+        restore(lost);
+
+        return all && deleted.isComplete() && posted.isComplete();
+    }
+
+    /**
+     * Vuelve a publicar la versión anterior de los registros que se han borrado pero cuya nueva versión no se ha podido
+     * publicar, para que un POST fallido no los haga desaparecer de la API.
+     *
+     * @param previous Versiones anteriores de los registros, ya serializadas.
+     * @return true si se han vuelto a publicar todas, false en caso contrario.
+     */
+    private boolean restore(List<String> previous) {
+        boolean restored = true;
+        for (String record : previous) {
+            try {
+                if (api.postToUrl(pathString, record) == null) {
+                    restored = false;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                restored = false;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Agrega varias tiendas publicándolas concurrentemente (BulkUploader).
+     *
+     * @param shops Tiendas que se agregarán.
+     * @throws IOException - IOException
+     * @return true si se han publicado todas, false en caso contrario.
+     */
+    @Override
+    public boolean addAll(Collection<Shop> shops) throws IOException {
+        return new BulkUploader(api, CloudConfig.getMaxInFlight()).upload(pathString, new ArrayList<>(shops)).isComplete();
+    }
+
+    /**
+     * Elimina las tiendas con los nombres indicados (sin distinguir mayúsculas y minúsculas): una lectura de la colección
+     * y los borrados por nombre concurrentemente.
+     *
+     * @param names Nombres de las tiendas que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si se han borrado todas las tiendas que existían, false en caso contrario.
+     */
+    @Override
+    public boolean deleteByNames(Collection<String> names) throws IOException {
+        ArrayList<Shop> currentShops = readAll();
+        if (currentShops == null) {
+            return true;
+        }
+
+        HashSet<String> deleted = new HashSet<>();
+        for (String name : names) {
+            deleted.add(name.toLowerCase());
+        }
+        ArrayList<String> urls = new ArrayList<>();
+        for (Shop current : currentShops) {
+            if (deleted.contains(current.getName().toLowerCase())) {
+                urls.add(CloudConfig.recordUrl(pathString, current.getName()));
+            }
+        }
+        return new BulkUploader(api, CloudConfig.getMaxInFlight()).delete(urls).isComplete();
+    }
+
+    /**
+     * Sustituye toda la colección de la API por las tiendas indicadas: vacía la colección y las vuelve a publicar
+     * concurrentemente, con un máximo de CloudConfig.getMaxInFlight() peticiones en curso.
+     *
+     * @param shops ArrayList con las tiendas que quedarán en la API.
+     * @throws IOException si no se puede vaciar la colección.
+     * @return Resultado de la subida registro a registro, para saber exactamente qué tiendas han fallado.
+     */
+    public UploadResult uploadAll(ArrayList<Shop> shops) throws IOException {
+        api.deleteFromUrl(pathString);
+        return new BulkUploader(api, CloudConfig.getMaxInFlight()).upload(pathString, shops);
+    }
+
+    /**
+     * Obtiene la caché de respuestas de la API, para consultar cuántas peticiones se han ahorrado.
+     *
+     * @return La caché de respuestas de las tiendas.
+     */
+    public CachingCloudClient getResponseCache() {
+        return api;
+    }
+
+    /**
+     * La API guarda cada tienda con los productos de su catálogo copiados enteros.
+     *
+     * @return false.
+     */
+    @Override
+    public boolean referencesProducts() {
         return false;
     }
 }
@@ -5,6 +5,7 @@ import Business.Entities.Shop;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * Interfaz que define las operaciones de acceso a datos para tiendas.
@@ -22,6 +23,26 @@ public interface ShopDAO {
      */
     ArrayList<Shop> readAll() throws FileNotFoundException;
 
+    /**
+     * Lee solo la cabecera de todas las tiendas (nombre, descripción, año, ganancias y modelo de negocio),
+     * sin construir sus catálogos de productos: las tiendas devueltas tienen el catálogo a null.
+     * Sirven para listar tiendas; no se deben volver a guardar con update(), porque se perdería el catálogo.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList con la cabecera de todas las tiendas almacenadas, o null si no hay datos.
+     */
+    ArrayList<Shop> readHeaders() throws FileNotFoundException;
+
+    /**
+     * Lee una sola tienda entera (con su catálogo), buscándola por su nombre sin distinguir mayúsculas y minúsculas.
+     * Solo se construye el catálogo de esa tienda.
+     *
+     * @param name Nombre de la tienda.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return La tienda, o null si no existe.
+     */
+    Shop readShop(String name) throws FileNotFoundException;
+
     /**
      * Actualiza la información de las tiendas proporcionadas.
      *
@@ -39,4 +60,40 @@ public interface ShopDAO {
      * @return true si la adición fue exitosa, false en caso contrario.
      */
     boolean add(Shop shop) throws IOException;
+
+    /**
+     * Actualiza varias tiendas con una sola escritura en el almacenamiento.
+     *
+     * @param shops Tiendas que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si se han actualizado todas las tiendas, false si alguna no existe o no se ha podido actualizar.
+     */
+    boolean updateAll(Collection<Shop> shops) throws IOException;
+
+    /**
+     * Agrega varias tiendas nuevas con una sola escritura en el almacenamiento.
+     *
+     * @param shops Tiendas que se agregarán.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    boolean addAll(Collection<Shop> shops) throws IOException;
+
+    /**
+     * Elimina las tiendas con los nombres indicados con una sola escritura en el almacenamiento.
+     * Los nombres que no existen se ignoran.
+     *
+     * @param names Nombres de las tiendas que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si la eliminación fue exitosa, false en caso contrario.
+     */
+    boolean deleteByNames(Collection<String> names) throws IOException;
+
+    /**
+     * Indica si los catálogos de las tiendas guardan solo referencias a los productos del catálogo general
+     * (y, por lo tanto, los cambios de los productos, como las valoraciones, no hace falta guardarlos en cada tienda).
+     *
+     * @return true si los catálogos guardan referencias, false si guardan copias de los productos.
+     */
+    boolean referencesProducts();
 }
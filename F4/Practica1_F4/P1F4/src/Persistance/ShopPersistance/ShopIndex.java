@@ -0,0 +1,300 @@
+package Persistance.ShopPersistance;
+
+import Persistance.JsonStorage;
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Clase que mantiene un índice auxiliar ("shops.json.idx") con la posición y la longitud en bytes de cada tienda
+ * dentro de "shops.json", por nombre en minúsculas. Con él se puede leer una sola tienda con una lectura posicionada
+ * del fichero, sin parsear las demás.
+ * El índice guarda el tamaño y la fecha de modificación del fichero JSON: si no coinciden, se reconstruye recorriendo el fichero.
+ * Solo sirve para el fichero sin comprimir; si el vigente es "shops.json.gz", no se usa.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ShopIndex {
+
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path json;
+    private final Path file;
+    private HashMap<String, Entry> entries;
+    private long jsonSize;
+    private long jsonModified;
+
+    /**
+     * Clase que guarda dónde empieza una tienda en el fichero JSON y cuántos bytes ocupa.
+     */
+    private static class Entry {
+        private final long offset;
+        private final int length;
+
+        /**
+         * Constructor de la clase Entry.
+         *
+         * @param offset Posición del objeto JSON de la tienda en el fichero.
+         * @param length Longitud del objeto JSON en bytes.
+         */
+        private Entry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Constructor de la clase ShopIndex. El índice no se lee ni se construye hasta que se usa.
+     *
+     * @param json Ruta del fichero JSON de tiendas ("shops.json").
+     */
+    public ShopIndex(Path json) {
+        this.json = json;
+        this.file = json.resolveSibling(json.getFileName() + ".idx");
+    }
+
+    /**
+     * Indica si el índice se puede usar: el fichero vigente es el JSON sin comprimir.
+     * Si el índice no está al día con el fichero, se carga del disco o se reconstruye.
+     *
+     * @throws FileNotFoundException si no existe el fichero de tiendas.
+     * @throws IOException si no se puede leer el fichero o escribir el índice.
+     * @return true si se pueden hacer lecturas posicionadas, false si hay que parsear el fichero.
+     */
+    public synchronized boolean usable() throws IOException {
+        if (!JsonStorage.resolve(json).equals(json)) {
+            entries = null;
+            return false;
+        }
+        long size = Files.size(json);
+        long modified = Files.getLastModifiedTime(json).toMillis();
+        if (entries != null && size == jsonSize && modified == jsonModified) {
+            return true;
+        }
+        if (!load(size, modified)) {
+            rebuild();
+        }
+        return true;
+    }
+
+    /**
+     * Lee el objeto JSON de una sola tienda con una lectura posicionada del fichero.
+     * Si lo leído no es la tienda esperada (el fichero ha cambiado sin que cambie su tamaño ni su fecha),
+     * se reconstruye el índice y se vuelve a intentar una vez.
+     * Antes hay que comprobar con usable() que el índice se puede usar.
+     *
+     * @param name Nombre de la tienda (no se distinguen mayúsculas y minúsculas).
+     * @throws IOException si no se puede leer el fichero.
+     * @return El JSON de la tienda, o null si no existe.
+     */
+    public synchronized String read(String name) throws IOException {
+        String value = readEntry(name);
+        if (value != null && !name.equalsIgnoreCase(nameOf(value))) {
+            rebuild();
+            value = readEntry(name);
+        }
+        return value;
+    }
+
+    /**
+     * Reconstruye el índice recorriendo el fichero JSON y lo guarda en el disco.
+     * Se llama después de reescribir "shops.json", o cuando el índice guardado no está al día.
+     *
+     * @throws IOException si no se puede leer el fichero o escribir el índice.
+     */
+    public synchronized void rebuild() throws IOException {
+        long size = Files.size(json);
+        long modified = Files.getLastModifiedTime(json).toMillis();
+        entries = scan();
+        jsonSize = size;
+        jsonModified = modified;
+        save();
+    }
+
+    /**
+     * Descarta el índice, en memoria y en el disco (por ejemplo, cuando las tiendas se guardan comprimidas).
+     *
+     * @throws IOException si no se puede borrar el fichero del índice.
+     */
+    public synchronized void clear() throws IOException {
+        entries = null;
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Lee los bytes de una tienda según el índice en memoria.
+     *
+     * @param name Nombre de la tienda.
+     * @throws IOException si no se puede leer el fichero.
+     * @return El JSON de la tienda, o null si no está en el índice.
+     */
+    private String readEntry(String name) throws IOException {
+        Entry entry = entries.get(name.toLowerCase());
+        if (entry == null) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        try (FileChannel channel = FileChannel.open(json, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, entry.offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Carga el índice guardado en el disco, si corresponde al estado actual del fichero JSON.
+     *
+     * @param size Tamaño actual del fichero JSON.
+     * @param modified Fecha de modificación actual del fichero JSON, en milisegundos.
+     * @return true si se ha cargado, false si no existe, es de otra versión o no está al día.
+     */
+    private boolean load(long size, long modified) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != VERSION || in.readLong() != size || in.readLong() != modified) {
+                return false;
+            }
+            int count = in.readInt();
+            HashMap<String, Entry> loaded = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                loaded.put(key, new Entry(in.readLong(), in.readInt()));
+            }
+            entries = loaded;
+            jsonSize = size;
+            jsonModified = modified;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Guarda el índice en el disco mediante un fichero temporal que se renombra.
+     *
+     * @throws IOException si no se puede escribir.
+     */
+    private void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), BUFFER_SIZE))) {
+            out.writeInt(VERSION);
+            out.writeLong(jsonSize);
+            out.writeLong(jsonModified);
+            out.writeInt(entries.size());
+            for (HashMap.Entry<String, Entry> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().offset);
+                out.writeInt(entry.getValue().length);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Recorre el fichero JSON byte a byte y anota dónde empieza y acaba cada objeto del array principal.
+     * Solo hace falta seguir la profundidad y las cadenas: en UTF-8, los bytes de las llaves y las comillas
+     * nunca forman parte de un carácter de varios bytes. Si un nombre aparece más de una vez, se queda la primera tienda.
+     *
+     * @throws IOException si no se puede leer el fichero.
+     * @return Posición y longitud de cada tienda, por nombre en minúsculas.
+     */
+    private HashMap<String, Entry> scan() throws IOException {
+        HashMap<String, Entry> scanned = new HashMap<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] shop = new byte[1024];
+        int shopLength = 0;
+
+        try (InputStream in = Files.newInputStream(json)) {
+            long position = 0;
+            long start = 0;
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            int read;
+
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++, position++) {
+                    byte b = buffer[i];
+                    if (depth >= 2 || b == '{' && depth == 1 && !inString) {
+                        if (shopLength == shop.length) {
+                            shop = Arrays.copyOf(shop, shop.length * 2);
+                        }
+                        shop[shopLength++] = b;
+                    }
+                    if (inString) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (b == '\\') {
+                            escaped = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                    } else if (b == '"') {
+                        inString = true;
+                    } else if (b == '{' || b == '[') {
+                        depth++;
+                        if (depth == 2 && b == '{') {
+                            start = position;
+                        }
+                    } else if (b == '}' || b == ']') {
+                        depth--;
+                        if (depth == 1) {
+                            if (b == '}') {
+                                String name = nameOf(new String(shop, 0, shopLength, StandardCharsets.UTF_8));
+                                if (name != null) {
+                                    scanned.putIfAbsent(name.toLowerCase(), new Entry(start, (int) (position - start + 1)));
+                                }
+                            }
+                            shopLength = 0;
+                        }
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(json.toString());
+        }
+        return scanned;
+    }
+
+    /**
+     * Obtiene el nombre de una tienda a partir de su JSON, leyendo solo hasta el campo "name".
+     *
+     * @param shop JSON de la tienda.
+     * @return El nombre, o null si el JSON no es un objeto con nombre.
+     */
+    private static String nameOf(String shop) {
+        try (JsonReader reader = new JsonReader(new StringReader(shop))) {
+            reader.setLenient(true);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("name")) {
+                    return reader.nextString();
+                }
+                reader.skipValue();
+            }
+            return null;
+        } catch (IOException | IllegalStateException e) {
+            return null;
+        }
+    }
+}
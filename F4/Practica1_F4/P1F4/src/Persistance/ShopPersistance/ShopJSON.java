@@ -1,116 +1,206 @@
 package Persistance.ShopPersistance;
 
-import Business.Entities.BusinessModel;
-import Business.Entities.HerenciasProduct.General;
-import Business.Entities.HerenciasProduct.Reduced;
-import Business.Entities.HerenciasProduct.SuperReduced;
-import Business.Entities.HerenciasShop.Loyalty;
-import Business.Entities.HerenciasShop.MaxProfit;
-import Business.Entities.HerenciasShop.Sponsored;
 import Business.Entities.Product;
-import Business.Entities.ProductCatalog;
 import Business.Entities.Shop;
+import Persistance.JsonStorage;
+import Persistance.PersistanceGson;
+import Persistance.ProductPersistance.ProductDAO;
+import Persistance.StorageEncoding;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
 
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Writer;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.function.Predicate;
 
 /**
  * Clase que implementa la interfaz ShopDAO para la manipulación de datos de tiendas en formato JSON.
+ * Si se crea con un ProductDAO, los catálogos se guardan normalizados: cada producto es solo una referencia (nombre y precio
+ * en la tienda) que al leer se resuelve contra el catálogo general, de modo que los datos del producto se guardan una sola vez.
+ * Para leer una sola tienda se usa un índice auxiliar con la posición de cada tienda en el fichero (ShopIndex).
+ * Los métodos públicos están sincronizados, porque la resolución de productos guarda estado en la instancia.
  * @author alberto.marquillas i marc.viñas
  */
 public class ShopJSON implements ShopDAO {
 
+    private static final Path PATH = Paths.get("files/shops.json");
+
+    private final ProductDAO productDAO;
+    private final Gson gson;
+    private final ShopIndex index;
+    private HashMap<String, Product> masterProducts;
+
     /**
      * Constructor from the ShopJSON class.
+     * Los catálogos se guardan con los productos copiados enteros.
      * @throws FileNotFoundException - FileNotFoundException
      */
     public ShopJSON() throws FileNotFoundException {
+        this(null);
+    }
 
+    /**
+     * Constructor de la clase ShopJSON con los catálogos normalizados.
+     * Los ficheros con los productos copiados enteros se siguen pudiendo leer y se convierten al volver a escribirlos.
+     *
+     * @param productDAO DAO del catálogo general contra el que se resuelven los productos de las tiendas (si es null, no se normaliza).
+     * @throws FileNotFoundException - FileNotFoundException
+     */
+    public ShopJSON(ProductDAO productDAO) throws FileNotFoundException {
+        this.productDAO = productDAO;
+        this.gson = productDAO == null ? PersistanceGson.gson() : PersistanceGson.normalizedGson(this::findProduct);
+        this.index = new ShopIndex(PATH);
     }
 
     /**
-     * Lee todas las tiendas almacenadas en formato JSON.
+     * Lee todas las tiendas almacenadas en formato JSON, decodificándolas en streaming sin construir el árbol JSON intermedio.
      *
      * @throws FileNotFoundException - FileNotFoundException
      * @return ArrayList que contiene todas las tiendas almacenadas.
      */
     @Override
-    public ArrayList<Shop> readAll() throws FileNotFoundException {
-        JsonArray array;
-        FileReader fileReader = new FileReader("files/shops.json");
-        JsonElement element = JsonParser.parseReader(fileReader);
-        if (element.isJsonArray()) {
-            array = element.getAsJsonArray();
-            ArrayList<Shop> shops = new ArrayList<>();
-
-            for (JsonElement elem : array) {
-                JsonObject obj = elem.getAsJsonObject();
-                String name = obj.get("name").getAsString();
-                String description = obj.get("description").getAsString();
-                int since = obj.get("since").getAsInt();
-                float earnings = obj.get("earnings").getAsFloat();
-
-                BusinessModel businessModel = null;
-                if (obj.has("businessModelObject")) {
-                    JsonObject businessModelObjectJson = obj.getAsJsonObject("businessModelObject");
-                    if (businessModelObjectJson.has("loyaltyThreshold")) {
-                        float loyaltyThreshold = businessModelObjectJson.get("loyaltyThreshold").getAsFloat();
-                        businessModel = new Loyalty(loyaltyThreshold);
-                    } else if (businessModelObjectJson.has("sponsoringBrand")) {
-                        String sponsoringBrand = businessModelObjectJson.get("sponsoringBrand").getAsString();
-                        businessModel = new Sponsored(sponsoringBrand);
-                    } else {
-                        businessModel = new MaxProfit();
-                    }
-                }
+    public synchronized ArrayList<Shop> readAll() throws FileNotFoundException {
+        return parse();
+    }
+
+    /**
+     * Lee la cabecera de todas las tiendas recorriendo el fichero en streaming y saltando los catálogos
+     * sin construir ningún producto (ni leer el catálogo general).
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList con la cabecera de todas las tiendas almacenadas, o null si el fichero no contiene datos.
+     */
+    @Override
+    public synchronized ArrayList<Shop> readHeaders() throws FileNotFoundException {
+        return parse(name -> false, false);
+    }
 
-                ProductCatalog productCatalog = null;
-                if (obj.has("productCatalog")) {
-                    JsonObject productCatalogJson = obj.getAsJsonObject("productCatalog");
-                    JsonArray prod = productCatalogJson.getAsJsonArray("products");
-
-                    ArrayList<Product> allProducts = new ArrayList<>();
-                    for (JsonElement productElem : prod) {
-                        JsonObject productObj = productElem.getAsJsonObject();
-                        String productName = productObj.get("name").getAsString();
-                        String productBrand = productObj.get("brand").getAsString();
-                        String productCategory = productObj.get("category").getAsString();
-                        float productMaxPrice = productObj.get("maxPrice").getAsFloat();
-
-                        JsonArray reviewsArray = productObj.getAsJsonArray("rating");
-                        ArrayList<String> reviews = new ArrayList<>();
-                        if (reviewsArray != null) {
-                            for (JsonElement rev : reviewsArray) {
-                                reviews.add(rev.getAsString());
-                            }
-                        }
-                        float productPrice = productObj.get("price").getAsFloat();
-
-                        Product product = null;
-
-                        switch (productCategory){
-                            case "GENERAL" -> product = new General(productName, productBrand, productCategory, productMaxPrice, reviews);
-                            case "REDUCED" -> product = new Reduced(productName, productBrand, productCategory, productMaxPrice, reviews);
-                            case "SUPER_REDUCED" -> product = new SuperReduced(productName, productBrand, productCategory, productMaxPrice, reviews);
-                        }
-
-                        product.setPrice(productPrice);
-                        allProducts.add(product);
-                    }
-                    productCatalog = new ProductCatalog(allProducts);
+    /**
+     * Lee una sola tienda con su catálogo. Si el fichero está sin comprimir, la tienda se lee con una lectura posicionada
+     * gracias al índice "shops.json.idx", sin tocar el resto del fichero; si está comprimido, se recorre el fichero
+     * saltando los demás catálogos. En los dos casos, los productos del catálogo se resuelven uno a uno en el catálogo
+     * general (ProductDAO.find), sin leerlo entero.
+     *
+     * @param name Nombre de la tienda.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return La tienda, o null si no existe.
+     */
+    @Override
+    public synchronized Shop readShop(String name) throws FileNotFoundException {
+        try {
+            if (index.usable()) {
+                String value = index.read(name);
+                return value == null ? null : gson.fromJson(value, Shop.class);
+            }
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return find(parse(name::equalsIgnoreCase, false), name);
+    }
+
+    /**
+     * Busca una tienda por su nombre (sin distinguir mayúsculas y minúsculas) en una lista.
+     *
+     * @param shops Lista de tiendas (puede ser null).
+     * @param name Nombre de la tienda.
+     * @return La tienda, o null si no está en la lista.
+     */
+    private Shop find(ArrayList<Shop> shops, String name) {
+        if (shops != null) {
+            for (Shop shop : shops) {
+                if (shop.getName().equalsIgnoreCase(name)) {
+                    return shop;
                 }
-                Shop shop = new Shop(name, description, since, earnings, businessModel, productCatalog);
-                shops.add(shop);
             }
-            return shops;
-        } else {
-            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Parsea el fichero de tiendas entero.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList con las tiendas del fichero, o null si el fichero no contiene datos.
+     */
+    private ArrayList<Shop> parse() throws FileNotFoundException {
+        return parse(name -> true, true);
+    }
+
+    /**
+     * Parsea el fichero de tiendas construyendo solo los catálogos de las tiendas que withCatalog acepta.
+     *
+     * @param withCatalog Indica, a partir del nombre de cada tienda, si se debe leer su catálogo.
+     * @param resolveProducts Indica si se carga el catálogo general entero para resolver los productos (si no, se resuelven
+     *                        uno a uno con ProductDAO.find).
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList con las tiendas del fichero, o null si el fichero no contiene datos.
+     */
+    private ArrayList<Shop> parse(Predicate<String> withCatalog, boolean resolveProducts) throws FileNotFoundException {
+        try (JsonReader reader = new JsonReader(JsonStorage.newReader(PATH))) {
+            reader.setLenient(true);
+            if (resolveProducts) {
+                loadProducts();
+            }
+            return shopAdapter().readList(reader, withCatalog);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            masterProducts = null;
+        }
+    }
+
+    /**
+     * Obtiene el adaptador de tiendas del Gson de esta instancia, que permite leer tiendas sin su catálogo.
+     *
+     * @return Adaptador de tiendas.
+     */
+    private ShopTypeAdapter shopAdapter() {
+        return (ShopTypeAdapter) gson.getAdapter(Shop.class);
+    }
+
+    /**
+     * Carga el catálogo general de productos, indexado por nombre, para resolver las referencias de los catálogos.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     */
+    private void loadProducts() throws FileNotFoundException {
+        if (productDAO == null) {
+            return;
+        }
+        masterProducts = new HashMap<>();
+        ArrayList<Product> products = productDAO.readAll();
+        if (products != null) {
+            for (Product product : products) {
+                masterProducts.putIfAbsent(product.getName(), product);
+            }
+        }
+    }
+
+    /**
+     * Busca un producto del catálogo general por su nombre mientras se está leyendo el fichero: en la lectura de todas
+     * las tiendas, en el mapa cargado para esa lectura, y si no, pidiendo solo ese producto al DAO, igual que ShopKV.
+     *
+     * @param name Nombre del producto.
+     * @return El producto, o null si no existe.
+     */
+    private Product findProduct(String name) {
+        if (masterProducts != null) {
+            return masterProducts.get(name);
+        }
+        try {
+            return productDAO.find(name);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -121,7 +211,7 @@ public class ShopJSON implements ShopDAO {
      * @throws IOException - IOException
      * @return true si la actualización fue exitosa, false en caso contrario.
      */
-    public boolean update(Shop updatedShop) throws IOException {
+    public synchronized boolean update(Shop updatedShop) throws IOException {
         ArrayList<Shop> currentShops = readAll();
         boolean updated = false;
 
@@ -139,10 +229,7 @@ public class ShopJSON implements ShopDAO {
         }
 
         if (updated) {
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
-            Writer fw = Files.newBufferedWriter(Paths.get("files/shops.json"));
-            gson.toJson(currentShops, fw);
-            fw.close();
+            writeAll(currentShops);
         }
 
         return updated;
@@ -157,18 +244,120 @@ public class ShopJSON implements ShopDAO {
      * @return true si la adición fue exitosa, false en caso contrario.
      */
     @Override
-    public boolean add(Shop shop) throws IOException {
+    public synchronized boolean add(Shop shop) throws IOException {
         ArrayList<Shop> shops = readAll();
         if (shops == null) {
             shops = new ArrayList<>();
         }
         shops.add(shop);
 
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        Writer fw = Files.newBufferedWriter(Paths.get("files/shops.json"));
-        gson.toJson(shops, fw);
-        fw.close();
+        writeAll(shops);
         return true;
     }
 
+    /**
+     * Actualiza varias tiendas leyendo y reescribiendo el fichero una sola vez.
+     * Como en update(), cada tienda conserva el modelo de negocio guardado.
+     *
+     * @param updatedShops Tiendas que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si se han actualizado todas las tiendas, false si alguna no existe.
+     */
+    @Override
+    public synchronized boolean updateAll(Collection<Shop> updatedShops) throws IOException {
+        ArrayList<Shop> currentShops = readAll();
+        if (currentShops == null) {
+            return false;
+        }
+
+        HashMap<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < currentShops.size(); i++) {
+            positions.putIfAbsent(currentShops.get(i).getName(), i);
+        }
+
+        boolean all = true;
+        boolean updated = false;
+        for (Shop updatedShop : updatedShops) {
+            Integer i = positions.get(updatedShop.getName());
+            if (i == null) {
+                all = false;
+                continue;
+            }
+            updatedShop.setBusinessModel(currentShops.get(i).getBusinessModel());
+            currentShops.set(i, updatedShop);
+            updated = true;
+        }
+
+        if (updated) {
+            writeAll(currentShops);
+        }
+        return all;
+    }
+
+    /**
+     * Agrega varias tiendas leyendo y reescribiendo el fichero una sola vez.
+     *
+     * @param newShops Tiendas que se agregarán.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public synchronized boolean addAll(Collection<Shop> newShops) throws IOException {
+        ArrayList<Shop> shops = readAll();
+        if (shops == null) {
+            shops = new ArrayList<>();
+        }
+        shops.addAll(newShops);
+
+        writeAll(shops);
+        return true;
+    }
+
+    /**
+     * Elimina las tiendas con los nombres indicados leyendo y reescribiendo el fichero una sola vez.
+     *
+     * @param names Nombres de las tiendas que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public synchronized boolean deleteByNames(Collection<String> names) throws IOException {
+        ArrayList<Shop> shops = readAll();
+        if (shops == null) {
+            return true;
+        }
+
+        HashSet<String> deleted = new HashSet<>(names);
+        if (shops.removeIf(shop -> deleted.contains(shop.getName()))) {
+            writeAll(shops);
+        }
+        return true;
+    }
+
+    /**
+     * Escribe la lista de tiendas en "shops.json" (o "shops.json.gz") con el formato configurado en StorageEncoding,
+     * mediante un fichero temporal que se renombra, de modo que el fichero nunca queda escrito a medias.
+     * El índice de posiciones se reconstruye en la siguiente lectura de una sola tienda; si el fichero se comprime, se borra.
+     *
+     * @param shops Tiendas que se escribirán.
+     * @throws IOException - IOException
+     */
+    private void writeAll(ArrayList<Shop> shops) throws IOException {
+        StorageEncoding encoding = StorageEncoding.configured();
+        JsonStorage.write(PATH, shops, PersistanceGson.SHOP_LIST, encoding, gson);
+        if (encoding == StorageEncoding.GZIP) {
+            index.clear();
+        }
+    }
+
+    /**
+     * Indica si los catálogos se guardan como referencias a los productos del catálogo general.
+     *
+     * @return true si se ha creado con un ProductDAO, false en caso contrario.
+     */
+    @Override
+    public boolean referencesProducts() {
+        return productDAO != null;
+    }
+
 }
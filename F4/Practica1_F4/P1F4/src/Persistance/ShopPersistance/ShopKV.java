@@ -0,0 +1,276 @@
+package Persistance.ShopPersistance;
+
+import Business.Entities.Product;
+import Business.Entities.Shop;
+import Persistance.KVPersistance.KVStore;
+import Persistance.PersistanceGson;
+import Persistance.ProductPersistance.ProductKV;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * Clase que implementa la interfaz ShopDAO sobre un almacén clave-valor embebido ("shops.kv"),
+ * con el nombre de la tienda en minúsculas como clave y la tienda en JSON como valor (con su nombre tal cual).
+ * Así, las búsquedas sin distinguir mayúsculas y minúsculas son un solo acceso al almacén.
+ * Los catálogos se guardan normalizados (referencias a los productos de ProductKV), igual que en ShopJSON.
+ * Cada alta o modificación escribe solo la tienda afectada. La primera vez que se abre, el almacén se llena
+ * con las tiendas de "shops.json" (si existe).
+ * Los métodos que leen tiendas están sincronizados, porque la resolución de productos guarda estado en la instancia.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ShopKV implements ShopDAO {
+
+    private static final Path PATH = Paths.get("files/shops.kv");
+
+    private final ProductKV productDAO;
+    private final Gson gson;
+    private final KVStore store;
+    private HashMap<String, Product> masterProducts;
+
+    /**
+     * Constructor de la clase ShopKV.
+     *
+     * @param productDAO Almacén de productos contra el que se resuelven los catálogos de las tiendas.
+     * Los almacenes creados cuando las claves eran el nombre tal cual se pasan a claves en minúsculas al abrirlos.
+     *
+     * @param productDAO Almacén de productos contra el que se resuelven los catálogos de las tiendas.
+     * @throws IOException si el almacén no se puede abrir o no se pueden migrar las tiendas de "shops.json".
+     */
+    public ShopKV(ProductKV productDAO) throws IOException {
+        this.productDAO = productDAO;
+        this.gson = PersistanceGson.normalizedGson(this::findProduct);
+        this.store = KVStore.open(PATH, this::migrate);
+        this.store.renameKeys(ShopKV::keyOf);
+    }
+
+    /**
+     * Llena el almacén recién creado con las tiendas de "shops.json".
+     *
+     * @param store Almacén vacío.
+     * @throws IOException si no se pueden leer las tiendas o escribirlas en el almacén.
+     */
+    private void migrate(KVStore store) throws IOException {
+        ArrayList<Shop> shops;
+        try {
+            shops = new ShopJSON(productDAO).readAll();
+        } catch (FileNotFoundException e) {
+            return;
+        }
+        if (shops == null) {
+            return;
+        }
+
+        LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+        for (Shop shop : shops) {
+            entries.putIfAbsent(keyOf(shop.getName()), gson.toJson(shop, Shop.class));
+        }
+        store.putAll(entries);
+    }
+
+    /**
+     * Lee todas las tiendas almacenadas, en el orden en que se dieron de alta.
+     * Los productos se resuelven contra una sola lectura del catálogo general.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList que contiene todas las tiendas almacenadas.
+     */
+    @Override
+    public synchronized ArrayList<Shop> readAll() throws FileNotFoundException {
+        try {
+            masterProducts = new HashMap<>();
+            for (Product product : productDAO.readAll()) {
+                masterProducts.putIfAbsent(product.getName(), product);
+            }
+
+            ArrayList<Shop> shops = new ArrayList<>();
+            for (String value : store.values()) {
+                shops.add(gson.fromJson(value, Shop.class));
+            }
+            return shops;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            masterProducts = null;
+        }
+    }
+
+    /**
+     * Lee la cabecera de todas las tiendas: el catálogo de cada valor se salta sin construir ningún producto.
+     *
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return ArrayList con la cabecera de todas las tiendas almacenadas.
+     */
+    @Override
+    public ArrayList<Shop> readHeaders() throws FileNotFoundException {
+        try {
+            ShopTypeAdapter adapter = (ShopTypeAdapter) gson.getAdapter(Shop.class);
+            ArrayList<Shop> shops = new ArrayList<>();
+            for (String value : store.values()) {
+                shops.add(adapter.read(new JsonReader(new StringReader(value)), name -> false));
+            }
+            return shops;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Lee una sola tienda con su catálogo a partir de su registro, sin distinguir mayúsculas y minúsculas.
+     * Los productos se resuelven leyendo solo sus registros en ProductKV.
+     *
+     * @param name Nombre de la tienda.
+     * @throws FileNotFoundException - FileNotFoundException
+     * @return La tienda, o null si no existe.
+     */
+    @Override
+    public synchronized Shop readShop(String name) throws FileNotFoundException {
+        try {
+            String value = store.get(keyOf(name));
+            return value == null ? null : gson.fromJson(value, Shop.class);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Actualiza la tienda con el mismo nombre (sin distinguir mayúsculas y minúsculas), conservando su modelo de negocio,
+     * igual que ShopJSON.
+     *
+     * @param updatedShop Tienda que se actualizará.
+     * @throws IOException - IOException
+     * @return true si la actualización fue exitosa, false en caso contrario.
+     */
+    @Override
+    public synchronized boolean update(Shop updatedShop) throws IOException {
+        synchronized (store) {
+            String key = keyOf(updatedShop.getName());
+            if (!store.contains(key)) {
+                return false;
+            }
+
+            Shop existingShop = gson.fromJson(store.get(key), Shop.class);
+            updatedShop.setBusinessModel(existingShop.getBusinessModel());
+            store.put(key, gson.toJson(updatedShop, Shop.class));
+            return true;
+        }
+    }
+
+    /**
+     * Agrega una tienda nueva al almacén.
+     *
+     * @param shop Tienda que se agregará.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean add(Shop shop) throws IOException {
+        store.put(keyOf(shop.getName()), gson.toJson(shop, Shop.class));
+        return true;
+    }
+
+    /**
+     * Actualiza varias tiendas con una sola escritura en el almacén, conservando el modelo de negocio de cada una.
+     * Las tiendas se buscan por nombre sin distinguir mayúsculas y minúsculas, como en update.
+     *
+     * @param updatedShops Tiendas que se actualizarán.
+     * @throws IOException - IOException
+     * @return true si se han actualizado todas las tiendas, false si alguna no existe.
+     */
+    @Override
+    public synchronized boolean updateAll(Collection<Shop> updatedShops) throws IOException {
+        synchronized (store) {
+            boolean all = true;
+            LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+            for (Shop updatedShop : updatedShops) {
+                String key = keyOf(updatedShop.getName());
+                if (!store.contains(key)) {
+                    all = false;
+                    continue;
+                }
+                Shop existingShop = gson.fromJson(store.get(key), Shop.class);
+                updatedShop.setBusinessModel(existingShop.getBusinessModel());
+                entries.put(key, gson.toJson(updatedShop, Shop.class));
+            }
+            store.putAll(entries);
+            return all;
+        }
+    }
+
+    /**
+     * Agrega varias tiendas con una sola escritura en el almacén.
+     *
+     * @param shops Tiendas que se agregarán.
+     * @throws IOException - IOException
+     * @return true si la adición fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean addAll(Collection<Shop> shops) throws IOException {
+        LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+        for (Shop shop : shops) {
+            entries.put(keyOf(shop.getName()), gson.toJson(shop, Shop.class));
+        }
+        store.putAll(entries);
+        return true;
+    }
+
+    /**
+     * Elimina las tiendas con los nombres indicados (sin distinguir mayúsculas y minúsculas) con una sola escritura en el almacén.
+     *
+     * @param names Nombres de las tiendas que se eliminarán.
+     * @throws IOException - IOException
+     * @return true si la eliminación fue exitosa, false en caso contrario.
+     */
+    @Override
+    public boolean deleteByNames(Collection<String> names) throws IOException {
+        ArrayList<String> keys = new ArrayList<>();
+        for (String name : names) {
+            keys.add(keyOf(name));
+        }
+        store.deleteAll(keys);
+        return true;
+    }
+
+    /**
+     * Los catálogos se guardan como referencias a los productos de ProductKV.
+     *
+     * @return true.
+     */
+    @Override
+    public boolean referencesProducts() {
+        return true;
+    }
+
+    /**
+     * Obtiene la clave con la que se guarda una tienda: su nombre en minúsculas.
+     *
+     * @param name Nombre de la tienda.
+     * @return La clave de la tienda.
+     */
+    private static String keyOf(String name) {
+        return name.toLowerCase();
+    }
+
+    /**
+     * Busca un producto del catálogo general por su nombre: en la lectura de todas las tiendas, en el mapa
+     * cargado para esa lectura, y si no, leyendo solo su registro.
+     *
+     * @param name Nombre del producto.
+     * @return El producto, o null si no existe.
+     */
+    private Product findProduct(String name) {
+        if (masterProducts != null) {
+            return masterProducts.get(name);
+        }
+        return productDAO.find(name);
+    }
+}
@@ -0,0 +1,161 @@
+package Persistance.ShopPersistance;
+
+import Business.Entities.BusinessModel;
+import Business.Entities.ProductCatalog;
+import Business.Entities.Shop;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Clase que convierte tiendas (con su modelo de negocio y su catálogo) a JSON y de JSON sin usar reflexión.
+ * @author alberto.marquillas i marc.viñas
+ */
+public class ShopTypeAdapter extends TypeAdapter<Shop> {
+
+    private final TypeAdapter<BusinessModel> businessModelAdapter;
+    private final TypeAdapter<ProductCatalog> productCatalogAdapter;
+
+    /**
+     * Constructor de la clase ShopTypeAdapter.
+     *
+     * @param businessModelAdapter Adaptador del modelo de negocio de la tienda.
+     * @param productCatalogAdapter Adaptador del catálogo de la tienda.
+     */
+    public ShopTypeAdapter(TypeAdapter<BusinessModel> businessModelAdapter, TypeAdapter<ProductCatalog> productCatalogAdapter) {
+        this.businessModelAdapter = businessModelAdapter;
+        this.productCatalogAdapter = productCatalogAdapter;
+    }
+
+    /**
+     * Escribe una tienda como objeto JSON.
+     *
+     * @param out Escritor JSON.
+     * @param shop Tienda que se escribirá (puede ser null).
+     * @throws IOException si no se puede escribir.
+     */
+    @Override
+    public void write(JsonWriter out, Shop shop) throws IOException {
+        if (shop == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("name").value(shop.getName());
+        out.name("description").value(shop.getDescription());
+        out.name("since").value(shop.getFoundationYear());
+        out.name("earnings").value(shop.getEarnings());
+        if (shop.getBusinessModel() != null) {
+            out.name("businessModelObject");
+            businessModelAdapter.write(out, shop.getBusinessModel());
+        }
+        if (shop.getProductCatalog() != null) {
+            out.name("productCatalog");
+            productCatalogAdapter.write(out, shop.getProductCatalog());
+        }
+        out.endObject();
+    }
+
+    /**
+     * Lee una tienda (un objeto JSON).
+     *
+     * @param in Lector JSON posicionado al inicio del objeto.
+     * @throws IOException si el contenido no se puede leer.
+     * @return La tienda leída, o null si el valor es null.
+     */
+    @Override
+    public Shop read(JsonReader in) throws IOException {
+        return read(in, name -> true);
+    }
+
+    /**
+     * Lee una tienda (un objeto JSON), construyendo su catálogo solo si withCatalog lo pide para su nombre.
+     * Si no, el catálogo se salta en el propio flujo JSON sin crear ningún producto, y la tienda queda sin catálogo (null).
+     * Si el catálogo aparece antes que el nombre, se guarda como árbol JSON hasta saber si hace falta.
+     *
+     * @param in Lector JSON posicionado al inicio del objeto.
+     * @param withCatalog Indica, a partir del nombre de la tienda, si se debe leer su catálogo.
+     * @throws IOException si el contenido no se puede leer.
+     * @return La tienda leída, o null si el valor es null.
+     */
+    public Shop read(JsonReader in, Predicate<String> withCatalog) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String name = null;
+        String description = null;
+        int since = 0;
+        float earnings = 0;
+        BusinessModel businessModel = null;
+        ProductCatalog productCatalog = null;
+        JsonElement pendingCatalog = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name" -> name = in.nextString();
+                case "description" -> description = in.nextString();
+                case "since" -> since = in.nextInt();
+                case "earnings" -> earnings = Float.parseFloat(in.nextString());
+                case "businessModelObject" -> businessModel = businessModelAdapter.read(in);
+                case "productCatalog" -> {
+                    if (name == null) {
+                        pendingCatalog = JsonParser.parseReader(in);
+                    } else if (withCatalog.test(name)) {
+                        productCatalog = productCatalogAdapter.read(in);
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (pendingCatalog != null && withCatalog.test(name)) {
+            productCatalog = productCatalogAdapter.fromJsonTree(pendingCatalog);
+        }
+        return new Shop(name, description, since, earnings, businessModel, productCatalog);
+    }
+
+    /**
+     * Lee una lista de tiendas (un array JSON), construyendo solo los catálogos que withCatalog pide.
+     *
+     * @param in Lector JSON posicionado al inicio del array.
+     * @param withCatalog Indica, a partir del nombre de cada tienda, si se debe leer su catálogo.
+     * @throws IOException si el contenido no se puede leer.
+     * @return Las tiendas leídas, o null si el fichero está vacío o el valor es null.
+     */
+    public ArrayList<Shop> readList(JsonReader in, Predicate<String> withCatalog) throws IOException {
+        if (in.peek() == JsonToken.END_DOCUMENT) {
+            return null;
+        }
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        ArrayList<Shop> shops = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            shops.add(read(in, withCatalog));
+        }
+        in.endArray();
+        return shops;
+    }
+}
@@ -0,0 +1,35 @@
+package Persistance;
+
+/**
+ * Enumeración de los formatos en los que los DAO de ficheros pueden guardar el JSON.
+ * Se escoge con la propiedad del sistema "storage.encoding"; al leer, el formato se detecta automáticamente.
+ * @author alberto.marquillas i marc.viñas
+ */
+public enum StorageEncoding {
+
+    /** JSON con sangrías, cómodo para leerlo y depurarlo (el formato de siempre). */
+    PRETTY,
+    /** JSON sin espacios. */
+    COMPACT,
+    /** JSON sin espacios comprimido con gzip, en un fichero ".json.gz". */
+    GZIP;
+
+    public static final String PROPERTY = "storage.encoding";
+
+    /**
+     * Obtiene el formato configurado en la propiedad "storage.encoding".
+     *
+     * @return El formato configurado, o PRETTY si no hay ninguno válido.
+     */
+    public static StorageEncoding configured() {
+        String value = System.getProperty(PROPERTY);
+        if (value != null) {
+            for (StorageEncoding encoding : values()) {
+                if (encoding.name().equalsIgnoreCase(value.trim())) {
+                    return encoding;
+                }
+            }
+        }
+        return PRETTY;
+    }
+}
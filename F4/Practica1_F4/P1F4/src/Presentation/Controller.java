@@ -6,6 +6,7 @@ import Business.Managers.ProductManager;
 import Business.Managers.ShopManager;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 
 
@@ -22,6 +23,8 @@ public class Controller {
     private CartManager cartManager;
     static final int CLOUD = 0;
     static final int JSON = 1;
+    static final int KV = 2;
+    static final String LOCAL_STORAGE_PROPERTY = "storage.local";
     static final int ERROR = -1;
 
     /**
@@ -47,7 +50,7 @@ public class Controller {
 
             this.shopManager = new ShopManager(data);
             this.productManager = new ProductManager(data);
-            this.productCatalogManager = new ProductCatalogManager(data);
+            this.productCatalogManager = new ProductCatalogManager(shopManager, productManager);
             this.cartManager = new CartManager();
 
             view.showStartingProgram();
@@ -86,8 +89,9 @@ public class Controller {
 
     /**
      * Verifica el estado del programa y determina si se utiliza la nube o JSON.
+     * Sin conexión, si la propiedad "storage.local" vale "kv" se utiliza el almacén clave-valor local en lugar de JSON.
      *
-     * @return  CLOUD si se utiliza la nube, JSON si se utiliza JSON, ERROR si hay un error.
+     * @return  CLOUD si se utiliza la nube, JSON si se utiliza JSON, KV si se utiliza el almacén clave-valor, ERROR si hay un error.
      */
     private int checkProgram() {
         this.productManager = new ProductManager(CLOUD);
@@ -100,7 +104,7 @@ public class Controller {
             view.showProductJSONTrue();
             if (productManager.isUsingLocal()) {
 
-                return JSON;
+                return "kv".equalsIgnoreCase(System.getProperty(LOCAL_STORAGE_PROPERTY)) ? KV : JSON;
             }else {
                 view.showProductFalse();
             }
@@ -223,7 +227,7 @@ public class Controller {
     private void manageShops() {
         int option = 0;
 
-        while (option != 4) {
+        while (option != 5) {
             view.showShopMenu();
             option = view.chooseOption();
             view.spacing();
@@ -232,10 +236,11 @@ public class Controller {
                 case 1 -> createShop();
                 case 2 -> expandShopCatalogue();
                 case 3 -> reduceShopCatalogue();
-                case 4 -> {
+                case 4 -> discountShopCatalogue();
+                case 5 -> {
 
                 }
-                default -> view.showWrongOption(1, 4);
+                default -> view.showWrongOption(1, 5);
             }
 
         }
@@ -328,6 +333,26 @@ public class Controller {
 
     }
 
+    /**
+     * Gestiona el descuento de todos los productos del catálogo de una tienda.
+     */
+    private void discountShopCatalogue() {
+        String shopName = view.showAskForName("shop");
+
+        if (!shopManager.shopUniqueName(shopName)) {
+            float percentage = view.askForDiscount();
+            if (shopManager.checkDiscount(percentage)) {
+                if (shopManager.discountCatalog(shopName, percentage)) {
+                    view.confirmDiscount(shopName, percentage, shopManager.getMinPriceFromCat(shopName), shopManager.getMaxPriceFromCat(shopName));
+                }
+            } else {
+                view.discountError();
+            }
+        } else {
+            view.noShop();
+        }
+    }
+
     /**
      * Gestiona la reducción de un catálogo.
      */
@@ -446,7 +471,7 @@ public class Controller {
         ArrayList<String> reviews = productManager.getReviews(product);
         if (reviews.size() > 0) {
             view.readReviews(product, brand);
-            float averageReviews = productManager.getAverageReviews(reviews);
+            float averageReviews = productManager.getAverageReviews(product);
             view.reviews(reviews);
             view.averageReviews(averageReviews);
         } else {
@@ -495,6 +520,7 @@ public class Controller {
         if (option - 1 < shops.size()) {
 
             String shopName = shops.get(option-1);
+            shopManager.openShop(shopName);
             int fundationYear = shopManager.getYearFromName(shopName);
             String descr = shopManager.getDescrFromName(shopName);
             float earnings = shopManager.getEarnings(shopName);
@@ -510,15 +536,17 @@ public class Controller {
 
             ArrayList<String> prodName = shopManager.getProdFromCat(shopName);
             ArrayList<String> brand = shopManager.getBrandFromCat(shopName);
-            ArrayList<String> price = shopManager.getPriceFromCat(shopName);
+            float[] price = shopManager.getPriceFromCat(shopName);
+            float[] finalPrice = shopManager.getQuoteFromCat(shopName, cartManager.getLoyaltyThres());
             ArrayList<String> category = shopManager.getCatFromCat(shopName);
 
             view.shopTitle(shopName, fundationYear, descr);
 
             if(prodName.size() > 0) {
+                view.priceSummary(shopManager.getMinPriceFromCat(shopName), shopManager.getMaxPriceFromCat(shopName), shopManager.getAveragePriceFromCat(shopName));
                 do{
 
-                    view.product(prodName.get(i-1), brand.get(i-1), price.get(i-1), i);
+                    view.product(prodName.get(i-1), brand.get(i-1), price[i-1], finalPrice[i-1], i);
                     i++;
 
                 } while(i < prodName.size()+1);
@@ -535,7 +563,7 @@ public class Controller {
                         switch (catOption) {
                             case 1 -> readReviews(prodName.get(interest-1), brand.get(interest-1));
                             case 2 -> reviewProduct(prodName.get(interest-1), brand.get(interest-1));
-                            case 3 -> addToCart(prodName.get(interest-1), brand.get(interest-1), shopName, Float.parseFloat(price.get(interest-1)), category.get(interest-1), fundationYear, descr, earnings, businessModel, loyaltyThres, sponsor, reviews);
+                            case 3 -> addToCart(prodName.get(interest-1), brand.get(interest-1), shopName, price[interest-1], category.get(interest-1), fundationYear, descr, earnings, businessModel, loyaltyThres, sponsor, reviews);
                             default -> view.showWrongOption(1, 3);
                         }
 
@@ -581,7 +609,7 @@ public class Controller {
 
         ArrayList<String> products = cartManager.getCartProds();
         ArrayList<String> brands = cartManager.getCartBrands();
-        ArrayList<Float> prices = cartManager.getCartPrice();
+        float[] prices = cartManager.getCartPrice();
         ArrayList<String> cantidades = cartManager.getCantidades();
 
         view.totalCart(products, brands, prices, cantidades);
@@ -605,13 +633,65 @@ public class Controller {
                     clearCart();
                     break;
                 case 3:
+                    removeFromCart(shops, products, brands);
+                    break;
+                case 4:
+                    changeCantidad(shops, products, brands);
+                    break;
+                case 5:
                     break;
                 default:
-                    view.showWrongOption(1,3);
+                    view.showWrongOption(1,5);
                     break;
             }
 
-        } while (option > 3 || option < 1);
+        } while (option > 5 || option < 1);
+    }
+
+    /**
+     * Gestiona quitar un producto del carrito.
+     *
+     * @param shops ArrayList de strings con la tienda de cada línea del carrito.
+     * @param products ArrayList de strings con el producto de cada línea del carrito.
+     * @param brands ArrayList de strings con la marca de cada línea del carrito.
+     */
+    private void removeFromCart(ArrayList<String> shops, ArrayList<String> products, ArrayList<String> brands) {
+        int line = view.askForCartLine() - 1;
+        view.spacing();
+
+        if (line >= 0 && line < products.size()) {
+            if (cartManager.removeFromCart(shops.get(line), products.get(line))) {
+                view.showRemovedFromCart(products.get(line), brands.get(line));
+                view.spacing();
+            }
+        } else {
+            view.showWrongOption(1, products.size());
+        }
+    }
+
+    /**
+     * Gestiona cambiar la cantidad de un producto del carrito. Con una cantidad de 0, el producto se quita del carrito.
+     *
+     * @param shops ArrayList de strings con la tienda de cada línea del carrito.
+     * @param products ArrayList de strings con el producto de cada línea del carrito.
+     * @param brands ArrayList de strings con la marca de cada línea del carrito.
+     */
+    private void changeCantidad(ArrayList<String> shops, ArrayList<String> products, ArrayList<String> brands) {
+        int line = view.askForCartLine() - 1;
+
+        if (line >= 0 && line < products.size()) {
+            int cantidad = view.askForCantidad();
+            view.spacing();
+            if (cantidad < 0) {
+                view.negativeNumber();
+            } else if (cartManager.updateCantidad(shops.get(line), products.get(line), cantidad)) {
+                view.showCantidadChanged(products.get(line), brands.get(line), cantidad);
+                view.spacing();
+            }
+        } else {
+            view.spacing();
+            view.showWrongOption(1, products.size());
+        }
     }
 
     /**
@@ -641,7 +721,12 @@ public class Controller {
 
         if (cartManager.confirmOK(confirm)) {
 
-            calculTaxes(shops);
+            shopManager.beginBatch();
+            try {
+                calculTaxes(shops);
+            } finally {
+                shopManager.flushBatch();
+            }
 
             view.spacing();
             if (cartManager.emptyCart()) {
@@ -653,41 +738,35 @@ public class Controller {
 
     /**
      * Calcula los impuestos y actualiza los ingresos de las tiendas durante el proceso de finalización de compra.
+     * Se recorre cada línea del carrito una sola vez; lo que ha ganado cada tienda y sus nuevos ingresos se acumulan
+     * en memoria, y los ingresos se dejan en el lote de escrituras que checkout() guarda al terminar.
      *
-     * @param shops Lista de nombres de tiendas de los productos en el carrito.
+     * @param shops Lista con el nombre de la tienda de cada línea del carrito, en el orden del carrito.
      */
     private void calculTaxes(ArrayList<String> shops){
-        float price = 0;
-        float thres = 0;
-        float earnings;
-        int i = 0;
-
+        ArrayList<String> products = cartManager.getCartProds();
+        LinkedHashMap<String, Float> thresByShop = new LinkedHashMap<>();
+        LinkedHashMap<String, Float> earningsByShop = new LinkedHashMap<>();
 
-        for (String shop: shops) {
-            ArrayList<String> products = cartManager.getCartProds();
-            for (String product: products){
-                if (shopManager.getProdFromCat(shop).contains(product)) {
+        for (int line = 0; line < shops.size(); line++) {
+            String shop = shops.get(line);
+            String product = products.get(line);
 
-                        float prodPrice = cartManager.getPriceProd(shop, product);
+            float prodPrice = cartManager.getPriceProd(shop, product);
+            float price = cartManager.calculateTaxes(shop, product);
 
-                        price = cartManager.calculateTaxes(shop, i);
-                        thres = thres + price;
-                        earnings = shopManager.getEarnings(shop) + price;
-                        shopManager.updateEarnings(earnings, shop);
-                        i++;
-                        if (cartManager.isLoyality(shop)){
-                            cartManager.setLoyaltyThres(cartManager.getLoyaltyThres() + prodPrice);
-                        }
-                }
+            thresByShop.put(shop, thresByShop.getOrDefault(shop, 0f) + price);
+            earningsByShop.put(shop, earningsByShop.getOrDefault(shop, shopManager.getEarnings(shop)) + price);
+            if (cartManager.isLoyality(shop)){
+                cartManager.setLoyaltyThres(cartManager.getLoyaltyThres() + prodPrice);
             }
+        }
 
-            view.showCheckout(shop, thres, shopManager.getEarnings(shop));
-
-            if (i == shops.size()){
-                break;
-            }
-            thres = 0;
+        for (String shop: thresByShop.keySet()) {
+            view.showCheckout(shop, thresByShop.get(shop), earningsByShop.get(shop));
         }
+
+        shopManager.updateEarnings(earningsByShop);
     }
 
 }
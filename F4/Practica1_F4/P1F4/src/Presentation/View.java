@@ -200,6 +200,16 @@ public class View {
 
     }
 
+    /**
+     * Muestra un mensaje solicitando el porcentaje de descuento de un catálogo y retorna la entrada del usuario.
+     *
+     * @return El porcentaje de descuento ingresado por el usuario.
+     */
+    public float askForDiscount() {
+        String DISCOUNT = "Please enter the discount percentage (0-100): ";
+        return askForFloat(DISCOUNT);
+    }
+
     /**
      * Muestra un mensaje solicitando el precio máximo de un producto y retorna la entrada del usuario como un número flotante.
      *
@@ -298,6 +308,51 @@ public class View {
         showMessage(ADD_CART);
     }
 
+    /**
+     * Mensaje que pide el número de una línea del carrito.
+     *
+     * @return el número introducido por el usuario.
+     */
+    public int askForCartLine() {
+        String LINE = "Which product? ";
+        return askForInteger(LINE);
+    }
+
+    /**
+     * Mensaje que pide la nueva cantidad de un producto del carrito.
+     *
+     * @return la cantidad introducida por el usuario.
+     */
+    public int askForCantidad() {
+        String CANTIDAD = "How many units do you want (0 to remove it)? ";
+        return askForInteger(CANTIDAD);
+    }
+
+    /**
+     * Muestra un mensaje indicando que un producto se ha quitado del carrito.
+     *
+     * @param product Nombre del producto.
+     * @param brand Marca del producto.
+     */
+    public void showRemovedFromCart(String product, String brand) {
+        String REMOVED = "\"" + product + "\" by \"" + brand + "\" has been removed from your cart.";
+        showMessage(REMOVED);
+    }
+
+    /**
+     * Muestra un mensaje indicando la nueva cantidad de un producto del carrito.
+     *
+     * @param product Nombre del producto.
+     * @param brand Marca del producto.
+     * @param cantidad Nueva cantidad de unidades.
+     */
+    public void showCantidadChanged(String product, String brand, int cantidad) {
+        String CHANGED = cantidad == 0
+                ? "\"" + product + "\" by \"" + brand + "\" has been removed from your cart."
+                : "Your cart now has " + cantidad + "x \"" + product + "\" by \"" + brand + "\".";
+        showMessage(CHANGED);
+    }
+
     /**
      * Muestra un mensaje indicando el fin de la compra.
      */
@@ -330,7 +385,7 @@ public class View {
      * Muestra el menú de operaciones relacionadas con tiendas en la consola.
      */
     public void showShopMenu() {
-        String SHOP_MENU = "\t1) Create a Shop\n\t2) Expand a Shop's Catalogue\n\t3) Reduce a Shop's Catalogue\n\n\t4) Back";
+        String SHOP_MENU = "\t1) Create a Shop\n\t2) Expand a Shop's Catalogue\n\t3) Reduce a Shop's Catalogue\n\t4) Discount a Shop's Catalogue\n\n\t5) Back";
         showMessage(SHOP_MENU);
         spacing();
     }
@@ -416,7 +471,7 @@ public class View {
      * Muestra el menú de operaciones relacionadas con el carrito de compras en la consola.
      */
     public void showCartMenu() {
-        String C_MENU = "\t1) Checkout\n\t2) Clear cart\n\n\t3) Back\n";
+        String C_MENU = "\t1) Checkout\n\t2) Clear cart\n\t3) Remove a product\n\t4) Change a product's quantity\n\n\t5) Back\n";
         showMessage(C_MENU);
     }
 
@@ -672,14 +727,14 @@ public class View {
      *
      * @param productsCarts ArrayList de strings con los productos de un carrito.
      * @param brands ArrayList de strings con las marcas de los productos de un carrito.
-     * @param prices ArrayList de floats con los precios de los productos de un carrito.
+     * @param prices array con los precios de los productos de un carrito.
      * @param cantidades ArrayList de strings con las cantidades de los productos en un carrito
      */
-    public void totalCart(ArrayList<String> productsCarts, ArrayList<String> brands, ArrayList<Float> prices, ArrayList<String> cantidades) {
+    public void totalCart(ArrayList<String> productsCarts, ArrayList<String> brands, float[] prices, ArrayList<String> cantidades) {
         int i = 0;
         for (String prod: productsCarts) {
-            String MESSAGE = "\t- " + cantidades.get(i) + "x \"" + prod + "\" by \"" + brands.get(i) + "\"";
-            String PRICE = "\t   Price: " + prices.get(i);
+            String MESSAGE = "\t" + (i + 1) + ") " + cantidades.get(i) + "x \"" + prod + "\" by \"" + brands.get(i) + "\"";
+            String PRICE = "\t   Price: " + prices[i];
 
             showMessage(MESSAGE);
             showMessage(PRICE);
@@ -756,14 +811,19 @@ public class View {
      * @param prodName el nombre del producto.
      * @param brand la marca del producto.
      * @param price el precio del producto.
+     * @param finalPrice el precio del producto para el cliente, con el modelo de negocio de la tienda aplicado.
      * @param i el número del producto en el listado.
      */
-    public void product(String prodName, String brand, String price, int i ) {
+    public void product(String prodName, String brand, float price, float finalPrice, int i ) {
 
         String MESSAGE = "\t" + i + ") \"" + prodName + "\" by \"" + brand + "\"";
         String PRICE = "\t   Price: " + price;
         showMessage(MESSAGE);
         showMessage(PRICE);
+        if (finalPrice != price) {
+            String FINAL_PRICE = "\t   Your price: " + finalPrice;
+            showMessage(FINAL_PRICE);
+        }
         spacing();
     }
 
@@ -820,6 +880,44 @@ public class View {
         spacing();
     }
 
+    /**
+     * Mensaje informativo sobre que un porcentaje de descuento no es válido.
+     */
+    public void discountError() {
+        spacing();
+        String MESSAGE = "The discount must be between 0 and 100!";
+        showMessage(MESSAGE);
+        spacing();
+    }
+
+    /**
+     * Mensaje que confirma el descuento del catálogo de una tienda, con el nuevo rango de precios.
+     *
+     * @param shop el nombre de la tienda.
+     * @param percentage el porcentaje de descuento aplicado.
+     * @param minPrice el precio más bajo del catálogo después del descuento.
+     * @param maxPrice el precio más alto del catálogo después del descuento.
+     */
+    public void confirmDiscount(String shop, float percentage, float minPrice, float maxPrice) {
+        spacing();
+        String MESSAGE = "\"" + shop + "\" is now offering a " + percentage + "% discount. Prices range from " + minPrice + " to " + maxPrice + ".";
+        showMessage(MESSAGE);
+        spacing();
+    }
+
+    /**
+     * Mensaje que resume los precios del catálogo de una tienda.
+     *
+     * @param minPrice el precio más bajo del catálogo.
+     * @param maxPrice el precio más alto del catálogo.
+     * @param averagePrice el precio medio del catálogo.
+     */
+    public void priceSummary(float minPrice, float maxPrice, float averagePrice) {
+        String MESSAGE = "Prices from " + minPrice + " to " + maxPrice + " (average " + averagePrice + ")";
+        showMessage(MESSAGE);
+        spacing();
+    }
+
     /**
      * Mensaje informativo sobre que no hay valoraciones para un producto.
      */